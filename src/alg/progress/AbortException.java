@@ -0,0 +1,42 @@
+package alg.progress;
+
+/**
+ * Thrown by a {@link ProgressMonitor} if the monitored computation was canceled
+ * or has exceeded its deadline.
+ * @author tommy
+ *
+ */
+public class AbortException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+	
+	private final EnumAbortReason reason;
+	private final EnumPhase       phase;
+	
+	/**
+	 * Creates a new <code>AbortException</code>.
+	 * @param reason	reason of the abort
+	 * @param phase		phase that was running when the computation was aborted
+	 */
+	public AbortException(EnumAbortReason reason, EnumPhase phase) {
+		super(reason.getString() + " in phase " + (phase == null ? "none" : phase.getString()));
+		this.reason = reason;
+		this.phase  = phase;
+	}
+	
+	/**
+	 * Returns the reason of the abort.
+	 * @return reason
+	 */
+	public EnumAbortReason getReason() {
+		return this.reason;
+	}
+	
+	/**
+	 * Returns the phase that was running when the computation was aborted.
+	 * @return phase (may be null)
+	 */
+	public EnumPhase getPhase() {
+		return this.phase;
+	}
+}
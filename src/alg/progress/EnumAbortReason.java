@@ -0,0 +1,21 @@
+package alg.progress;
+
+/**
+ * Reasons why a monitored computation was aborted.
+ * @author tommy
+ *
+ */
+public enum EnumAbortReason {
+
+	CANCELED,			// the computation was canceled by the caller
+	DEADLINE_EXCEEDED,	// the deadline of the computation has passed
+	SINK_FAILED;		// the receiver of streamed results failed, so the computation was left unfinished
+	
+	/**
+	 * Returns the name of this element.
+	 * @return name
+	 */
+	public String getString() {
+		return this.name();
+	}
+}
@@ -0,0 +1,25 @@
+package alg.progress;
+
+/**
+ * Phases of a planarity test and of the computation of a drawing, as reported to a {@link ProgressListener}.
+ * @author tommy
+ *
+ */
+public enum EnumPhase {
+
+	ORIENTATION,		// first DFS of the left-right planarity test
+	TESTING,			// second DFS of the left-right planarity test
+	EMBEDDING,			// third DFS of the left-right planarity test
+	EMBEDDER,			// translation of the rotation system into an embedding
+	TRIANGULATION,		// triangulation of an embedding
+	CANONICAL_ORDER,	// canonical order of a triangulation
+	POSITIONING;		// positions of the vertices of a triangulation
+	
+	/**
+	 * Returns the name of this element.
+	 * @return name
+	 */
+	public String getString() {
+		return this.name();
+	}
+}
@@ -0,0 +1,18 @@
+package alg.progress;
+
+/**
+ * Listener that is informed about the progress of a long running computation.
+ * @author tommy
+ *
+ */
+public interface ProgressListener {
+
+	/**
+	 * Is called whenever the percentage of the current phase has changed.
+	 * The call happens in the thread that runs the computation, so it should return quickly.
+	 * @param phase		the current phase
+	 * @param percent	the finished part of the current phase in percent (0 to 100)
+	 */
+	public void progressChanged(EnumPhase phase, int percent);
+	
+}
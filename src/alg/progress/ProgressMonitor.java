@@ -0,0 +1,202 @@
+package alg.progress;
+
+import embedding.Constant;
+
+/**
+ * Cooperative progress reporting and cancellation for long running computations.
+ * The computation announces its phases with {@link #startPhase(EnumPhase, long)} and calls
+ * {@link #worked()} for every unit of work (usually an edge). Every <code>checkInterval</code>
+ * units the monitor reports the percentage to its listener and checks for cancellation and for
+ * the deadline. In both cases an {@link AbortException} is thrown.
+ * <p>
+ * A monitor belongs to one computation at a time; only {@link #cancel()}, {@link #isCanceled()} and {@link #shouldAbort()}
+ * may be called from other threads.
+ * @author tommy
+ *
+ */
+public class ProgressMonitor {
+	
+	private final ProgressListener listener;
+	private final int              checkInterval;
+	
+	private long             deadline    = 0;     // in nano seconds, see System.nanoTime()
+	private boolean          hasDeadline = false;
+	private volatile boolean canceled    = false;
+	
+	private EnumPhase phase       = null;
+	private long      total       = 0;
+	private long      done        = 0;
+	private int       countdown   = 0;
+	private int       lastPercent = -1;
+	
+	
+	/**
+	 * Creates a new monitor without a listener. It can still be used for cancellation and deadlines.
+	 */
+	public ProgressMonitor() {
+		this(null);
+	}
+	
+	/**
+	 * Creates a new monitor, that checks every {@link Constant#DRAWING_PROGRESS} units of work.
+	 * @param listener listener that is informed about the progress (may be null)
+	 */
+	public ProgressMonitor(ProgressListener listener) {
+		this(listener, Constant.DRAWING_PROGRESS);
+	}
+	
+	/**
+	 * Creates a new monitor.
+	 * @param listener		listener that is informed about the progress (may be null)
+	 * @param checkInterval	number of units of work between two checks
+	 */
+	public ProgressMonitor(ProgressListener listener, int checkInterval) {
+		if (checkInterval <= 0) {
+			throw new IllegalArgumentException("check interval must be positive");
+		}
+		this.listener      = listener;
+		this.checkInterval = checkInterval;
+		this.countdown     = checkInterval;
+	}
+	
+	
+	/**
+	 * Sets a deadline relative to now. The computation is aborted at the first check after the deadline.
+	 * @param timeoutMillis time in milliseconds from now on
+	 */
+	public void setTimeout(long timeoutMillis) {
+		setDeadline(System.nanoTime() + timeoutMillis * 1000000L);
+	}
+	
+	/**
+	 * Sets an absolute deadline.
+	 * @param deadlineNanos deadline in nano seconds as returned by {@link System#nanoTime()}
+	 */
+	public void setDeadline(long deadlineNanos) {
+		this.deadline    = deadlineNanos;
+		this.hasDeadline = true;
+	}
+	
+	/**
+	 * Requests the cancellation of the computation. May be called from any thread.
+	 */
+	public void cancel() {
+		this.canceled = true;
+	}
+	
+	/**
+	 * Returns if the computation was canceled.
+	 * @return true if and only if {@link #cancel()} was called
+	 */
+	public boolean isCanceled() {
+		return this.canceled;
+	}
+	
+	/**
+	 * Returns the current phase.
+	 * @return current phase (null before the first phase has started)
+	 */
+	public EnumPhase getPhase() {
+		return this.phase;
+	}
+	
+	
+	/**
+	 * Starts a new phase.
+	 * @param phase		the new phase
+	 * @param totalWork	number of units of work of this phase
+	 */
+	public void startPhase(EnumPhase phase, long totalWork) {
+		this.phase       = phase;
+		this.total       = Math.max(totalWork, 1);
+		this.done        = 0;
+		this.countdown   = checkInterval;
+		this.lastPercent = -1;
+		check();
+	}
+	
+	/**
+	 * Finishes the current phase and reports 100 percent.
+	 */
+	public void finishPhase() {
+		done = total;
+		report();
+	}
+	
+	/**
+	 * Records one unit of work. Every <code>checkInterval</code> units the progress
+	 * is reported and the abort conditions are checked.
+	 * @throws AbortException if the computation was canceled or the deadline has passed
+	 */
+	public void worked() throws AbortException {
+		done++;
+		if (--countdown == 0) {
+			countdown = checkInterval;
+			check();
+		}
+	}
+	
+	/**
+	 * Counts towards the next check without recording progress. Should be called
+	 * in inner loops, whose single iterations are not a unit of work on their own,
+	 * so that the abort conditions are checked promptly.
+	 * @throws AbortException if the computation was canceled or the deadline has passed
+	 */
+	public void tick() throws AbortException {
+		if (--countdown == 0) {
+			countdown = checkInterval;
+			check();
+		}
+	}
+	
+	/**
+	 * Records several units of work at once, for example the units that the workers of a parallel computation
+	 * have finished, and then reports the progress and checks the abort conditions immediately.
+	 * @param units number of units of work
+	 * @throws AbortException if the computation was canceled or the deadline has passed
+	 */
+	public void worked(long units) throws AbortException {
+		done     += units;
+		countdown = checkInterval;
+		check();
+	}
+	
+	/**
+	 * Returns if the computation should be aborted, because it was canceled or the deadline has passed.
+	 * Unlike {@link #check()} nothing is reported, so this may be called from any thread, for example from the
+	 * workers of a parallel computation; the deadline has to be set before the workers are started.
+	 * @return true if and only if the next check throws an {@link AbortException}
+	 */
+	public boolean shouldAbort() {
+		return canceled || (hasDeadline && System.nanoTime() - deadline > 0);
+	}
+	
+	/**
+	 * Reports the progress and checks the abort conditions immediately.
+	 * @throws AbortException if the computation was canceled or the deadline has passed
+	 */
+	public void check() throws AbortException {
+		if (canceled) {
+			throw new AbortException(EnumAbortReason.CANCELED, phase);
+		}
+		if (hasDeadline && System.nanoTime() - deadline > 0) {
+			throw new AbortException(EnumAbortReason.DEADLINE_EXCEEDED, phase);
+		}
+		report();
+	}
+	
+	
+	/**
+	 * Reports the progress to the listener if the percentage has changed.
+	 */
+	private void report() {
+		if (listener == null || phase == null) {
+			return;
+		}
+		int percent = (int) Math.min(100, done * 100 / total);
+		if (percent != lastPercent) {
+			lastPercent = percent;
+			listener.progressChanged(phase, percent);
+		}
+	}
+}
@@ -1,9 +1,10 @@
 package drawing;
 
 import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
 
+import alg.progress.AbortException;
+import alg.progress.EnumPhase;
+import alg.progress.ProgressMonitor;
 import embedding.Embedding;
 import embedding.EmbeddingEdge;
 import embedding.EmbeddingFace;
@@ -11,14 +12,24 @@ import embedding.EmbeddingVertex;
 
 /**
  * Class to calculate a canonical order for the vertices of a triangulated embedding. 
+ * <p>
+ * The vertices are removed from the outer face one by one, from the last vertex of the order down to the third one.
+ * The outer cycle is kept as a list of vertices linked by arrays, and every vertex on it counts its chords, that is the edges
+ * to other vertices on the cycle that are not cycle edges. A vertex without chords can be removed; such vertices are kept on
+ * a stack of candidates. The counters are only changed for the vertices that come onto the cycle and for their neighbors,
+ * so every rotation is walked a constant number of times and the calculation takes linear time.
  * @author tommy
  *
  */
 public class CanonicalOrder {
 	
-	private final Embedding                       triangulation;
-	private 	  EmbeddingVertex[]                        vertexOrder;
-	private       HashMap<Integer, List<Integer>> children;      // adjacent vertices that come later in the vertex order
+	private static final int   NONE        = -1;
+	private static final int[] NO_CHILDREN = new int[0];
+	
+	private final Embedding       triangulation;
+	private final int[]           vertexOrder;	// ids of the vertices
+	private final int[][]         children;		// for every position in the order, the adjacent vertices that come before
+	private       ProgressMonitor monitor = new ProgressMonitor();
 	
 	/**
 	 * Creates a new <code>CanonicalOrder</code>.
@@ -26,30 +37,30 @@ public class CanonicalOrder {
 	 */
 	public CanonicalOrder(final Embedding triangulation) {
 		this.triangulation = triangulation;
-		this.vertexOrder   = new EmbeddingVertex[triangulation.getNumberVertices()];
-		this.children      = new HashMap<Integer, List<Integer>>();
-		
-		List<Embedding> embeddings = new LinkedList<>();
-		embeddings.add(triangulation);
+		this.vertexOrder   = new int[triangulation.getNumberVertices()];
+		this.children      = new int[vertexOrder.length][];
+	}
+	
+	/**
+	 * Sets the monitor that receives the progress and that may abort the calculation.
+	 * @param monitor progress monitor
+	 */
+	public void setProgressMonitor(ProgressMonitor monitor) {
+		this.monitor = monitor;
 	}
 	
 	/**
 	 * Calculates a canonical order.
+	 * @throws AbortException if the progress monitor aborts the calculation
+	 * @throws IllegalArgumentException if the embedding is not triangulated
 	 */
-	public void calculate() {
+	public void calculate() throws AbortException, IllegalArgumentException {
+		
+		monitor.startPhase(EnumPhase.CANONICAL_ORDER, vertexOrder.length);
 		
 		HashMap<Integer, EmbeddingVertex> vertices = triangulation.getVertices();
 		HashMap<Integer, EmbeddingFace>   faces    = triangulation.getFaces();
 
-		HashMap<Integer, Integer> chords        = new HashMap<Integer, Integer>();
-		List<EmbeddingVertex>     onOuterCircle = new LinkedList<EmbeddingVertex>();
-		List<EmbeddingEdge>       outerCircle   = new LinkedList<EmbeddingEdge>();
-
-		for (EmbeddingVertex v : vertices.values()) {
-			chords.put(v.getId(), 0);
-			children.put(v.getId(), new LinkedList<Integer>());
-		}
-
 		// determine outer face (randomly, use the first face)
 		EmbeddingFace outerFace = null;
 		for (EmbeddingFace f : faces.values()) {
@@ -60,109 +71,156 @@ public class CanonicalOrder {
 			// there are no faces at all in the embedding
 			return;
 		}
-
-		EmbeddingEdge e = outerFace.getIncidentEdge();
-		vertexOrder[1] = e.getSource();
-		vertexOrder[0] = e.getTarget();
-		onOuterCircle.add(e.getTarget());
-		onOuterCircle.add(e.getNext().getTarget());
-		onOuterCircle.add(e.getSource());
-		outerCircle.add(e.getNext().getNext().getTwin());
-		outerCircle.add(e.getNext().getTwin());
 		
-		//System.out.println("outerCircle 0 " + outerCircle.get(0).getId() + " - source: " + outerCircle.get(0).getSource().getId() + " - target: " + outerCircle.get(0).getTarget().getId());
-		//System.out.println("outerCircle 1 " + outerCircle.get(1).getId() + " - source: " + outerCircle.get(1).getSource().getId() + " - target: " + outerCircle.get(1).getTarget().getId());
+		int maxId = 0;
+		for (int id : vertices.keySet()) {
+			maxId = Math.max(maxId, id);
+		}
+		// the outer cycle is the path from the first to the second vertex of the order, closed by the edge between them
+		int[]     left       = new int[maxId + 1];
+		int[]     right      = new int[maxId + 1];
+		boolean[] onOuter    = new boolean[maxId + 1];
+		int[]     chords     = new int[maxId + 1];
+		int[]     added      = new int[maxId + 1];	// step in which the vertex came onto the cycle
+		int[]     newOuter   = new int[vertexOrder.length];
+		// a vertex is pushed when it comes onto the cycle without chords or when it loses its last chord;
+		// entries of vertices that got a chord again or that are removed are skipped
+		int[]     candidates = new int[3*vertexOrder.length + 1];
+		int       top        = 0;
+		
+		// the outer face runs from the first vertex over the third one to the second vertex
+		EmbeddingEdge e     = outerFace.getIncidentEdge();
+		if (e == null || e.getNext().getNext().getNext() != e) {
+			throw notTriangulated();
+		}
+		int           first = e.getTarget().getId();
+		int           third = e.getNext().getTarget().getId();
+		int           last  = e.getSource().getId();
+		vertexOrder[0] = first;
+		vertexOrder[1] = last;
+		children[0]    = NO_CHILDREN;
+		children[1]    = NO_CHILDREN;
+		left[first]    = NONE;
+		right[first]   = third;
+		left[third]    = first;
+		right[third]   = last;
+		left[last]     = third;
+		right[last]    = NONE;
+		onOuter[first] = onOuter[third] = onOuter[last] = true;
+		candidates[top++] = third;
 		
-
 		for (int k=vertexOrder.length-1; k>1; k--) {
-			//System.out.println("k: " + k + " - outerCircle size: " + outerCircle.size());
+			monitor.worked();
 			// chose v != v_0,v_1 such that v on outer face, not considered yet and chords(v)=0
-			EmbeddingVertex nextVertex   = null;
-			int    nextVertexId = -1;
-			for (int i=0; i<onOuterCircle.size(); i++) {
-				nextVertex   = onOuterCircle.get(i);
-				nextVertexId = nextVertex.getId();
-				if (nextVertexId != vertexOrder[0].getId() && nextVertexId != vertexOrder[1].getId()
-						&& chords.get(nextVertexId) == 0) {
-					// remove from list
-					onOuterCircle.remove(i);
-					break;
+			int v;
+			do {
+				if (top == 0) {
+					throw notTriangulated();
 				}
-			}
-			
-			//System.out.println("nextVertexId: " + nextVertexId);
-
-			// found the next vertex; add it to the considered vertices
-			vertexOrder[k] = nextVertex;
+				v = candidates[--top];
+			} while (!onOuter[v] || chords[v] != 0);
+			vertexOrder[k] = v;
+			onOuter[v]     = false;
 			
-			// determine children
-			List<Integer> childrenNextVertex = children.get(nextVertexId);
-			
-			// update edges of outer circle
-			int index = 0;
-			
-			while (outerCircle.get(index).getTarget().getId() != nextVertexId) {
-				index++;
+			// the neighbors that are not removed yet follow the edge to the left neighbor against the rotation,
+			// up to the edge to the right neighbor; in the other direction the outer face lies between both
+			int             l      = left[v];
+			int             r      = right[v];
+			EmbeddingVertex vertex = vertices.get(v);
+			EmbeddingEdge   out    = vertex.getOutEdge();
+			while (out.getTarget().getId() != l) {
+				monitor.tick();
+				out = out.getTwin().getNext();
+				if (out == vertex.getOutEdge()) {
+					throw notTriangulated();
+				}
+			}
+			EmbeddingEdge toLeft = out;
+			int           count  = 0;
+			for (out = out.getPrevious().getTwin(); out.getTarget().getId() != r; out = out.getPrevious().getTwin()) {
+				monitor.tick();
+				if (out == toLeft || count == newOuter.length) {
+					throw notTriangulated();
+				}
+				int w = out.getTarget().getId();
+				newOuter[count++] = w;
+				onOuter[w]        = true;
+				added[w]          = k;
 			}
-			EmbeddingEdge outofNextVertex = outerCircle.remove(index+1);
-			
-			
-			//System.out.println("outOfNextVertex " + outofNextVertex.getId() + " - source: " + outofNextVertex.getSource().getId() + " - target: " + outofNextVertex.getTarget().getId());
-			EmbeddingEdge intoNextVertex  = outerCircle.remove(index);
-			//System.out.println("intoNextVertex " + intoNextVertex.getId() + " - source: " + intoNextVertex.getSource().getId() + " - target: " + intoNextVertex.getTarget().getId());
-			EmbeddingEdge current = intoNextVertex.getNext();
-			//System.out.println("current " + current.getId() + " - source: " + current.getSource().getId() + " - target: " + current.getTarget().getId());
-			
-			int endIndex = index;
 			
-			while (current.getId() != outofNextVertex.getId()) {
-				EmbeddingEdge onCircle = current.getNext().getTwin();
-				outerCircle.add(endIndex, onCircle);
-				
-				childrenNextVertex.add(0, onCircle.getSource().getId());
-				
-				endIndex++;
-				current = current.getTwin().getNext();
-				onOuterCircle.add(onCircle.getTarget());
+			// the children from the left to the right neighbor replace v on the outer cycle
+			int[] cs       = new int[count + 2];
+			int   previous = l;
+			cs[0] = l;
+			for (int i=0; i<count; i++) {
+				int w = newOuter[i];
+				cs[i+1]         = w;
+				left[w]         = previous;
+				right[previous] = w;
+				previous        = w;
 			}
+			cs[count+1]     = r;
+			right[previous] = r;
+			left[r]         = previous;
+			children[k]     = cs;
 			
-			EmbeddingEdge lastEdge = outofNextVertex.getNext().getTwin();
-			outerCircle.add(endIndex, lastEdge);
+			if (count == 0) {
+				// the edge between l and r was a chord and is a cycle edge now
+				if (--chords[l] == 0 && l != first) {
+					candidates[top++] = l;
+				}
+				if (--chords[r] == 0 && r != last) {
+					candidates[top++] = r;
+				}
+			}
 			
-			childrenNextVertex.add(0, lastEdge.getSource().getId());
-			childrenNextVertex.add(0, lastEdge.getTarget().getId());
-
-			// update chords
-			for (EmbeddingVertex v : onOuterCircle) {
-				EmbeddingEdge incidentEdge = v.getOutEdge();
-				int  firstEdgeId  = incidentEdge.getId();
-				int  chordCounter = -2; // the 2 neighbours are on the outer circle, but no chords
+			// count the chords of the new vertices on the cycle; a chord between two new vertices is counted from both sides
+			for (int i=0; i<count; i++) {
+				int           w     = newOuter[i];
+				EmbeddingEdge start = vertices.get(w).getOutEdge();
+				EmbeddingEdge wEdge = start;
 				do {
-					if (onOuterCircle.contains(incidentEdge.getTarget())) {
-						chordCounter++;
+					monitor.tick();
+					int y = wEdge.getTarget().getId();
+					if (onOuter[y] && y != left[w] && y != right[w]) {
+						chords[w]++;
+						if (added[y] != k) {
+							chords[y]++;
+						}
 					}
-					incidentEdge = incidentEdge.getTwin().getNext();
-				} while (incidentEdge.getId() != firstEdgeId);
-				chords.put(v.getId(), chordCounter);
+					wEdge = wEdge.getTwin().getNext();
+				} while (wEdge != start);
+				if (chords[w] == 0) {
+					candidates[top++] = w;
+				}
 			}
 		}
+		monitor.finishPhase();
 	}
 
 	/**
 	 * Returns the calculated canonical order.
-	 * @return an array of the vertices in canonical order
+	 * @return the ids of the vertices in canonical order
 	 */
-	public EmbeddingVertex[] getVertexOrder() {
+	public int[] getVertexOrder() {
 		return vertexOrder;
 	}
 	
 	/**
 	 * Returns the children of the vertices. The children were obtained during the calculation
-	 * of the canonical order.
-	 * @return HashMap containing the children for every vertex
+	 * of the canonical order: the children of the vertex at position k of the order are its neighbors
+	 * that come before it, from the side of the first vertex to the side of the second vertex.
+	 * @return for every position in the order, the ids of the children
 	 */
-	public HashMap<Integer, List<Integer>> getChildren() {
+	public int[][] getChildren() {
 		return children;
 	}
 
+	/**
+	 * Returns the exception for an embedding whose outer cycle cannot be followed as in a triangulation.
+	 */
+	private static IllegalArgumentException notTriangulated() {
+		return new IllegalArgumentException("the embedding is not triangulated");
+	}
+
 }
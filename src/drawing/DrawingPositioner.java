@@ -3,6 +3,8 @@ package drawing;
 import java.util.HashMap;
 import java.util.Map.Entry;
 
+import alg.progress.AbortException;
+import alg.progress.ProgressMonitor;
 import embedding.Constant;
 import embedding.Coordinate;
 import embedding.Embedding;
@@ -25,15 +27,39 @@ public class DrawingPositioner {
 	 * @return				the drawing
 	 */
 	public static void calcPos(Embedding embedding) {
+		calcPos(embedding, new ProgressMonitor());
+	}
+	
+	/**
+	 * Calculates the positions for the specified embedding and reports the progress of
+	 * the triangulation, the canonical order and the positioning to <code>monitor</code>.
+	 * @param embedding	embedding
+	 * @param monitor	progress monitor
+	 * @throws AbortException if the progress monitor aborts the calculation
+	 */
+	public static void calcPos(Embedding embedding, ProgressMonitor monitor) throws AbortException {
 		
-		Embedding triangulation       = Triangulator.triangulate(embedding, -1);
-		CanonicalOrder canonicalOrder = new CanonicalOrder(triangulation);
-		canonicalOrder.calculate();
-		
-		HashMap<Integer, Coordinate> coordinates = TriangulationPositioner.calculatePositions(
-				triangulation,
-				canonicalOrder.getVertexOrder(),
-				canonicalOrder.getChildren());
+		// triangulate in place and undo the triangulation as soon as the positions are known
+		boolean wasJournalActive = embedding.isJournalActive();
+		int     checkpoint       = embedding.startJournal();
+		HashMap<Integer, Coordinate> coordinates;
+		try {
+			Triangulator.triangulateInPlace(embedding, monitor);
+			CanonicalOrder canonicalOrder = new CanonicalOrder(embedding);
+			canonicalOrder.setProgressMonitor(monitor);
+			canonicalOrder.calculate();
+			
+			coordinates = TriangulationPositioner.calculatePositions(
+					embedding,
+					canonicalOrder.getVertexOrder(),
+					canonicalOrder.getChildren(),
+					monitor);
+		} finally {
+			embedding.rollback(checkpoint);
+			if (!wasJournalActive) {
+				embedding.stopJournal();
+			}
+		}
 		
 		
 		// color the nodes
@@ -41,7 +67,7 @@ public class DrawingPositioner {
 			if (v.isCrossing()) {
 				v.setColor(EnumColor.CROSSING);
 			}
-			else if (v.getName().startsWith(Embedding.SET2_LETTER)) {
+			else if (embedding.getVertexSet(v.getId()) == 2) {
 				v.setColor(EnumColor.SET2);
 			}
 			else {
@@ -95,11 +121,10 @@ public class DrawingPositioner {
 			int realSourceId = embedding.getRealSource(eId);
 			int realTargetId = embedding.getRealTarget(eId);
 			EmbeddingVertex v = embedding.getVertex(realSourceId);
-			if (v.getName().startsWith(Embedding.SET1_LETTER)) {
+			if (embedding.getVertexSet(realSourceId) == 1) {
 				v = embedding.getVertex(realTargetId);
 			}
-			e.setName(v.getName());
-			e.setMappedName(v.getMappedName());
+			e.setNameVertex(v);
 		}
 	}
 	
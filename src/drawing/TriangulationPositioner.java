@@ -5,6 +5,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map.Entry;
 
+import alg.progress.AbortException;
+import alg.progress.EnumPhase;
+import alg.progress.ProgressMonitor;
 import embedding.Coordinate;
 import embedding.Embedding;
 import embedding.EmbeddingVertex;
@@ -20,15 +23,34 @@ public class TriangulationPositioner {
 	 * Calculates the positions of all vertices for the specified triangulation using
 	 * the specified canonical order.
 	 * @param triangulation	a triangulated embedding
-	 * @param vertexOrder	canonical order of the triangulation
-	 * @param children		children of vertices corresponding to canonical order
+	 * @param vertexOrder	canonical order of the triangulation, see {@link CanonicalOrder#getVertexOrder()}
+	 * @param children		children of vertices corresponding to canonical order, see {@link CanonicalOrder#getChildren()}
 	 * @return				the coordinates for each vertex
 	 */
 	public static HashMap<Integer, Coordinate> calculatePositions(
 			Embedding triangulation,
-			EmbeddingVertex[] vertexOrder,
-			HashMap<Integer, List<Integer>> children) {
+			int[] vertexOrder,
+			int[][] children) {
+		return calculatePositions(triangulation, vertexOrder, children, new ProgressMonitor());
+	}
+	
+	/**
+	 * Calculates the positions of all vertices for the specified triangulation using
+	 * the specified canonical order and reports the progress to <code>monitor</code>.
+	 * @param triangulation	a triangulated embedding
+	 * @param vertexOrder	canonical order of the triangulation, see {@link CanonicalOrder#getVertexOrder()}
+	 * @param children		children of vertices corresponding to canonical order, see {@link CanonicalOrder#getChildren()}
+	 * @param monitor		progress monitor
+	 * @return				the coordinates for each vertex
+	 * @throws AbortException if the progress monitor aborts the calculation
+	 */
+	public static HashMap<Integer, Coordinate> calculatePositions(
+			Embedding triangulation,
+			int[] vertexOrder,
+			int[][] children,
+			ProgressMonitor monitor) throws AbortException {
 
+		monitor.startPhase(EnumPhase.POSITIONING, vertexOrder.length);
 		HashMap<Integer, EmbeddingVertex>     vertices    = triangulation.getVertices();
 		HashMap<Integer, Coordinate> coordinates = new HashMap<Integer, Coordinate>();
 		HashMap<Integer, List<Integer>> covering = new HashMap<Integer, List<Integer>>();
@@ -42,19 +64,20 @@ public class TriangulationPositioner {
 		}
 
 		// initialize
-		coordinates.put(vertexOrder[0].getId(), new Coordinate(0,0));
-		coordinates.put(vertexOrder[1].getId(), new Coordinate(2,0));
-		coordinates.put(vertexOrder[2].getId(), new Coordinate(1,1));
+		coordinates.put(vertexOrder[0], new Coordinate(0,0));
+		coordinates.put(vertexOrder[1], new Coordinate(2,0));
+		coordinates.put(vertexOrder[2], new Coordinate(1,1));
 
-		onOuterFace.add(vertexOrder[0].getId());
-		onOuterFace.add(vertexOrder[2].getId());
-		onOuterFace.add(vertexOrder[1].getId());
+		onOuterFace.add(vertexOrder[0]);
+		onOuterFace.add(vertexOrder[2]);
+		onOuterFace.add(vertexOrder[1]);
 
 		for (int k = 3; k < vertexOrder.length; k++) {
-			int currentId    = vertexOrder[k].getId();
-			List<Integer> cs = children.get(currentId);
-			int leftChildId  = cs.get(0);
-			int rightChildId = cs.get(cs.size()-1);
+			monitor.worked();
+			int currentId    = vertexOrder[k];
+			int[] cs         = children[k];
+			int leftChildId  = cs[0];
+			int rightChildId = cs[cs.length-1];
 
 			int indexP = 0;
 			while (onOuterFace.get(indexP) != leftChildId) {
@@ -67,6 +90,7 @@ public class TriangulationPositioner {
 			while (onOuterFace.get(indexQ) != rightChildId) {
 				int outerId = onOuterFace.get(indexQ);
 				for (Integer vertexId : covering.get(outerId)) {
+					monitor.tick();
 					Coordinate coord = coordinates.get(vertexId);
 					coord.setX(coord.getX() + 1);
 					currentCov.add(vertexId); // adding to covering of v_k
@@ -78,6 +102,7 @@ public class TriangulationPositioner {
 			for (int i=indexQ; i<onOuterFace.size(); i++) {
 				int outerId = onOuterFace.get(i);
 				for (Integer vertexId : covering.get(outerId)) {
+					monitor.tick();
 					Coordinate coord = coordinates.get(vertexId);
 					coord.setX(coord.getX() + 2);
 				}
@@ -99,6 +124,7 @@ public class TriangulationPositioner {
 			onOuterFace.add(indexP+1, currentId);
 		}
 
+		monitor.finishPhase();
 		return coordinates;
 	}
 
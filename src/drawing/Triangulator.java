@@ -1,9 +1,12 @@
 package drawing;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map.Entry;
 
+import alg.progress.AbortException;
+import alg.progress.EnumPhase;
+import alg.progress.ProgressMonitor;
 import embedding.Embedding;
 import embedding.EmbeddingEdge;
 import embedding.EmbeddingFace;
@@ -11,6 +14,11 @@ import embedding.EmbeddingVertex;
 
 /**
  * Class to triangulate a simple planar embedding.
+ * <p>
+ * The embedding is made biconnected first, so that every face is a simple cycle. Then every face is triangulated by a fan
+ * from one of its vertices or, if that vertex is already adjacent to another vertex of the face, by a zig-zag of edges.
+ * No vertices are added (apart from embeddings with fewer than three vertices), no multi-edges arise, and every edge
+ * is inserted between two known corners in constant time, so the triangulation takes linear time.
  * @author tommy
  *
  */
@@ -23,66 +31,322 @@ public class Triangulator {
 	 * @return					a triangulated embedding
 	 */
 	public static Embedding triangulate(final Embedding embedding, int triangulationId) {
+		return triangulate(embedding, triangulationId, new ProgressMonitor());
+	}
+	
+	/**
+	 * Triangulates the specified embedding and reports the progress for every face to <code>monitor</code>.
+	 * @param embedding			a simple planar embedding
+	 * @param triangulationId	id the triangulation will get
+	 * @param monitor			progress monitor
+	 * @return					a triangulated embedding
+	 * @throws AbortException if the progress monitor aborts the triangulation
+	 */
+	public static Embedding triangulate(final Embedding embedding, int triangulationId, ProgressMonitor monitor) throws AbortException {
+		Embedding triangulation = embedding.copy(triangulationId);
+		addEdges(embedding, triangulation, monitor);
+		return triangulation;
+	}
+	
+	/**
+	 * Triangulates the specified embedding in place. The changes are recorded in the journal of the embedding,
+	 * so the triangulation can be undone by <code>embedding.rollback(checkpoint)</code> with the returned checkpoint.
+	 * The embedding is not copied.
+	 * @param embedding	a simple planar embedding
+	 * @param monitor	progress monitor
+	 * @return			checkpoint before the triangulation
+	 * @throws AbortException if the progress monitor aborts the triangulation; the embedding may then be partly triangulated
+	 */
+	public static int triangulateInPlace(Embedding embedding, ProgressMonitor monitor) throws AbortException {
+		int checkpoint = embedding.startJournal();
+		addEdges(embedding, embedding, monitor);
+		return checkpoint;
+	}
+	
+	/**
+	 * Adds edges to <code>triangulation</code>, which is <code>embedding</code> itself or a copy of it,
+	 * until every face is a triangle. Only embeddings with fewer than three vertices get dummy vertices.
+	 * @param embedding		a simple planar embedding
+	 * @param triangulation	embedding to add the vertices and edges to
+	 * @param monitor		progress monitor
+	 * @throws AbortException if the progress monitor aborts the triangulation
+	 */
+	private static void addEdges(final Embedding embedding, Embedding triangulation, ProgressMonitor monitor) throws AbortException {
 
-		Embedding triangulation      = embedding.copy(triangulationId);
-		HashMap<Integer, EmbeddingFace> faces = embedding.getFaces();
+		monitor.startPhase(EnumPhase.TRIANGULATION, embedding.getNumberVertices() + embedding.getNumberFaces());
+		
+		// the faces and vertices are fixed before, so that triangulation may be the same embedding
+		List<EmbeddingFace>   faces    = new ArrayList<EmbeddingFace>(embedding.getFaces().values());
+		List<EmbeddingVertex> vertices = new ArrayList<EmbeddingVertex>(embedding.getVertices().values());
 		
 		
-		if (embedding.getNumberFaces() == 1) {
+		if (faces.size() == 1) {
 			// get single face
-			EmbeddingFace face = null;
-			for (EmbeddingFace ef : faces.values()) {
-				face = ef;
-			}
+			EmbeddingFace face = faces.get(0);
 			
 			
-			if (embedding.getNumberVertices() == 2) {
+			if (vertices.size() == 2) {
 				EmbeddingVertex dummy = triangulation.createVertex();
-				for (EmbeddingVertex ev : embedding.getVertices().values()) {
+				for (EmbeddingVertex ev : vertices) {
 					triangulation.insertEdge(ev.getId(), dummy.getId(), face.getId(),-1);
 				}
-				return triangulation;
+				return;
 			}
-			else if (embedding.getNumberVertices() == 1) {
+			else if (vertices.size() == 1) {
 				EmbeddingVertex dummy1 = triangulation.createVertex();
 				EmbeddingVertex dummy2 = triangulation.createVertex();
-				for (EmbeddingVertex ev : embedding.getVertices().values()) {
+				for (EmbeddingVertex ev : vertices) {
 					triangulation.insertEdge(ev.getId(), dummy1.getId(), face.getId(),-1);
 					triangulation.insertEdge(ev.getId(), dummy2.getId(), face.getId(),-1);
 				}
-				return triangulation;
+				// close the path dummy1 - vertex - dummy2 to a triangle
+				triangulation.insertEdge(dummy1.getId(), dummy2.getId(), face.getId(),-1);
+				return;
 			}
 		}
 		
 		
+		int maxVertexId = 0;
+		for (EmbeddingVertex v : vertices) {
+			maxVertexId = Math.max(maxVertexId, v.getId());
+		}
+		int[] degree = new int[maxVertexId + 1];
+		for (EmbeddingVertex v : vertices) {
+			degree[v.getId()] = triangulation.getVertexDegree(v.getId());
+		}
+		
+		biconnect(triangulation, degree, monitor);
 		
-		for (Entry<Integer, EmbeddingFace> entry : faces.entrySet()) {
-			int  faceId = entry.getKey();
-			if (triangulation.getFaceDegree(faceId) <= 3) {
-				//System.out.println("small face");
+		// the edges of biconnect only cut off triangles, so every other face keeps its id and is now a simple cycle
+		EmbeddingEdge[] boundary = new EmbeddingEdge[8];
+		int[]           position = new int[maxVertexId + 1];	// position on the current face; stale entries are recognized by boundary
+		for (EmbeddingFace face : faces) {
+			monitor.worked();
+			EmbeddingFace triangFace = triangulation.getFace(face.getId());
+			int           k          = triangulation.getFaceDegree(triangFace.getId());
+			if (k <= 3) {
 				continue;
 			}
-			/*
+			if (k > boundary.length) {
+				boundary = new EmbeddingEdge[2*k];
+			}
+			
+			// the boundary starts at a vertex of minimum degree, so the rotations that are scanned below are short in sum
+			EmbeddingEdge start = triangFace.getIncidentEdge();
+			EmbeddingEdge e     = start.getNext();
+			while (e != triangFace.getIncidentEdge()) {
+				if (degree[e.getSource().getId()] < degree[start.getSource().getId()]) {
+					start = e;
+				}
+				e = e.getNext();
+			}
+			e = start;
+			for (int j=0; j<k; j++) {
+				boundary[j] = e;
+				position[e.getSource().getId()] = j;
+				e = e.getNext();
+			}
+			
+			// an edge from the first vertex to another vertex of the face (outside of it) forbids the fan
+			int chord = 0;
+			for (EmbeddingEdge out : triangulation.getRotationCursor(start.getSource().getId())) {
+				EmbeddingVertex w = out.getTarget();
+				int             i = position[w.getId()];
+				if (i >= 2 && i <= k-2 && boundary[i].getSource() == w) {
+					chord = i;
+					break;
+				}
+			}
+			
+			if (chord == 0) {
+				fan(triangulation, boundary, k, degree, monitor);
+			}
 			else {
-				System.out.println("face size: " + triangulation.getFaceDegree(faceId));
-			}*/
-						
-			EmbeddingVertex middleVertex = triangulation.createVertex();
-			int    targetId     = middleVertex.getId();
-			List<EmbeddingEdge> edges    = embedding.getIncidentEdgesToFace(faceId);
-			for (EmbeddingEdge e : edges) {
-				int sourceId        = e.getSource().getId();
-				EmbeddingEdge triangEdge = triangulation.getEdge(e.getId());
-				int insertionFaceId = triangEdge.getFace().getId();
-				
-				//System.out.println("source: " + triangulation.hasFaceVertex(insertionFaceId, sourceId));
-				//System.out.println("target: " + triangulation.hasFaceVertex(insertionFaceId, targetId));
-				
-				triangulation.insertEdge(sourceId, targetId, insertionFaceId,-1);
+				zigZag(triangulation, boundary, k, chord, degree, monitor);
 			}
 		}
 		
-		return triangulation;
+		monitor.finishPhase();
+	}
+	
+	/**
+	 * Triangulates the face with the boundary edges <code>boundary[0]</code> to <code>boundary[k-1]</code>
+	 * by edges from the source v0 of the first edge to all other vertices of the face, which must not be adjacent to v0.
+	 * Every edge cuts off a triangle, which is the only part that is traversed by the insertion.
+	 */
+	private static void fan(Embedding triangulation, EmbeddingEdge[] boundary, int k, int[] degree, ProgressMonitor monitor) throws AbortException {
+		// boundary[k-1] enters v0 and stays on the remaining face
+		for (int j=2; j<=k-2; j++) {
+			monitor.tick();
+			addEdge(triangulation, boundary[k-1], boundary[j-1], degree);
+		}
+	}
+	
+	/**
+	 * Triangulates the face with the boundary edges <code>boundary[0]</code> to <code>boundary[k-1]</code>, whose
+	 * first vertex v0 is adjacent to the vertex v<sub>chord</sub> outside of the face. Then no vertex between v0 and v<sub>chord</sub>
+	 * is adjacent to a vertex behind v<sub>chord</sub>, because such an edge would cross the chord. So v0 is cut off first,
+	 * and then the edges zig-zag between both sides until v<sub>chord</sub> is reached; every edge cuts off a triangle.
+	 */
+	private static void zigZag(Embedding triangulation, EmbeddingEdge[] boundary, int k, int chord, int[] degree, ProgressMonitor monitor) throws AbortException {
+		// the remaining face is v_a, v_a+1, ..., v_b, closed by the edge c from v_b to v_a
+		monitor.tick();
+		EmbeddingEdge c = addEdge(triangulation, boundary[k-2], boundary[0], degree);
+		int           a = 1;
+		int           b = k-1;
+		boolean       left = true;
+		while (b - a > 2) {
+			monitor.tick();
+			if ((left || b-1 < chord+1) && a+1 <= chord-1) {
+				// edge from v_b to v_a+1
+				c = addEdge(triangulation, boundary[b-1], boundary[a], degree);
+				a++;
+			}
+			else {
+				// edge from v_b-1 to v_a
+				c = addEdge(triangulation, boundary[b-2], c, degree);
+				b--;
+			}
+			left = !left;
+		}
+	}
+	
+	/**
+	 * Inserts an edge between two corners and updates the degrees of its end vertices.
+	 */
+	private static EmbeddingEdge addEdge(Embedding triangulation, EmbeddingEdge sourceCorner, EmbeddingEdge targetCorner, int[] degree) {
+		EmbeddingEdge edge = triangulation.insertEdge(sourceCorner, targetCorner, -1);
+		degree[edge.getSource().getId()]++;
+		degree[edge.getTarget().getId()]++;
+		return edge;
+	}
+	
+	/**
+	 * Makes a connected embedding biconnected: if two consecutive edges in the rotation of a vertex belong to different
+	 * biconnected components, they are closed to a triangle by an edge between their other end vertices, which merges the components.
+	 * The components are found once by a depth-first search and merged with a union-find structure afterwards.
+	 */
+	private static void biconnect(Embedding triangulation, int[] degree, ProgressMonitor monitor) throws AbortException {
+		int maxEdgeId = 0;
+		for (int id : triangulation.getEdges().keySet()) {
+			maxEdgeId = Math.max(maxEdgeId, id);
+		}
+		int[] block  = new int[maxEdgeId + 1];
+		int[] parent = new int[findBlocks(triangulation, degree.length, block)];	// union-find of the components
+		for (int i=0; i<parent.length; i++) {
+			parent[i] = i;
+		}
+		
+		for (EmbeddingVertex v : triangulation.getVertices().values()) {
+			monitor.worked();
+			EmbeddingEdge first = v.getOutEdge();
+			if (first == null || degree[v.getId()] < 2) {
+				continue;
+			}
+			EmbeddingEdge e = first;
+			do {
+				EmbeddingEdge next = e.getTwin().getNext();
+				int           b1   = find(parent, block[e.getId()]);
+				int           b2   = find(parent, block[next.getId()]);
+				if (b1 != b2) {
+					monitor.tick();
+					// from the end vertex of e to the end vertex of next; the triangle with v becomes the new face
+					EmbeddingEdge edge = addEdge(triangulation, e.getTwin().getPrevious(), next, degree);
+					parent[b2] = b1;
+					int length = Math.max(edge.getId(), edge.getTwin().getId()) + 1;
+					if (length > block.length) {
+						block = Arrays.copyOf(block, Math.max(2*block.length, length));
+					}
+					block[edge.getId()]           = b1;
+					block[edge.getTwin().getId()] = b1;
+				}
+				e = next;
+			} while (e != first);
+		}
+	}
+	
+	/**
+	 * Returns the representative of a component in the union-find structure and halves the path to it.
+	 */
+	private static int find(int[] parent, int b) {
+		while (parent[b] != b) {
+			parent[b] = parent[parent[b]];
+			b         = parent[b];
+		}
+		return b;
+	}
+	
+	/**
+	 * Numbers the biconnected components of the embedding by an iterative depth-first search with lowpoints.
+	 * @param vertexIds	bound for the vertex ids
+	 * @param block		receives the component of every edge (both halves), indexed by edge id
+	 * @return			number of components
+	 */
+	private static int findBlocks(Embedding triangulation, int vertexIds, int[] block) {
+		int[]             number     = new int[vertexIds];	// DFS number, 0 if not visited
+		int[]             low        = new int[vertexIds];
+		EmbeddingEdge[]   parentEdge = new EmbeddingEdge[vertexIds];
+		EmbeddingEdge[]   current    = new EmbeddingEdge[vertexIds];	// next edge in the rotation, null if all are visited
+		EmbeddingVertex[] stack      = new EmbeddingVertex[triangulation.getNumberVertices()];
+		EmbeddingEdge[]   edgeStack  = new EmbeddingEdge[triangulation.getNumberEdges()];
+		int               count      = 0;
+		int               blocks     = 0;
+		int               edgeTop    = 0;
+		
+		for (EmbeddingVertex root : triangulation.getVertices().values()) {
+			if (number[root.getId()] != 0 || root.getOutEdge() == null) {
+				continue;
+			}
+			number[root.getId()]  = low[root.getId()] = ++count;
+			current[root.getId()] = root.getOutEdge();
+			int top = 0;
+			stack[top++] = root;
+			while (top > 0) {
+				EmbeddingVertex v  = stack[top-1];
+				int             id = v.getId();
+				EmbeddingEdge   e  = current[id];
+				if (e != null) {
+					EmbeddingEdge next = e.getTwin().getNext();
+					current[id] = next == v.getOutEdge() ? null : next;
+					if (parentEdge[id] != null && e == parentEdge[id].getTwin()) {
+						continue;
+					}
+					int w = e.getTarget().getId();
+					if (number[w] == 0) {
+						edgeStack[edgeTop++] = e;
+						parentEdge[w] = e;
+						number[w]     = low[w] = ++count;
+						current[w]    = e.getTarget().getOutEdge();
+						stack[top++]  = e.getTarget();
+					}
+					else if (number[w] < number[id]) {
+						// back edge; its other half is seen from the ancestor and ignored there
+						edgeStack[edgeTop++] = e;
+						low[id] = Math.min(low[id], number[w]);
+					}
+				}
+				else {
+					top--;
+					EmbeddingEdge p = parentEdge[id];
+					if (p == null) {
+						continue;
+					}
+					int u = p.getSource().getId();
+					low[u] = Math.min(low[u], low[id]);
+					if (low[id] >= number[u]) {
+						// u separates the edges above p from the rest
+						EmbeddingEdge f;
+						do {
+							f = edgeStack[--edgeTop];
+							block[f.getId()]           = blocks;
+							block[f.getTwin().getId()] = blocks;
+						} while (f != p);
+						blocks++;
+					}
+				}
+			}
+		}
+		return blocks;
 	}
 
 }
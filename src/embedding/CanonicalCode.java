@@ -0,0 +1,388 @@
+package embedding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Canonical code of a connected component of an embedding: two components have the same code if and only if
+ * their embeddings are isomorphic, where the mirror image of an embedding counts as isomorphic. By Whitney's theorem,
+ * a 3-connected planar graph has only one embedding up to mirroring, so for 3-connected graphs equal codes mean
+ * isomorphic graphs, independent of the labeling of the vertices.
+ * <p>
+ * The code is the smallest traversal code over all start half-edges and both orientations (Weinberg): starting
+ * with a half-edge, the vertices are numbered in breadth-first order, and every vertex writes its degree and the
+ * numbers of its neighbors in the order of the rotation, beginning with the half-edge it was reached by. If the component
+ * has multiple edges or loops, every neighbor is followed by the position of the twin in the rotation of the neighbor.
+ * Only the half-edges with the smallest degree of the source and the smallest face are tried as start, and a traversal
+ * is aborted as soon as it is larger than the smallest code so far; in the worst case (regular triangulations),
+ * the time is quadratic in the size of the component. The components are coded in parallel.
+ * <p>
+ * Names, positions and ids are not part of the code; crossings are.
+ * @author tommy
+ *
+ */
+public final class CanonicalCode implements Comparable<CanonicalCode> {
+
+	private static final int NONE = -1;
+
+	private final byte[] code;	// variable-length numbers: vertices, edges, multi-edge flag, traversal code
+	private final int    numberOfVertices;
+	private final int    numberOfEdges;
+	private final long   hash;
+
+
+	private CanonicalCode(byte[] code, int numberOfVertices, int numberOfEdges) {
+		this.code             = code;
+		this.numberOfVertices = numberOfVertices;
+		this.numberOfEdges    = numberOfEdges;
+		long h = 0xcbf29ce484222325L;	// FNV-1a
+		for (byte b : code) {
+			h = (h ^ (b & 0xff)) * 0x100000001b3L;
+		}
+		this.hash = h;
+	}
+
+
+	/**
+	 * Returns the canonical codes of all components of an embedding, calculated on the common fork-join pool.
+	 * @param emb an embedding
+	 * @return    the codes in increasing order (so two embeddings have equal lists if their components are isomorphic)
+	 */
+	public static List<CanonicalCode> of(Embedding emb) {
+		return of(CompactEmbedding.fromEmbedding(emb), ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Returns the canonical codes of all components of an embedding, calculated on the common fork-join pool.
+	 * @param emb a compact embedding
+	 * @return    the codes in increasing order
+	 */
+	public static List<CanonicalCode> of(CompactEmbedding emb) {
+		return of(emb, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Returns the canonical codes of all components of an embedding.
+	 * @param emb  a compact embedding
+	 * @param pool the pool that codes the components in parallel
+	 * @return     the codes in increasing order
+	 */
+	public static List<CanonicalCode> of(CompactEmbedding emb, ForkJoinPool pool) {
+		final Coder           coder = new Coder(emb);
+		final CanonicalCode[] codes = new CanonicalCode[coder.numberOfComponents];
+		pool.submit(() -> IntStream.range(0, codes.length).parallel().forEach(c -> codes[c] = coder.code(c))).join();
+		Arrays.sort(codes);
+		return Collections.unmodifiableList(new ArrayList<CanonicalCode>(Arrays.asList(codes)));
+	}
+
+
+
+	/**
+	 * Returns the code as bytes.
+	 * @return copy of the code
+	 */
+	public byte[] toByteArray() {
+		return code.clone();
+	}
+
+	/**
+	 * Returns the number of vertices of the component.
+	 * @return number of vertices
+	 */
+	public int getNumberOfVertices() {
+		return numberOfVertices;
+	}
+
+	/**
+	 * Returns the number of edges of the component (each edge consists of two half-edges).
+	 * @return number of edges
+	 */
+	public int getNumberOfEdges() {
+		return numberOfEdges;
+	}
+
+	/**
+	 * Returns a 64 bit hash of the code, for example as key of a cache.
+	 * @return hash
+	 */
+	public long getHash() {
+		return hash;
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof CanonicalCode)) {
+			return false;
+		}
+		CanonicalCode other = (CanonicalCode) obj;
+		return hash == other.hash && Arrays.equals(code, other.code);
+	}
+
+	@Override
+	public int compareTo(CanonicalCode other) {
+		if (code.length != other.code.length) {
+			return code.length < other.code.length ? -1 : 1;
+		}
+		return Arrays.compareUnsigned(code, other.code);
+	}
+
+	@Override
+	public String toString() {
+		return "CanonicalCode[n=" + numberOfVertices + ", m=" + numberOfEdges + ", hash=" + Long.toHexString(hash) + "]";
+	}
+
+
+
+	/**
+	 * Calculates the codes of the components of one embedding. The components are disjoint, so
+	 * they can share the arrays of the vertices while they are coded in parallel.
+	 */
+	private static final class Coder {
+
+		private final CompactEmbedding emb;
+
+		private final int[] degree;
+		private final int[] position;		// position of every half-edge in the rotation of its source
+		private final int[] rotationNext;	// next half-edge in the rotation of the source
+		private final int[] rotationPrev;	// previous half-edge in the rotation of the source
+
+		private final int   numberOfComponents;
+		private final int[] componentStart;	// vertices of component c are componentVertices[componentStart[c]] to componentVertices[componentStart[c+1]-1]
+		private final int[] componentVertices;
+
+		private final int[] number;			// number of every vertex in the current traversal of its component
+		private final int[] reference;		// half-edge by which every vertex was reached in the current traversal
+		private final int[] mark;			// last vertex that had this vertex as neighbor
+
+
+		Coder(CompactEmbedding emb) {
+			this.emb = emb;
+			int n = emb.getNumberOfVertices();
+			int m = emb.getNumberOfEdges();
+			degree       = new int[n];
+			position     = new int[m];
+			rotationNext = new int[m];
+			rotationPrev = new int[m];
+			for (int v=0; v<n; v++) {
+				int d = degree[v] = emb.getVertexDegree(v);
+				for (int i=0; i<d; i++) {
+					int e = emb.getOutEdge(v, i);
+					position[e]     = i;
+					rotationNext[e] = emb.getOutEdge(v, (i + 1) % d);
+					rotationPrev[e] = emb.getOutEdge(v, (i + d - 1) % d);
+				}
+			}
+
+			// components by breadth-first search; the queue is the list of vertices
+			number            = new int[n];
+			reference         = new int[n];
+			mark              = new int[n];
+			componentStart    = new int[n + 1];
+			componentVertices = new int[n];
+			Arrays.fill(number, NONE);
+			Arrays.fill(mark, NONE);
+			int count = 0;
+			int tail  = 0;
+			for (int r=0; r<n; r++) {
+				if (number[r] != NONE) {
+					continue;
+				}
+				componentStart[count] = tail;
+				number[r] = count;
+				componentVertices[tail++] = r;
+				for (int head=componentStart[count]; head<tail; head++) {
+					int v = componentVertices[head];
+					for (int i=0; i<degree[v]; i++) {
+						int w = emb.getTarget(emb.getOutEdge(v, i));
+						if (number[w] == NONE) {
+							number[w] = count;
+							componentVertices[tail++] = w;
+						}
+					}
+				}
+				count++;
+			}
+			componentStart[count] = tail;
+			numberOfComponents    = count;
+		}
+
+
+		/**
+		 * Returns the canonical code of a component.
+		 */
+		CanonicalCode code(int c) {
+			int     from      = componentStart[c];
+			int     to        = componentStart[c+1];
+			int     halfEdges = 0;
+			boolean multiple  = false;
+			for (int i=from; i<to; i++) {
+				halfEdges += degree[componentVertices[i]];
+				multiple  |= hasMultipleEdges(componentVertices[i]);
+			}
+
+			int[] best = null;
+			if (halfEdges == 0) {
+				best = new int[] {crossingBit(componentVertices[from])};
+			}
+			else {
+				// start half-edges: smallest degree of the source and smallest face (of the orientation)
+				long minKey = Long.MAX_VALUE;
+				for (int i=from; i<to; i++) {
+					int v = componentVertices[i];
+					for (int k=0; k<degree[v]; k++) {
+						int e  = emb.getOutEdge(v, k);
+						minKey = Math.min(minKey, Math.min(key(e, true), key(e, false)));
+					}
+				}
+				int[] queue     = new int[to - from];
+				int[] candidate = new int[(to - from) + (multiple ? 2 : 1) * halfEdges];
+				for (int i=from; i<to; i++) {
+					int v = componentVertices[i];
+					for (int k=0; k<degree[v]; k++) {
+						int e = emb.getOutEdge(v, k);
+						for (int o=0; o<2; o++) {
+							boolean forward = o == 0;
+							if (key(e, forward) == minKey && traverse(c, e, forward, multiple, queue, candidate, best)) {
+								int[] swap = best == null ? new int[candidate.length] : best;
+								best       = candidate;
+								candidate  = swap;
+							}
+						}
+					}
+				}
+			}
+
+			// bytes
+			Encoder out = new Encoder(best.length + 3);
+			out.write(to - from);
+			out.write(halfEdges / 2);
+			out.write(multiple ? 1 : 0);
+			for (int value : best) {
+				out.write(value);
+			}
+			return new CanonicalCode(out.toByteArray(), to - from, halfEdges / 2);
+		}
+
+		/**
+		 * Writes the traversal code from a start half-edge into <code>candidate</code> and returns true, if it is
+		 * smaller than <code>best</code> (or best is null). The traversal is aborted as soon as it is larger.
+		 */
+		private boolean traverse(int c, int start, boolean forward, boolean multiple, int[] queue, int[] candidate, int[] best) {
+			for (int i=componentStart[c]; i<componentStart[c+1]; i++) {
+				number[componentVertices[i]] = NONE;
+			}
+			int root = emb.getSource(start);
+			number[root]    = 0;
+			reference[root] = start;
+			queue[0]        = root;
+			int tail  = 1;
+			int len   = 0;
+			int state = best == null ? -1 : 0;	// -1: smaller than best, 0: equal prefix
+			for (int head=0; head<tail; head++) {
+				int v = queue[head];
+				int e = reference[v];
+				if (state == 0 && (state = compare(crossingBit(v) + 2*degree[v], best[len])) > 0) {
+					return false;
+				}
+				candidate[len++] = crossingBit(v) + 2*degree[v];
+				for (int k=0; k<degree[v]; k++) {
+					int t = emb.getTwin(e);
+					int w = emb.getSource(t);
+					if (number[w] == NONE) {
+						number[w]     = tail;
+						reference[w]  = t;
+						queue[tail++] = w;
+					}
+					if (state == 0 && (state = compare(number[w], best[len])) > 0) {
+						return false;
+					}
+					candidate[len++] = number[w];
+					if (multiple) {
+						int d   = degree[w];
+						int rel = forward ? position[t] - position[reference[w]] : position[reference[w]] - position[t];
+						rel = (rel + d) % d;
+						if (state == 0 && (state = compare(rel, best[len])) > 0) {
+							return false;
+						}
+						candidate[len++] = rel;
+					}
+					e = forward ? rotationNext[e] : rotationPrev[e];
+				}
+			}
+			return state < 0;
+		}
+
+		/**
+		 * Returns the invariant that selects the start half-edges: degree of the source and size of the face
+		 * on the left side of the half-edge in the given orientation.
+		 */
+		private long key(int e, boolean forward) {
+			int face = forward ? emb.getFace(e) : emb.getFace(emb.getTwin(e));
+			return ((long) degree[emb.getSource(e)] << 32) | emb.getFaceDegree(face);
+		}
+
+		/**
+		 * Returns true, if a vertex has a loop or two edges to the same neighbor.
+		 */
+		private boolean hasMultipleEdges(int v) {
+			boolean multiple = false;
+			for (int i=0; i<degree[v]; i++) {
+				int w = emb.getTarget(emb.getOutEdge(v, i));
+				multiple |= w == v || mark[w] == v;
+				mark[w]   = v;
+			}
+			return multiple;
+		}
+
+		private int crossingBit(int v) {
+			return emb.isCrossing(v) ? 1 : 0;
+		}
+
+		private static int compare(int value, int bestValue) {
+			return value < bestValue ? -1 : (value == bestValue ? 0 : 1);
+		}
+	}
+
+	/**
+	 * Writes non-negative numbers with 7 bits per byte (the high bit marks a following byte).
+	 */
+	private static final class Encoder {
+
+		private byte[] bytes;
+		private int    size = 0;
+
+		Encoder(int capacity) {
+			bytes = new byte[capacity];
+		}
+
+		void write(int value) {
+			while (true) {
+				if (size + 5 > bytes.length) {
+					bytes = Arrays.copyOf(bytes, 2*bytes.length + 5);
+				}
+				if ((value & ~0x7f) == 0) {
+					bytes[size++] = (byte) value;
+					return;
+				}
+				bytes[size++] = (byte) ((value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(bytes, size);
+		}
+	}
+}
@@ -0,0 +1,756 @@
+package embedding;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Array-based half-edge structure (DCEL) of an embedding.
+ * Vertices, half-edges and faces are addressed by indices 0 to n-1, 0 to e-1 and 0 to f-1;
+ * all links are int arrays, so no traversal creates objects. The out-edges of every vertex
+ * (in the order of the rotation) and the half-edges of every face (in the order of <code>next</code>)
+ * are additionally stored in compressed arrays.
+ * <p>
+ * The combinatorial structure is fixed after creation; only names and positions can be changed.
+ * {@link #fromEmbedding(Embedding)} and {@link #toEmbedding()} convert from and to an {@link Embedding},
+ * so the algorithms that work on <code>Embedding</code> (triangulation, drawing, export) can still be used.
+ * The index of an element is its id in the corresponding <code>Embedding</code> minus one, unless the
+ * ids of the <code>Embedding</code> were not consecutive; see {@link #getVertexId(int)} and the like.
+ * {@link FrozenEmbedding} is an immutable view of a compact embedding that is addressed by these ids.
+ * <p>
+ * All arrays can be written to a channel in a versioned binary format and read back from a (memory-mapped)
+ * buffer with bulk copies, see {@link #writeTo(WritableByteChannel)} and {@link #readFrom(ByteBuffer)}.
+ * @author tommy
+ *
+ */
+public class CompactEmbedding {
+
+	public static final int NONE = -1;
+
+	// binary format
+	public static final int FILE_MAGIC   = 0x504C454D;	// "PLEM"
+	public static final int FILE_VERSION = 1;
+
+	private static final int FLAG_CROSSING_LINKS = 1;
+	private static final int FLAG_CROSSINGS      = 2;
+	private static final int FLAG_VERTEX_IDS     = 4;
+	private static final int FLAG_EDGE_IDS       = 8;
+	private static final int FLAG_FACE_IDS       = 16;
+	private static final int FLAG_NAMES          = 32;
+	private static final int BUFFER_SIZE         = 1 << 16;
+
+	private final int numberOfVertices;
+	private final int numberOfEdges;
+	private final int numberOfFaces;
+
+	// half-edges
+	private final int[] source;
+	private final int[] twin;
+	private final int[] next;
+	private final int[] previous;
+	private final int[] face;
+	private       int[] edgeBeforeCrossing = null;	// null if there are no crossings
+	private       int[] edgeAfterCrossing  = null;
+
+	// vertices
+	private final int[]     vertexEdgeStart;		// out-edges of v are vertexEdges[vertexEdgeStart[v]] to vertexEdges[vertexEdgeStart[v+1]-1]
+	private final int[]     vertexEdges;
+	private       boolean[] crossing = null;		// null if there are no crossings
+	private       String[]  names;					// null entries have the default name, see EmbeddingVertex#getInitName()
+	private final int[]     x;
+	private final int[]     y;
+
+	// faces
+	private final int[] faceEdgeStart;			// half-edges of f are faceEdges[faceEdgeStart[f]] to faceEdges[faceEdgeStart[f+1]-1]
+	private final int[] faceEdges;
+
+	// ids in the corresponding Embedding (null: index + 1)
+	private int[] vertexIds = null;
+	private int[] edgeIds   = null;
+	private int[] faceIds   = null;
+
+
+	/**
+	 * Creates a new embedding from its half-edges.
+	 * @param numberOfVertices	number of vertices
+	 * @param numberOfFaces		number of faces
+	 * @param source			source vertex of every half-edge
+	 * @param twin				twin of every half-edge
+	 * @param next				next half-edge on the boundary of the face to the left of every half-edge
+	 * @param face				face to the left of every half-edge
+	 * @param outEdge			first out-edge of every vertex (NONE for an isolated vertex); if null, the out-edge with the smallest index is used
+	 * @param incidentEdge		first half-edge of every face; if null, the half-edge with the smallest index is used
+	 */
+	public CompactEmbedding(int numberOfVertices, int numberOfFaces, int[] source, int[] twin, int[] next, int[] face,
+			int[] outEdge, int[] incidentEdge) {
+		this.numberOfVertices = numberOfVertices;
+		this.numberOfEdges    = source.length;
+		this.numberOfFaces    = numberOfFaces;
+		this.source = source;
+		this.twin   = twin;
+		this.next   = next;
+		this.face   = face;
+
+		previous = new int[numberOfEdges];
+		for (int e=0; e<numberOfEdges; e++) {
+			previous[next[e]] = e;
+		}
+
+		if (outEdge == null) {
+			outEdge = new int[numberOfVertices];
+			Arrays.fill(outEdge, NONE);
+			for (int e=numberOfEdges-1; e>=0; e--) {
+				outEdge[source[e]] = e;
+			}
+		}
+		if (incidentEdge == null) {
+			incidentEdge = new int[numberOfFaces];
+			Arrays.fill(incidentEdge, NONE);
+			for (int e=numberOfEdges-1; e>=0; e--) {
+				incidentEdge[face[e]] = e;
+			}
+		}
+
+		// out-edges in the order of the rotation
+		vertexEdgeStart = new int[numberOfVertices + 1];
+		vertexEdges     = new int[numberOfEdges];
+		int pos = 0;
+		for (int v=0; v<numberOfVertices; v++) {
+			vertexEdgeStart[v] = pos;
+			int start = outEdge[v];
+			if (start == NONE) {
+				continue;
+			}
+			int e = start;
+			do {
+				vertexEdges[pos++] = e;
+				e = next[twin[e]];
+			} while (e != start);
+		}
+		vertexEdgeStart[numberOfVertices] = pos;
+
+		// half-edges on the boundary of the faces
+		faceEdgeStart = new int[numberOfFaces + 1];
+		faceEdges     = new int[numberOfEdges];
+		pos = 0;
+		for (int f=0; f<numberOfFaces; f++) {
+			faceEdgeStart[f] = pos;
+			int start = incidentEdge[f];
+			if (start == NONE) {
+				continue;
+			}
+			int e = start;
+			do {
+				faceEdges[pos++] = e;
+				e = next[e];
+			} while (e != start);
+		}
+		faceEdgeStart[numberOfFaces] = pos;
+
+		names = new String[numberOfVertices];
+		x     = new int[numberOfVertices];
+		y     = new int[numberOfVertices];
+	}
+
+	/**
+	 * Creates an embedding from all its arrays, as read from a file.
+	 */
+	private CompactEmbedding(int[] source, int[] twin, int[] next, int[] previous, int[] face,
+			int[] vertexEdgeStart, int[] vertexEdges, int[] faceEdgeStart, int[] faceEdges, int[] x, int[] y) {
+		this.numberOfVertices = vertexEdgeStart.length - 1;
+		this.numberOfEdges    = source.length;
+		this.numberOfFaces    = faceEdgeStart.length - 1;
+		this.source           = source;
+		this.twin             = twin;
+		this.next             = next;
+		this.previous         = previous;
+		this.face             = face;
+		this.vertexEdgeStart  = vertexEdgeStart;
+		this.vertexEdges      = vertexEdges;
+		this.faceEdgeStart    = faceEdgeStart;
+		this.faceEdges        = faceEdges;
+		this.x                = x;
+		this.y                = y;
+		this.names            = new String[numberOfVertices];
+	}
+
+
+
+	/**
+	 * Creates a compact copy of an embedding. Names, crossings and positions are copied;
+	 * colors, mapped names and stretched positions are not.
+	 * @param emb an embedding
+	 * @return    the compact embedding
+	 */
+	public static CompactEmbedding fromEmbedding(Embedding emb) {
+		int[] vIds = sortedIds(emb.getVertices().keySet());
+		int[] eIds = sortedIds(emb.getEdges().keySet());
+		int[] fIds = sortedIds(emb.getFaces().keySet());
+
+		int   m            = eIds.length;
+		int[] source       = new int[m];
+		int[] twin         = new int[m];
+		int[] next         = new int[m];
+		int[] face         = new int[m];
+		int[] before       = new int[m];
+		int[] after        = new int[m];
+		boolean crossings  = false;
+		for (int i=0; i<m; i++) {
+			EmbeddingEdge e = emb.getEdge(eIds[i]);
+			source[i] = index(vIds, e.getSource().getId());
+			twin[i]   = index(eIds, e.getTwin().getId());
+			next[i]   = index(eIds, e.getNext().getId());
+			face[i]   = index(fIds, e.getFace().getId());
+			before[i] = e.getEdgeBeforeCrossing() == null ? NONE : index(eIds, e.getEdgeBeforeCrossing().getId());
+			after[i]  = e.getEdgeAfterCrossing()  == null ? NONE : index(eIds, e.getEdgeAfterCrossing().getId());
+			crossings |= before[i] != NONE || after[i] != NONE;
+		}
+
+		int[] outEdge = new int[vIds.length];
+		for (int i=0; i<vIds.length; i++) {
+			EmbeddingEdge e = emb.getVertex(vIds[i]).getOutEdge();
+			outEdge[i] = e == null ? NONE : index(eIds, e.getId());
+		}
+		int[] incidentEdge = new int[fIds.length];
+		for (int i=0; i<fIds.length; i++) {
+			EmbeddingEdge e = emb.getFace(fIds[i]).getIncidentEdge();
+			incidentEdge[i] = e == null ? NONE : index(eIds, e.getId());
+		}
+
+		CompactEmbedding compact = new CompactEmbedding(vIds.length, fIds.length, source, twin, next, face, outEdge, incidentEdge);
+		compact.vertexIds = isConsecutive(vIds) ? null : vIds;
+		compact.edgeIds   = isConsecutive(eIds) ? null : eIds;
+		compact.faceIds   = isConsecutive(fIds) ? null : fIds;
+		if (crossings) {
+			compact.edgeBeforeCrossing = before;
+			compact.edgeAfterCrossing  = after;
+		}
+
+		for (int i=0; i<vIds.length; i++) {
+			EmbeddingVertex v = emb.getVertex(vIds[i]);
+			compact.setVertexName(i, v.getName());
+			compact.x[i] = v.getX();
+			compact.y[i] = v.getY();
+			if (v.isCrossing()) {
+				compact.setIsCrossing(i, true);
+			}
+		}
+		return compact;
+	}
+
+	/**
+	 * Creates an {@link Embedding} with the same structure, ids, names, crossings and positions.
+	 * The edges get empty names, as the edges created by {@link Embedding#createEdge(EmbeddingVertex, EmbeddingVertex)}.
+	 * @return the embedding
+	 */
+	public Embedding toEmbedding() {
+		Embedding emb = new Embedding();
+
+		for (int v=0; v<numberOfVertices; v++) {
+			emb.createVertex(getVertexId(v));
+			if (names[v] != null) {
+				emb.setVertexName(getVertexId(v), names[v]);
+			}
+		}
+		for (int e=0; e<numberOfEdges; e++) {
+			emb.createEdge(getEdgeId(e)).setName("");
+		}
+		for (int f=0; f<numberOfFaces; f++) {
+			emb.createFace(getFaceId(f));
+		}
+
+		for (int e=0; e<numberOfEdges; e++) {
+			emb.setEdge(getEdgeId(e), getVertexId(source[e]), getVertexId(getTarget(e)),
+					getFaceId(face[e]), getEdgeId(twin[e]), getEdgeId(next[e]), getEdgeId(previous[e]),
+					getEdgeBeforeCrossing(e) == NONE ? NONE : getEdgeId(getEdgeBeforeCrossing(e)),
+					getEdgeAfterCrossing(e)  == NONE ? NONE : getEdgeId(getEdgeAfterCrossing(e)));
+		}
+		for (int v=0; v<numberOfVertices; v++) {
+			int out = getVertexDegree(v) == 0 ? NONE : getEdgeId(getOutEdge(v, 0));
+			emb.setVertex(getVertexId(v), isCrossing(v), out);
+			EmbeddingVertex ev = emb.getVertex(getVertexId(v));
+			ev.setX(x[v]);
+			ev.setY(y[v]);
+		}
+		for (int f=0; f<numberOfFaces; f++) {
+			emb.setFace(getFaceId(f), getFaceDegree(f) == 0 ? NONE : getEdgeId(getFaceEdge(f, 0)));
+		}
+
+		return emb;
+	}
+
+
+
+	/**
+	 * Writes this embedding in the binary format to a channel; the channel is not closed.
+	 * All numbers are little-endian ints: a header (magic number, version, flags, number of vertices,
+	 * half-edges and faces), the arrays of the half-edges, rotations, faces and positions, the optional
+	 * crossing links, crossings (as bit set) and ids, and finally the names that differ from the default name
+	 * (length in bytes or -1, followed by the UTF-8 bytes).
+	 * @param channel target channel, for example a {@link java.nio.channels.FileChannel}
+	 * @throws IOException if writing fails
+	 */
+	public void writeTo(WritableByteChannel channel) throws IOException {
+		boolean hasNames = false;
+		for (String name : names) {
+			hasNames |= name != null;
+		}
+		int flags = (edgeBeforeCrossing != null ? FLAG_CROSSING_LINKS : 0)
+		          | (crossing != null           ? FLAG_CROSSINGS      : 0)
+		          | (vertexIds != null          ? FLAG_VERTEX_IDS     : 0)
+		          | (edgeIds != null            ? FLAG_EDGE_IDS       : 0)
+		          | (faceIds != null            ? FLAG_FACE_IDS       : 0)
+		          | (hasNames                   ? FLAG_NAMES          : 0);
+
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		putInts(channel, buffer, new int[] {FILE_MAGIC, FILE_VERSION, flags, numberOfVertices, numberOfEdges, numberOfFaces});
+		putInts(channel, buffer, source);
+		putInts(channel, buffer, twin);
+		putInts(channel, buffer, next);
+		putInts(channel, buffer, previous);
+		putInts(channel, buffer, face);
+		putInts(channel, buffer, vertexEdgeStart);
+		putInts(channel, buffer, vertexEdges);
+		putInts(channel, buffer, faceEdgeStart);
+		putInts(channel, buffer, faceEdges);
+		putInts(channel, buffer, x);
+		putInts(channel, buffer, y);
+		if (edgeBeforeCrossing != null) {
+			putInts(channel, buffer, edgeBeforeCrossing);
+			putInts(channel, buffer, edgeAfterCrossing);
+		}
+		if (crossing != null) {
+			int[] bits = new int[(numberOfVertices + 31) / 32];
+			for (int v=0; v<numberOfVertices; v++) {
+				if (isCrossing(v)) {
+					bits[v >>> 5] |= 1 << (v & 31);
+				}
+			}
+			putInts(channel, buffer, bits);
+		}
+		if (vertexIds != null) {
+			putInts(channel, buffer, vertexIds);
+		}
+		if (edgeIds != null) {
+			putInts(channel, buffer, edgeIds);
+		}
+		if (faceIds != null) {
+			putInts(channel, buffer, faceIds);
+		}
+		if (hasNames) {
+			for (String name : names) {
+				byte[] bytes = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+				putInts(channel, buffer, new int[] {bytes == null ? -1 : bytes.length});
+				for (int i=0; bytes != null && i<bytes.length; ) {
+					if (!buffer.hasRemaining()) {
+						flush(channel, buffer);
+					}
+					int k = Math.min(bytes.length - i, buffer.remaining());
+					buffer.put(bytes, i, k);
+					i += k;
+				}
+			}
+		}
+		flush(channel, buffer);
+	}
+
+	/**
+	 * Reads an embedding in the binary format of {@link #writeTo(WritableByteChannel)}, starting at the position
+	 * of the buffer. The arrays are copied in bulk, so a memory-mapped file is read at the speed of memory.
+	 * The position of the buffer is not changed.
+	 * @param buffer buffer with the data, for example a {@link java.nio.MappedByteBuffer}
+	 * @return       the embedding
+	 * @throws IOException if the data is not an embedding of a supported version or is truncated
+	 */
+	public static CompactEmbedding readFrom(ByteBuffer buffer) throws IOException {
+		ByteBuffer in = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+		try {
+			int[] header = getInts(in, 6);
+			if (header[0] != FILE_MAGIC) {
+				throw new IOException("no embedding file");
+			}
+			if (header[1] > FILE_VERSION) {
+				throw new IOException("unsupported version " + header[1] + " of the embedding file");
+			}
+			int flags = header[2];
+			int n     = header[3];
+			int m     = header[4];
+			int f     = header[5];
+
+			CompactEmbedding compact = new CompactEmbedding(getInts(in, m), getInts(in, m), getInts(in, m), getInts(in, m),
+					getInts(in, m), getInts(in, n+1), getInts(in, m), getInts(in, f+1), getInts(in, m), getInts(in, n), getInts(in, n));
+			if ((flags & FLAG_CROSSING_LINKS) != 0) {
+				compact.edgeBeforeCrossing = getInts(in, m);
+				compact.edgeAfterCrossing  = getInts(in, m);
+			}
+			if ((flags & FLAG_CROSSINGS) != 0) {
+				int[] bits = getInts(in, (n + 31) / 32);
+				for (int v=0; v<n; v++) {
+					if ((bits[v >>> 5] & (1 << (v & 31))) != 0) {
+						compact.setIsCrossing(v, true);
+					}
+				}
+			}
+			if ((flags & FLAG_VERTEX_IDS) != 0) {
+				compact.vertexIds = getInts(in, n);
+			}
+			if ((flags & FLAG_EDGE_IDS) != 0) {
+				compact.edgeIds = getInts(in, m);
+			}
+			if ((flags & FLAG_FACE_IDS) != 0) {
+				compact.faceIds = getInts(in, f);
+			}
+			if ((flags & FLAG_NAMES) != 0) {
+				for (int v=0; v<n; v++) {
+					int length = in.getInt();
+					if (length >= 0) {
+						byte[] bytes = new byte[length];
+						in.get(bytes);
+						compact.names[v] = new String(bytes, StandardCharsets.UTF_8);
+					}
+				}
+			}
+			return compact;
+		} catch (BufferUnderflowException | NegativeArraySizeException e) {
+			throw new IOException("embedding file is truncated", e);
+		}
+	}
+
+
+
+	/**
+	 * Returns the number of vertices (including crossings).
+	 * @return number of vertices
+	 */
+	public int getNumberOfVertices() {
+		return numberOfVertices;
+	}
+
+	/**
+	 * Returns the number of half-edges.
+	 * @return number of half-edges
+	 */
+	public int getNumberOfEdges() {
+		return numberOfEdges;
+	}
+
+	/**
+	 * Returns the number of faces.
+	 * @return number of faces
+	 */
+	public int getNumberOfFaces() {
+		return numberOfFaces;
+	}
+
+
+	/**
+	 * Returns the source of a half-edge.
+	 * @param e half-edge
+	 * @return  source vertex
+	 */
+	public int getSource(int e) {
+		return source[e];
+	}
+
+	/**
+	 * Returns the target of a half-edge.
+	 * @param e half-edge
+	 * @return  target vertex
+	 */
+	public int getTarget(int e) {
+		return source[twin[e]];
+	}
+
+	/**
+	 * Returns the twin of a half-edge, that is the half-edge in reversed direction.
+	 * @param e half-edge
+	 * @return  twin
+	 */
+	public int getTwin(int e) {
+		return twin[e];
+	}
+
+	/**
+	 * Returns the next half-edge on the boundary of the face to the left of <code>e</code>.
+	 * @param e half-edge
+	 * @return  next half-edge
+	 */
+	public int getNext(int e) {
+		return next[e];
+	}
+
+	/**
+	 * Returns the previous half-edge on the boundary of the face to the left of <code>e</code>.
+	 * @param e half-edge
+	 * @return  previous half-edge
+	 */
+	public int getPrevious(int e) {
+		return previous[e];
+	}
+
+	/**
+	 * Returns the face to the left of a half-edge.
+	 * @param e half-edge
+	 * @return  face
+	 */
+	public int getFace(int e) {
+		return face[e];
+	}
+
+	/**
+	 * Returns the edge part before the source of <code>e</code>, if the source is a crossing.
+	 * @param e half-edge
+	 * @return  edge part or NONE
+	 */
+	public int getEdgeBeforeCrossing(int e) {
+		return edgeBeforeCrossing == null ? NONE : edgeBeforeCrossing[e];
+	}
+
+	/**
+	 * Returns the edge part after the target of <code>e</code>, if the target is a crossing.
+	 * @param e half-edge
+	 * @return  edge part or NONE
+	 */
+	public int getEdgeAfterCrossing(int e) {
+		return edgeAfterCrossing == null ? NONE : edgeAfterCrossing[e];
+	}
+
+
+	/**
+	 * Returns the degree of a vertex, that is the number of its out-edges.
+	 * @param v vertex
+	 * @return  degree
+	 */
+	public int getVertexDegree(int v) {
+		return vertexEdgeStart[v+1] - vertexEdgeStart[v];
+	}
+
+	/**
+	 * Returns the out-edge of <code>v</code> at position <code>i</code> of the rotation.
+	 * @param v vertex
+	 * @param i position (0 &lt;= i &lt; degree)
+	 * @return  half-edge
+	 */
+	public int getOutEdge(int v, int i) {
+		return vertexEdges[vertexEdgeStart[v] + i];
+	}
+
+	/**
+	 * Returns the degree of a face, that is the number of half-edges on its boundary.
+	 * @param f face
+	 * @return  degree
+	 */
+	public int getFaceDegree(int f) {
+		return faceEdgeStart[f+1] - faceEdgeStart[f];
+	}
+
+	/**
+	 * Returns the half-edge of <code>f</code> at position <code>i</code> of its boundary.
+	 * @param f face
+	 * @param i position (0 &lt;= i &lt; degree)
+	 * @return  half-edge
+	 */
+	public int getFaceEdge(int f, int i) {
+		return faceEdges[faceEdgeStart[f] + i];
+	}
+
+
+	/**
+	 * Returns if a vertex is a crossing.
+	 * @param v vertex
+	 * @return  true if and only if v is a crossing
+	 */
+	public boolean isCrossing(int v) {
+		return crossing != null && crossing[v];
+	}
+
+	/**
+	 * Marks a vertex as crossing.
+	 * @param v          vertex
+	 * @param isCrossing true, if v is a crossing
+	 */
+	public void setIsCrossing(int v, boolean isCrossing) {
+		if (crossing == null) {
+			if (!isCrossing) {
+				return;
+			}
+			crossing = new boolean[numberOfVertices];
+		}
+		crossing[v] = isCrossing;
+	}
+
+	/**
+	 * Returns the name of a vertex.
+	 * @param v vertex
+	 * @return  name
+	 */
+	public String getVertexName(int v) {
+		return names[v] != null ? names[v] : "x" + getVertexId(v);
+	}
+
+	/**
+	 * Sets the name of a vertex.
+	 * @param v    vertex
+	 * @param name new name (null for the default name)
+	 */
+	public void setVertexName(int v, String name) {
+		names[v] = (name == null || name.equals("x" + getVertexId(v))) ? null : name;
+	}
+
+	/**
+	 * Returns the x-position of a vertex.
+	 * @param v vertex
+	 * @return  x-position
+	 */
+	public int getX(int v) {
+		return x[v];
+	}
+
+	/**
+	 * Returns the y-position of a vertex.
+	 * @param v vertex
+	 * @return  y-position
+	 */
+	public int getY(int v) {
+		return y[v];
+	}
+
+	/**
+	 * Sets the position of a vertex.
+	 * @param v vertex
+	 * @param x new x-position
+	 * @param y new y-position
+	 */
+	public void setPosition(int v, int x, int y) {
+		this.x[v] = x;
+		this.y[v] = y;
+	}
+
+
+	/**
+	 * Returns the id of a vertex in the corresponding {@link Embedding}.
+	 * @param v vertex
+	 * @return  id
+	 */
+	public int getVertexId(int v) {
+		return vertexIds == null ? v+1 : vertexIds[v];
+	}
+
+	/**
+	 * Returns the id of a half-edge in the corresponding {@link Embedding}.
+	 * @param e half-edge
+	 * @return  id
+	 */
+	public int getEdgeId(int e) {
+		return edgeIds == null ? e+1 : edgeIds[e];
+	}
+
+	/**
+	 * Returns the id of a face in the corresponding {@link Embedding}.
+	 * @param f face
+	 * @return  id
+	 */
+	public int getFaceId(int f) {
+		return faceIds == null ? f+1 : faceIds[f];
+	}
+
+	/**
+	 * Returns the vertex with an id of the corresponding {@link Embedding}.
+	 * @param id id of a vertex
+	 * @return   vertex or NONE
+	 */
+	public int getVertexIndex(int id) {
+		return vertexIds == null ? (id >= 1 && id <= numberOfVertices ? id-1 : NONE) : Math.max(Arrays.binarySearch(vertexIds, id), NONE);
+	}
+
+	/**
+	 * Returns the half-edge with an id of the corresponding {@link Embedding}.
+	 * @param id id of a half-edge
+	 * @return   half-edge or NONE
+	 */
+	public int getEdgeIndex(int id) {
+		return edgeIds == null ? (id >= 1 && id <= numberOfEdges ? id-1 : NONE) : Math.max(Arrays.binarySearch(edgeIds, id), NONE);
+	}
+
+	/**
+	 * Returns the face with an id of the corresponding {@link Embedding}.
+	 * @param id id of a face
+	 * @return   face or NONE
+	 */
+	public int getFaceIndex(int id) {
+		return faceIds == null ? (id >= 1 && id <= numberOfFaces ? id-1 : NONE) : Math.max(Arrays.binarySearch(faceIds, id), NONE);
+	}
+
+
+
+	/**
+	 * Writes ints to a channel through a buffer.
+	 */
+	private static void putInts(WritableByteChannel channel, ByteBuffer buffer, int[] values) throws IOException {
+		for (int i=0; i<values.length; ) {
+			if (buffer.remaining() < 4) {
+				flush(channel, buffer);
+			}
+			int k = Math.min(values.length - i, buffer.remaining() / 4);
+			buffer.asIntBuffer().put(values, i, k);
+			buffer.position(buffer.position() + 4*k);
+			i += k;
+		}
+	}
+
+	/**
+	 * Writes the content of a buffer to a channel and clears the buffer.
+	 */
+	private static void flush(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Reads ints from a buffer with a bulk copy.
+	 */
+	private static int[] getInts(ByteBuffer buffer, int count) {
+		int[] values = new int[count];
+		buffer.asIntBuffer().get(values);
+		buffer.position(buffer.position() + 4*count);
+		return values;
+	}
+
+	/**
+	 * Returns the ids in increasing order.
+	 */
+	private static int[] sortedIds(Set<Integer> keys) {
+		int[] ids = new int[keys.size()];
+		int   i   = 0;
+		for (int id : keys) {
+			ids[i++] = id;
+		}
+		Arrays.sort(ids);
+		return ids;
+	}
+
+	/**
+	 * Returns the index of an id in sorted ids.
+	 */
+	private static int index(int[] ids, int id) {
+		if (id >= 1 && id <= ids.length && ids[id-1] == id) {
+			return id-1;
+		}
+		return Arrays.binarySearch(ids, id);
+	}
+
+	/**
+	 * Tests if sorted ids are 1, 2, ..., n.
+	 */
+	private static boolean isConsecutive(int[] ids) {
+		return ids.length == 0 || ids[ids.length-1] == ids.length && ids[0] == 1;
+	}
+}
@@ -6,7 +6,7 @@ package embedding;
  *
  */
 public class Constant {
-	// interval to print progress when calculating positions and labels of the drawnigs
+	// interval (units of work, usually edges) to report progress and to check for cancellation, see alg.progress.ProgressMonitor
 	public static final int DRAWING_PROGRESS = 500;
 	
 
@@ -0,0 +1,53 @@
+package embedding;
+
+/**
+ * Chain of edge parts that represents one (directed) edge of the not planarized graph.
+ * The parts are linked by {@link EmbeddingEdge#getEdgeAfterCrossing()} from the first part,
+ * which starts at the real source, to the last part, which ends at the real target.
+ * The twins of the parts form a chain of their own.
+ * <p>
+ * Chains are maintained by the {@link Embedding}, which assigns every edge part to its chain.
+ * @author tommy
+ *
+ */
+class EdgeChain {
+
+	private EmbeddingEdge first;	// part starting at the real source
+	private EmbeddingEdge last;		// part ending at the real target
+	private int           parts;	// number of parts, that is the number of crossings plus one
+	
+	
+	/**
+	 * Creates a new chain.
+	 * @param first first part
+	 * @param last  last part
+	 * @param parts number of parts
+	 */
+	EdgeChain(EmbeddingEdge first, EmbeddingEdge last, int parts) {
+		this.first = first;
+		this.last  = last;
+		this.parts = parts;
+	}
+	
+	
+	EmbeddingEdge getFirst() {
+		return first;
+	}
+	void setFirst(EmbeddingEdge first) {
+		this.first = first;
+	}
+	
+	EmbeddingEdge getLast() {
+		return last;
+	}
+	void setLast(EmbeddingEdge last) {
+		this.last = last;
+	}
+	
+	int getParts() {
+		return parts;
+	}
+	void setParts(int parts) {
+		this.parts = parts;
+	}
+}
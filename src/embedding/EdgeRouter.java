@@ -0,0 +1,249 @@
+package embedding;
+
+import java.util.Arrays;
+
+/**
+ * Inserts edges into an embedding with crossings: an edge is routed along a shortest path in the dual graph,
+ * from a face around its source to a face around its target, and every edge on the way is subdivided by a
+ * crossing vertex (see {@link Embedding#subdivideEdge(int, boolean)}). The parts of the new edge are linked
+ * as edges before and after the crossings, so {@link Embedding#getCrossingNumber()} counts the crossings.
+ * The path avoids the edges that have the source or the target as end vertex, so adjacent edges do not cross;
+ * only if every path would cross such an edge, the shortest of all paths is taken.
+ * <p>
+ * The dual graph is kept in primitive arrays in compressed sparse row form: the row of a face lists the ids of
+ * the half-edges on its boundary, and the face on the other side of half-edge h is <code>face[twin[h]]</code>.
+ * An insertion only changes the faces on its path, so only their rows (and the rows of the new faces) are
+ * appended again; the old rows are garbage and the arrays are compacted when more than half of them is garbage.
+ * Thus an insertion takes time linear in the size of the searched part of the dual graph and of the faces on
+ * the path, and the dual graph is never rebuilt.
+ * <p>
+ * The embedding must not be changed by others as long as the router is used.
+ * @author tommy
+ *
+ */
+public class EdgeRouter {
+
+	public static final int NONE = -1;
+
+	private final Embedding embedding;
+
+	// mirror of the half-edges, indexed by id
+	private int[] twin = new int[0];
+	private int[] face = new int[0];
+
+	// dual graph, indexed by face id: the row of face f is arcs[rowStart[f]] to arcs[rowStart[f]+rowLength[f]-1]
+	private int[] rowStart  = new int[0];
+	private int[] rowLength = new int[0];
+	private int[] arcs      = new int[16];
+	private int   arcCount  = 0;		// used entries of arcs
+	private int   liveArcs  = 0;		// entries of arcs that belong to a current row
+
+	// breadth-first search, indexed by face id; a face is visited (or a target) if its mark is the current round
+	private int[] visited = new int[0];
+	private int[] target  = new int[0];
+	private int[] parent  = new int[0];	// half-edge that is crossed to reach the face
+	private int[] queue   = new int[0];
+	private int   round   = 0;
+
+	private final RotationCursor rotation = new RotationCursor();
+	private final FaceCursor     boundary = new FaceCursor();
+
+
+	/**
+	 * Creates a router for an embedding; the dual graph is built once.
+	 * @param embedding an embedding, which is changed by the insertions
+	 */
+	public EdgeRouter(Embedding embedding) {
+		this.embedding = embedding;
+		for (EmbeddingFace f : embedding.getFaces().values()) {
+			writeRow(f);
+		}
+	}
+
+
+	/**
+	 * Returns the embedding.
+	 * @return the embedding
+	 */
+	public Embedding getEmbedding() {
+		return embedding;
+	}
+
+	/**
+	 * Inserts an edge with as few crossings as possible for the current embedding.
+	 * @param sourceId id of the source vertex
+	 * @param targetId id of the target vertex
+	 * @return         number of crossings of the new edge
+	 * @throws IllegalArgumentException if the vertices are equal or if they are not in the same component
+	 */
+	public int insertEdge(int sourceId, int targetId) throws IllegalArgumentException {
+		if (sourceId == targetId) {
+			throw new IllegalArgumentException("self-loops are not allowed: " + sourceId);
+		}
+		int found = search(sourceId, targetId, true);
+		if (found == NONE) {
+			found = search(sourceId, targetId, false);
+		}
+		if (found == NONE) {
+			throw new IllegalArgumentException("vertices " + sourceId + " and " + targetId + " are not in the same component");
+		}
+
+		// crossed half-edges from the target face back to a source face
+		int length = 0;
+		for (int f=found; parent[f] != NONE; f=face[parent[f]]) {
+			length++;
+		}
+		int[] crossed   = new int[length];
+		int[] pathFaces = new int[length + 1];
+		pathFaces[length] = found;
+		for (int i=length-1; i>=0; i--) {
+			crossed[i]   = parent[pathFaces[i+1]];
+			pathFaces[i] = face[crossed[i]];
+		}
+
+		// subdivide the crossed edges first, then insert the parts face by face
+		int[] crossings = new int[length];
+		for (int i=0; i<length; i++) {
+			crossings[i] = embedding.subdivideEdge(crossed[i], true).getId();
+		}
+		EmbeddingEdge[] parts = new EmbeddingEdge[length + 1];
+		int             from  = sourceId;
+		for (int i=0; i<=length; i++) {
+			int to   = i < length ? crossings[i] : targetId;
+			parts[i] = embedding.insertEdge(from, to, pathFaces[i], i == 0 ? NONE : parts[i-1].getId());
+			from     = to;
+		}
+
+		// every face on the path is split by one part: rewrite the rows of both sides
+		for (EmbeddingEdge part : parts) {
+			writeRow(part.getFace());
+			writeRow(part.getTwin().getFace());
+		}
+		return length;
+	}
+
+
+
+	/**
+	 * Searches the dual graph breadth-first from the faces around the source until a face around the target is reached.
+	 * @param avoidAdjacent if true, edges with the source or the target as (real) end vertex are not crossed
+	 * @return              the face around the target or NONE
+	 */
+	private int search(int sourceId, int targetId, boolean avoidAdjacent) {
+		if (++round == Integer.MAX_VALUE) {
+			Arrays.fill(visited, 0);
+			Arrays.fill(target, 0);
+			round = 1;
+		}
+		for (EmbeddingEdge e : rotation.reset(embedding.getVertex(targetId))) {
+			target[e.getFace().getId()] = round;
+		}
+		int head = 0;
+		int tail = 0;
+		for (EmbeddingEdge e : rotation.reset(embedding.getVertex(sourceId))) {
+			int f = e.getFace().getId();
+			if (visited[f] != round) {
+				visited[f]    = round;
+				parent[f]     = NONE;
+				queue[tail++] = f;
+			}
+		}
+		while (head < tail) {
+			int f = queue[head++];
+			if (target[f] == round) {
+				return f;
+			}
+			for (int k=rowStart[f]; k<rowStart[f]+rowLength[f]; k++) {
+				int h = arcs[k];
+				int g = face[twin[h]];
+				if (visited[g] != round && !(avoidAdjacent && isAdjacent(h, sourceId, targetId))) {
+					visited[g]    = round;
+					parent[g]     = h;
+					queue[tail++] = g;
+				}
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * Returns true, if the edge that contains the edge part h has the source or the target as end vertex.
+	 */
+	private boolean isAdjacent(int h, int sourceId, int targetId) {
+		int u = embedding.getRealSource(h);
+		int v = embedding.getRealTarget(h);
+		return u == sourceId || u == targetId || v == sourceId || v == targetId;
+	}
+
+	/**
+	 * Appends the row of a face, which replaces its old row, and updates the mirror of its half-edges.
+	 */
+	private void writeRow(EmbeddingFace f) {
+		int id = f.getId();
+		ensureFace(id);
+		liveArcs     -= rowLength[id];
+		rowStart[id]  = arcCount;
+		rowLength[id] = 0;
+		if (f.getIncidentEdge() == null) {
+			return;
+		}
+		for (EmbeddingEdge e : boundary.reset(f)) {
+			int h = e.getId();
+			ensureEdge(h);
+			twin[h] = e.getTwin().getId();
+			face[h] = id;
+			if (arcCount == arcs.length) {
+				arcs = Arrays.copyOf(arcs, 2*arcCount);
+			}
+			arcs[arcCount++] = h;
+			rowLength[id]++;
+		}
+		liveArcs += rowLength[id];
+		if (arcCount > 2*liveArcs + 1024) {
+			compact();
+		}
+	}
+
+	/**
+	 * Removes the old rows from the arcs.
+	 */
+	private void compact() {
+		int[] compacted = new int[Math.max(16, 2*liveArcs)];
+		int   count     = 0;
+		for (int f=0; f<rowStart.length; f++) {
+			System.arraycopy(arcs, rowStart[f], compacted, count, rowLength[f]);
+			rowStart[f] = count;
+			count      += rowLength[f];
+		}
+		arcs     = compacted;
+		arcCount = count;
+	}
+
+	/**
+	 * Enlarges the arrays of the half-edges so that they have room for the id.
+	 */
+	private void ensureEdge(int id) {
+		if (id < twin.length) {
+			return;
+		}
+		int length = Math.max(2*twin.length, id + 1);
+		twin = Arrays.copyOf(twin, length);
+		face = Arrays.copyOf(face, length);
+	}
+
+	/**
+	 * Enlarges the arrays of the faces so that they have room for the id.
+	 */
+	private void ensureFace(int id) {
+		if (id < rowStart.length) {
+			return;
+		}
+		int length = Math.max(2*rowStart.length, id + 1);
+		rowStart  = Arrays.copyOf(rowStart, length);
+		rowLength = Arrays.copyOf(rowLength, length);
+		visited   = Arrays.copyOf(visited, length);
+		target    = Arrays.copyOf(target, length);
+		parent    = Arrays.copyOf(parent, length);
+		queue     = Arrays.copyOf(queue, length);
+	}
+}
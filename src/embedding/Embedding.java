@@ -17,10 +17,21 @@ public class Embedding {
 	
 	// elements in this embedding
 	protected HashMap<Integer, EmbeddingVertex> vertices;
-	protected HashMap<String, Integer>          name2Vertex;
+	protected VertexLabels                      labels;
 	protected HashMap<Integer, EmbeddingEdge>   edges;
 	protected HashMap<Integer, EmbeddingFace>   faces;
 	
+	// undo log (null if changes are not recorded)
+	protected EmbeddingJournal journal = null;
+	
+	// chains of edge parts (whole edges) and number of crossings; only valid if chainsValid is true
+	protected boolean chainsValid = false;
+	protected int     chains      = 0;	// number of chains (both directions are counted)
+	protected int     crossings   = 0;
+	
+	// index of the vertices on each face (null if not built)
+	protected FaceIncidence faceIncidence = null;
+	
 	
 	/**
 	 * Creates a new <code>Embedding</code>. An embedding is a structure to safe the drawing of a graph.
@@ -28,7 +39,7 @@ public class Embedding {
 	 */
 	public Embedding() {
 		vertices    = new HashMap<Integer, EmbeddingVertex>();
-		name2Vertex = new HashMap<String, Integer>();
+		labels      = new VertexLabels(vertices);
 		edges       = new HashMap<Integer, EmbeddingEdge>();
 		faces       = new HashMap<Integer, EmbeddingFace>();
 	}
@@ -66,7 +77,7 @@ public class Embedding {
 	 * @return true, if this embedding has a vertex with <code>vertexName</code>
 	 */
 	public boolean hasVertexWithName(String vertexName) {
-		return name2Vertex.containsKey(vertexName);
+		return labels.getOwner(vertexName) != null;
 	}
 	/**
 	 * Returns the vertex with <code>vertexName</code>.
@@ -74,7 +85,7 @@ public class Embedding {
 	 * @return the id of the vertex
 	 */
 	public int getVertexIdByName(String vertexName) {
-		return name2Vertex.get(vertexName);
+		return labels.getOwner(vertexName);
 	}
 	/**
 	 * Returns the vertex with <code>vertexName</code>.
@@ -82,7 +93,7 @@ public class Embedding {
 	 * @return the vertex
 	 */
 	public EmbeddingVertex getVertexByName(String vertexName) {
-		int id = name2Vertex.get(vertexName);
+		int id = labels.getOwner(vertexName);
 		return vertices.get(id);
 	}
 	
@@ -142,6 +153,15 @@ public class Embedding {
 		return em;
 	}
 	
+	/**
+	 * Creates an immutable snapshot of this embedding that can be read by many threads at the same time
+	 * without synchronization. Later changes of this embedding do not affect the snapshot.
+	 * @return the snapshot
+	 */
+	public FrozenEmbedding freeze() {
+		return new FrozenEmbedding(this);
+	}
+	
 
 	/**
 	 * Returns all vertices in this embedding.
@@ -173,6 +193,10 @@ public class Embedding {
 	 */
 	public EmbeddingVertex createVertex(int id) {
 		EmbeddingVertex v = new EmbeddingVertex(id);
+		v.setLabels(labels);
+		if (journal != null) {
+			journal.recordVertexCreation(v, this.vertexId);
+		}
 		this.vertexId = Math.max(this.vertexId, id);
 		vertices.put(v.getId(), v);
 		setVertexName(v.getId(), v.getName());
@@ -183,8 +207,7 @@ public class Embedding {
 	 * @return the new vertex
 	 */
 	public EmbeddingVertex createVertex() {
-		vertexId++;
-		EmbeddingVertex v = this.createVertex(this.vertexId);
+		EmbeddingVertex v = this.createVertex(this.vertexId + 1);
 		return v;
 	}
 	
@@ -208,8 +231,13 @@ public class Embedding {
 	 */
 	public EmbeddingEdge createEdge(int id, EmbeddingVertex source, EmbeddingVertex target) {
 		EmbeddingEdge e = new EmbeddingEdge(id, source, target);
+		if (journal != null) {
+			journal.recordEdgeCreation(e, this.edgeId);
+		}
 		this.edgeId = Math.max(this.edgeId, id);
 		edges.put(e.getId(), e);
+		chainsValid   = false;
+		faceIncidence = null;
 		return e;
 	}
 	/**
@@ -225,14 +253,12 @@ public class Embedding {
 	 * @return	the new edge
 	 */
 	public EmbeddingEdge createEdge() {
-		edgeId++;
-		EmbeddingEdge e = this.createEdge(this.edgeId);
+		EmbeddingEdge e = this.createEdge(this.edgeId + 1);
 		return e;
 	}
 	
 	public EmbeddingEdge createEdge(EmbeddingVertex source, EmbeddingVertex target) {
-		edgeId++;
-		EmbeddingEdge e = this.createEdge(edgeId, source, target);
+		EmbeddingEdge e = this.createEdge(edgeId + 1, source, target);
 		e.setName("");
 		return e;
 	}
@@ -245,6 +271,9 @@ public class Embedding {
 	 */
 	public EmbeddingFace createFace(int id, EmbeddingEdge incidentEdge) {
 		EmbeddingFace f = new EmbeddingFace(id, incidentEdge);
+		if (journal != null) {
+			journal.recordFaceCreation(f, this.faceId);
+		}
 		this.faceId = Math.max(this.faceId, id);
 		faces.put(f.getId(), f);
 		return f;
@@ -262,8 +291,7 @@ public class Embedding {
 	 * @return	the new face
 	 */
 	public EmbeddingFace createFace() {
-		faceId++;
-		EmbeddingFace f = this.createFace(this.faceId);
+		EmbeddingFace f = this.createFace(this.faceId + 1);
 		return f;
 	}
 	
@@ -278,6 +306,10 @@ public class Embedding {
 		if (v == null) {
 			System.out.println("vertex is null");
 		}
+		record(v);
+		if (chainsValid && v.isCrossing() != isCrossing) {
+			crossings += isCrossing ? 1 : -1;
+		}
 		v.setIsCrossing(isCrossing);
 		if (outEdgeId != -1) {
 			v.setOutEdge(edges.get(outEdgeId));
@@ -298,6 +330,11 @@ public class Embedding {
 			int faceId, int twinId, int nextId, int previousId,
 			int edgeBeforeCrossingId, int edgeAfterCrossingId) {
 		EmbeddingEdge e = edges.get(id);
+		record(e);
+		chainsValid   = false;
+		faceIncidence = null;
+		invalidateDegree(e.getFace());
+		invalidateDegree(faces.get(faceId));
 		e.setSource(vertices.get(sourceId));
 		e.setTarget(vertices.get(targetId));
 		e.setFace(faces.get(faceId));
@@ -320,7 +357,9 @@ public class Embedding {
 	public void setFace(int id, int incidentEdgeId) {
 		EmbeddingFace f = faces.get(id);
 		if (incidentEdgeId != -1) {
+			record(f);
 			f.setIncidentEdge(edges.get(incidentEdgeId));
+			f.setDegree(EmbeddingFace.UNKNOWN_DEGREE);
 		}
 	}
 	
@@ -335,25 +374,48 @@ public class Embedding {
 	 * @return		 list of all incident (half)edges to the face
 	 */
 	public List<EmbeddingEdge> getIncidentEdgesToFace(int faceId) {
-		EmbeddingFace       face          = getFace(faceId);
 		List<EmbeddingEdge> incidentEdges = new LinkedList<EmbeddingEdge>();
-		
-		EmbeddingEdge edge = face.getIncidentEdge();
-		if (edge == null) {
-			return incidentEdges;
+		for (EmbeddingEdge e : new FaceCursor(getFace(faceId))) {
+			incidentEdges.add(e);
 		}
-		
-		int startId = edge.getId();
-		incidentEdges.add(edge);
-		edge = edge.getNext();
-		while(edge.getId() != startId) {
-			incidentEdges.add(edge);
-			edge = edge.getNext();
-		}
-		
 		return incidentEdges;
 	}
 	
+	/**
+	 * Writes the ids of all incident edges to the specified face into <code>buffer</code>,
+	 * in the same order as {@link #getIncidentEdgesToFace(int)}.
+	 * If the buffer is too small, only the first <code>buffer.length</code> ids are written.
+	 * @param faceId id of a face
+	 * @param buffer array for the edge ids
+	 * @return		 the degree of the face (number of ids that fit into a buffer of sufficient size)
+	 */
+	public int getIncidentEdgesToFace(int faceId, int[] buffer) {
+		int deg = 0;
+		EmbeddingEdge start = faces.get(faceId).getIncidentEdge();
+		if (start == null) {
+			return deg;
+		}
+		EmbeddingEdge e = start;
+		do {
+			if (deg < buffer.length) {
+				buffer[deg] = e.getId();
+			}
+			deg++;
+			e = e.getNext();
+		} while (e != start);
+		return deg;
+	}
+	
+	/**
+	 * Returns a cursor over the boundary of the specified face.
+	 * To traverse many faces without allocation, reuse one {@link FaceCursor} and reset it to every face.
+	 * @param faceId id of a face
+	 * @return		 cursor over the incident (half)edges to the face
+	 */
+	public FaceCursor getFaceCursor(int faceId) {
+		return new FaceCursor(faces.get(faceId));
+	}
+	
 	/**
 	 * Returns true, if this edge part is the only edge part of the corresponding edge.
 	 * In this case the edge is plane.
@@ -372,11 +434,7 @@ public class Embedding {
 	 */
 	public List<Integer> getWholeHalfEdge(int edgeId) {
 		List<Integer> wholeEdge = new LinkedList<Integer>();
-		EmbeddingEdge edge = edges.get(edgeId);
-		
-		while (edge.getEdgeBeforeCrossing() != null) {
-			edge = edge.getEdgeBeforeCrossing();
-		}
+		EmbeddingEdge edge = getFirstEdgePart(edges.get(edgeId));
 		
 		wholeEdge.add(edge.getId());
 		while (edge.getEdgeAfterCrossing() != null) {
@@ -387,6 +445,32 @@ public class Embedding {
 		return wholeEdge;
 	}
 	
+	/**
+	 * Writes the ids of the edge parts of the edge, to which the edge part with <code>edgeId</code> belongs,
+	 * into <code>buffer</code>, in the same order as {@link #getWholeHalfEdge(int)}.
+	 * If the buffer is too small, only the first <code>buffer.length</code> ids are written.
+	 * @param edgeId 	id of an edge part in the embedding
+	 * @param buffer	array for the edge ids
+	 * @return			number of edge parts (twins are not counted)
+	 */
+	public int getWholeHalfEdge(int edgeId, int[] buffer) {
+		int parts = 0;
+		for (EmbeddingEdge e = getFirstEdgePart(edges.get(edgeId)); e != null; e = e.getEdgeAfterCrossing()) {
+			if (parts < buffer.length) {
+				buffer[parts] = e.getId();
+			}
+			parts++;
+		}
+		return parts;
+	}
+	
+	/**
+	 * Returns the first part of the edge, to which <code>edge</code> belongs, that is the part starting at a real vertex.
+	 */
+	private EmbeddingEdge getFirstEdgePart(EmbeddingEdge edge) {
+		return getChain(edge).getFirst();
+	}
+	
 	/**
 	 * Returns the set of edges representing the edge in the not-planarized graph,
 	 * to which the given edge part with <code>edgeId</code> belongs.
@@ -395,11 +479,7 @@ public class Embedding {
 	 */
 	public List<Integer> getWholeEdge(int edgeId) {
 		List<Integer> wholeEdge = new LinkedList<Integer>();
-		EmbeddingEdge edge = edges.get(edgeId);
-		
-		while (edge.getEdgeBeforeCrossing() != null) {
-			edge = edge.getEdgeBeforeCrossing();
-		}
+		EmbeddingEdge edge = getFirstEdgePart(edges.get(edgeId));
 		
 		wholeEdge.add(edge.getId());
 		while (edge.getEdgeAfterCrossing() != null) {
@@ -413,12 +493,17 @@ public class Embedding {
 	
 	/**
 	 * Returns the degree of a face, that is the number of edges (vertices) on its boundary.
+	 * The boundary is walked only once; afterwards the degree is kept up to date by
+	 * {@link #insertEdge(int, int, int, int)} and {@link #subdivideEdge(int, boolean)}.
 	 * @param faceId 	id of the face
 	 * @return 			the degree of the face
 	 */
 	public int getFaceDegree(int faceId) {
-		int deg = 0;
 		EmbeddingFace f = faces.get(faceId);
+		if (f.getDegree() != EmbeddingFace.UNKNOWN_DEGREE) {
+			return f.getDegree();
+		}
+		int deg = 0;
 		EmbeddingEdge e = f.getIncidentEdge();
 		if (e == null) {
 			return deg;
@@ -429,6 +514,7 @@ public class Embedding {
 			e = e.getNext();
 		} while (e.getId() != startId);
 		
+		f.setDegree(deg);
 		return deg;
 	}
 	
@@ -454,14 +540,15 @@ public class Embedding {
 	}
 	
 	
+	/**
+	 * Returns the number of edges of the not planarized graph.
+	 * @return number of real edges
+	 */
 	public int getNumberOfRealEdges() {
-		int edges = 0;
-		for (EmbeddingVertex v : vertices.values()) {
-			if (!v.isCrossing()) {
-				edges += getVertexDegree(v.getId());
-			}
+		if (!chainsValid) {
+			buildChains();
 		}
-		return edges / 2;
+		return chains / 2;
 	}
 	
 	/**
@@ -471,23 +558,47 @@ public class Embedding {
 	 */
 	public List<EmbeddingEdge> getIncidentEdgesToVertex(int vertex) {
 		List<EmbeddingEdge> incidentEdges = new LinkedList<EmbeddingEdge>();
-		
-		EmbeddingEdge edge = vertices.get(vertex).getOutEdge();
-		if (edge == null) {
-			return incidentEdges;
+		for (EmbeddingEdge e : new RotationCursor(vertices.get(vertex))) {
+			incidentEdges.add(e);
 		}
-
-		int startId = edge.getId();
-		incidentEdges.add(edge);
-		edge = edge.getTwin().getNext();
-		while(edge.getId() != startId) {
-			incidentEdges.add(edge);
-			edge = edge.getTwin().getNext();
-		}
-		
 		return incidentEdges;
 	}
 	
+	/**
+	 * Writes the ids of the outgoing edges of the specified vertex into <code>buffer</code>,
+	 * in the same order as {@link #getIncidentEdgesToVertex(int)}.
+	 * If the buffer is too small, only the first <code>buffer.length</code> ids are written.
+	 * @param vertex	the vertex id
+	 * @param buffer	array for the edge ids
+	 * @return			the degree of the vertex (number of ids that fit into a buffer of sufficient size)
+	 */
+	public int getIncidentEdgesToVertex(int vertex, int[] buffer) {
+		int deg = 0;
+		EmbeddingEdge start = vertices.get(vertex).getOutEdge();
+		if (start == null) {
+			return deg;
+		}
+		EmbeddingEdge e = start;
+		do {
+			if (deg < buffer.length) {
+				buffer[deg] = e.getId();
+			}
+			deg++;
+			e = e.getTwin().getNext();
+		} while (e != start);
+		return deg;
+	}
+	
+	/**
+	 * Returns a cursor over the outgoing edges of the specified vertex in the cyclic order of the embedding.
+	 * To traverse many vertices without allocation, reuse one {@link RotationCursor} and reset it to every vertex.
+	 * @param vertex	the vertex id
+	 * @return			cursor over the outgoing edges
+	 */
+	public RotationCursor getRotationCursor(int vertex) {
+		return new RotationCursor(vertices.get(vertex));
+	}
+	
 	/**
 	 * Returns the incident edges to a given vertex including those that are separated by a crossing.
 	 * Returned are all edge parts including the twin edges.
@@ -496,24 +607,10 @@ public class Embedding {
 	 */
 	public List<Integer> getWholeIncidentEdgesToVertex(int vertex) {
 		List<Integer> incidentEdges = new LinkedList<Integer>();
-		
-		EmbeddingEdge edge = vertices.get(vertex).getOutEdge();
-		if (edge == null) {
-			return incidentEdges;
+		for (EmbeddingEdge edge : new RotationCursor(vertices.get(vertex))) {
+			addWholeHalfEdge(edge, incidentEdges);
+			addWholeHalfEdge(edge.getTwin(), incidentEdges);
 		}
-
-		int startId = edge.getId();
-		incidentEdges.addAll(getWholeHalfEdge(startId));
-		edge = edge.getTwin();
-		incidentEdges.addAll(getWholeHalfEdge(edge.getId()));
-		edge = edge.getNext();
-		while(edge.getId() != startId) {
-			incidentEdges.addAll(getWholeHalfEdge(edge.getId()));
-			edge = edge.getTwin();
-			incidentEdges.addAll(getWholeHalfEdge(edge.getId()));
-			edge = edge.getNext();
-		}
-		
 		return incidentEdges;
 	}
 	
@@ -524,31 +621,53 @@ public class Embedding {
 	 */
 	public List<EmbeddingFace> getIncidentFacesToVertex(int vertex) {
 		List<EmbeddingFace> incidentFaces = new LinkedList<EmbeddingFace>();
-		List<EmbeddingEdge> incidentEdges = getIncidentEdgesToVertex(vertex);
-		for (EmbeddingEdge e : incidentEdges) {
+		for (EmbeddingEdge e : new RotationCursor(vertices.get(vertex))) {
 			incidentFaces.add(e.getFace());
 		}
-				
 		return incidentFaces;
 	}
 	
+	/**
+	 * Writes the ids of the incident faces to a given vertex into <code>buffer</code>,
+	 * in the same order as {@link #getIncidentFacesToVertex(int)}.
+	 * If the buffer is too small, only the first <code>buffer.length</code> ids are written.
+	 * @param vertex	the vertex id
+	 * @param buffer	array for the face ids
+	 * @return			the degree of the vertex (number of ids that fit into a buffer of sufficient size)
+	 */
+	public int getIncidentFacesToVertex(int vertex, int[] buffer) {
+		int deg = 0;
+		EmbeddingEdge start = vertices.get(vertex).getOutEdge();
+		if (start == null) {
+			return deg;
+		}
+		EmbeddingEdge e = start;
+		do {
+			if (deg < buffer.length) {
+				buffer[deg] = e.getFace().getId();
+			}
+			deg++;
+			e = e.getTwin().getNext();
+		} while (e != start);
+		return deg;
+	}
+	
+	/**
+	 * Adds the ids of the parts of the edge, to which <code>edge</code> belongs, to a list (twins are not added).
+	 */
+	private void addWholeHalfEdge(EmbeddingEdge edge, List<Integer> list) {
+		for (EmbeddingEdge e = getFirstEdgePart(edge); e != null; e = e.getEdgeAfterCrossing()) {
+			list.add(e.getId());
+		}
+	}
+	
 	/**
 	 * Returns the number of crossings of a given edge (part).
 	 * @param e	the edge (part)
 	 * @return	the number of crossings
 	 */
 	public int getNumberOfCrossings(EmbeddingEdge e) {
-		int crossings = 0;
-		
-		while (e.getTarget().isCrossing()) {
-			e = e.getEdgeAfterCrossing();
-		}
-		while (e.getSource().isCrossing()) {
-			crossings++;
-			e = e.getEdgeBeforeCrossing();
-		}
-		
-		return crossings;
+		return getChain(e).getParts() - 1;
 	}
 	
 	/**
@@ -556,13 +675,10 @@ public class Embedding {
 	 * @return	the number of crossings
 	 */
 	public int getCrossingNumber() {
-		int cr = 0;
-		for (EmbeddingVertex v : vertices.values()) {
-			if (v.isCrossing()) {
-				cr++;
-			}
+		if (!chainsValid) {
+			buildChains();
 		}
-		return cr;
+		return crossings;
 	}
 	
 	
@@ -574,6 +690,8 @@ public class Embedding {
 	 * @return 				the new vertex
 	 */
 	public EmbeddingVertex subdivideEdge(int edgeId, boolean isCrossing) {
+		boolean         updateChains = chainsValid;
+		FaceIncidence   incidence    = faceIncidence;
 		EmbeddingEdge   edge         = edges.get(edgeId);
 		EmbeddingVertex source       = edge.getSource();
 		EmbeddingEdge   prev         = edge.getPrevious();
@@ -585,6 +703,20 @@ public class Embedding {
 		EmbeddingEdge twinAfterCrossing = twin.getEdgeAfterCrossing();
 		EmbeddingFace twinFace          = twin.getFace();
 		
+		record(edge);
+		record(twin);
+		record(prev);
+		record(twinNext);
+		record(source);
+		record(face);
+		record(twinFace);
+		if (source.isCrossing()) {
+			record(edgeBeforeCr);
+			record(twinAfterCrossing);
+		}
+		addToDegree(face, 1);
+		addToDegree(twinFace, 1);
+		
 		EmbeddingVertex newVertex   = this.createVertex();
 		EmbeddingEdge   newEdge     = this.createEdge();
 		EmbeddingEdge   newTwinEdge = this.createEdge();
@@ -626,6 +758,25 @@ public class Embedding {
 			edgeBeforeCr.setEdgeAfterCrossing(newEdge);
 			newTwinEdge.setEdgeAfterCrossing(twinAfterCrossing);
 			twinAfterCrossing.setEdgeBeforeCrossing(newTwinEdge);
+			if (!isCrossing) {
+				// the edge does not continue at the new vertex
+				edge.setEdgeBeforeCrossing(null);
+				twin.setEdgeAfterCrossing(null);
+			}
+		}
+		
+		if (updateChains) {
+			updateChains(newEdge, edge, isCrossing);
+			updateChains(twin, newTwinEdge, isCrossing);
+			if (isCrossing) {
+				crossings++;
+			}
+			chainsValid = true;
+		}
+		if (incidence != null) {
+			incidence.addCorners(newVertex.getId(), face.getId(), 1);
+			incidence.addCorners(newVertex.getId(), twinFace.getId(), 1);
+			faceIncidence = incidence;
 		}
 		
 		return newVertex;
@@ -635,6 +786,8 @@ public class Embedding {
 	 * Inserts an edge between source and target into the face with id <code>faceId</code>.
 	 * It is assumed that source, target and face are already present in the drawing.
 	 * It is taken care of all the pointers and the twin edge.
+	 * If the edge splits the face, the part containing the twin becomes a new face;
+	 * only this part is traversed, and the degrees of both faces are updated.
 	 * @param sourceId				the id of the source vertex of the new edge
 	 * @param targetId				the id of the target of the new edge
 	 * @param faceId				the id of the face to insert the edge into
@@ -655,6 +808,154 @@ public class Embedding {
 			switched = true;
 		}
 
+		if (target.getOutEdge() != null) {
+			// source and target are not null
+			return insertEdge(getCorner(source, face), getCorner(target, face), edgeBeforeCrossingId, switched);
+		}
+
+		FaceIncidence incidence = faceIncidence;
+		EmbeddingEdge edge      = createEdgePair(source, target, face, edgeBeforeCrossingId, switched);
+		EmbeddingEdge twin      = edge.getTwin();
+		edge.setNext(twin);
+		twin.setPrevious(edge);
+		target.setOutEdge(twin);
+		twin.setFace(face);
+		
+		if (source.getOutEdge() == null) {
+			face.setDegree(2);
+			source.setOutEdge(edge);
+			edge.setPrevious(twin);
+			twin.setNext(edge);
+		}
+		else {
+			// source has an outedge
+			addToDegree(face, 2);
+			EmbeddingEdge inEdgeFace  = getCorner(source, face);
+			EmbeddingEdge outEdgeFace = inEdgeFace.getNext();
+			record(outEdgeFace);
+			record(inEdgeFace);
+			
+			edge.setPrevious(inEdgeFace);
+			inEdgeFace.setNext(edge);
+			twin.setNext(outEdgeFace);
+			outEdgeFace.setPrevious(twin);
+		}
+		
+		if (incidence != null) {
+			incidence.addCorners(source.getId(), face.getId(), 1);
+			incidence.addCorners(target.getId(), face.getId(), 1);
+			faceIncidence = incidence;
+		}
+
+		return switched? twin : edge;
+	}
+	
+	/**
+	 * Inserts an edge into a face between two corners of the face. A corner is given by the edge (part)
+	 * on the boundary of the face that enters the vertex in front of the insertion point, see {@link #getCorner(int, int)}.
+	 * The new edge leaves the target of <code>sourceCorner</code> directly after <code>sourceCorner</code>
+	 * and enters the target of <code>targetCorner</code> directly before the successor of <code>targetCorner</code>.
+	 * Apart from the new face, which is traversed once to set its edges, this takes constant time.
+	 * @param sourceCorner			edge entering the source vertex of the new edge
+	 * @param targetCorner			edge entering the target vertex of the new edge, on the same face as <code>sourceCorner</code>
+	 * @param edgeBeforeCrossingId	the id of the edge before the crossing, in case there is such an edge; input a negativ value if there is no such edge.
+	 * @return 						the new edge
+	 * @throws IllegalArgumentException if the corners are not on the same face
+	 */
+	public EmbeddingEdge insertEdge(EmbeddingEdge sourceCorner, EmbeddingEdge targetCorner, int edgeBeforeCrossingId) throws IllegalArgumentException {
+		if (sourceCorner.getFace() != targetCorner.getFace()) {
+			throw new IllegalArgumentException("corners " + sourceCorner.getId() + " and " + targetCorner.getId() + " are not on the same face");
+		}
+		return insertEdge(sourceCorner, targetCorner, edgeBeforeCrossingId, false);
+	}
+	
+	/**
+	 * Returns the corner of a vertex in a face, that is the first edge (part) on the boundary of the face that enters the vertex,
+	 * in the rotation of the vertex starting at its out edge. The corner can be used to insert edges with
+	 * {@link #insertEdge(EmbeddingEdge, EmbeddingEdge, int)}. This takes time linear in the degree of the vertex.
+	 * @param vertexId	id of a vertex
+	 * @param faceId	id of a face
+	 * @return			the corner or null, if the vertex is not on the boundary of the face
+	 */
+	public EmbeddingEdge getCorner(int vertexId, int faceId) {
+		EmbeddingVertex v = vertices.get(vertexId);
+		if (v.getOutEdge() == null) {
+			return null;
+		}
+		return getCorner(v, faces.get(faceId));
+	}
+	
+	/**
+	 * Inserts an edge between the corners of a face, splitting the face into two faces.
+	 * @param switched true, if the twin of the new edge is returned
+	 */
+	private EmbeddingEdge insertEdge(EmbeddingEdge sourceCorner, EmbeddingEdge targetCorner, int edgeBeforeCrossingId, boolean switched) {
+		EmbeddingEdge sourceInEdge  = sourceCorner;
+		EmbeddingEdge sourceOutEdge = sourceInEdge.getNext();
+		EmbeddingEdge targetInEdge  = targetCorner;
+		EmbeddingEdge targetOutEdge = targetInEdge.getNext();
+		EmbeddingFace face          = sourceInEdge.getFace();
+		FaceIncidence incidence     = faceIncidence;
+		
+		EmbeddingEdge edge = createEdgePair(sourceInEdge.getTarget(), targetInEdge.getTarget(), face, edgeBeforeCrossingId, switched);
+		EmbeddingEdge twin = edge.getTwin();
+		
+		record(sourceOutEdge);
+		record(sourceInEdge);
+		record(targetOutEdge);
+		record(targetInEdge);
+
+		edge.setNext(targetOutEdge);
+		targetOutEdge.setPrevious(edge);
+		edge.setPrevious(sourceInEdge);
+		sourceInEdge.setNext(edge);
+
+		twin.setNext(sourceOutEdge);
+		sourceOutEdge.setPrevious(twin);
+		twin.setPrevious(targetInEdge);
+		targetInEdge.setNext(twin);
+		
+		// the side of twin becomes the new face; the degree of the old face follows from the size of the new face
+		EmbeddingFace newFace = createFace();
+		newFace.setIncidentEdge(twin);
+		twin.setFace(newFace);
+		
+		if (incidence != null) {
+			// the source gets a second corner; every corner on the side of twin moves to the new face
+			incidence.addCorners(edge.getSource().getId(), face.getId(), 1);
+			incidence.addCorners(twin.getSource().getId(), newFace.getId(), 1);
+		}
+		
+		int newDeg = 1;
+		EmbeddingEdge e = twin.getNext();
+		while (e != twin) {
+			record(e);
+			e.setFace(newFace);
+			if (incidence != null) {
+				incidence.addCorners(e.getSource().getId(), newFace.getId(), 1);
+				incidence.removeCorners(e.getSource().getId(), face.getId(), 1);
+			}
+			e = e.getNext();
+			newDeg++;
+		}
+		newFace.setDegree(newDeg);
+		addToDegree(face, 2 - newDeg);
+		faceIncidence = incidence;
+
+		return switched? twin : edge;
+	}
+	
+	/**
+	 * Creates a new edge from source to target and its twin, which are not yet linked to other edges.
+	 * The new edge is the incident edge of the face.
+	 * @param switched true, if the twin follows <code>edgeBeforeCrossingId</code> instead of the edge
+	 */
+	private EmbeddingEdge createEdgePair(EmbeddingVertex source, EmbeddingVertex target, EmbeddingFace face, int edgeBeforeCrossingId, boolean switched) {
+		boolean updateChains = chainsValid;
+		record(source);
+		record(target);
+		record(face);
+
 		EmbeddingEdge edge = createEdge();
 		edge.setSource(source);
 		edge.setTarget(target);
@@ -670,6 +971,8 @@ public class Embedding {
 		
 		if (edgeBeforeCrossingId > 0) {
 			EmbeddingEdge edgeBeforeCrossing = edges.get(edgeBeforeCrossingId);
+			record(edgeBeforeCrossing);
+			record(edgeBeforeCrossing.getTwin());
 			if (switched) {
 				twin.setEdgeBeforeCrossing(edgeBeforeCrossing);
 				edgeBeforeCrossing.setEdgeAfterCrossing(twin);
@@ -683,82 +986,160 @@ public class Embedding {
 				edgeBeforeCrossing.getTwin().setEdgeBeforeCrossing(twin);
 			}
 		}
-
-		if (target.getOutEdge() == null) {
-			edge.setNext(twin);
-			twin.setPrevious(edge);
-			target.setOutEdge(twin);
-			twin.setFace(face);
-			
-			if (source.getOutEdge() == null) {
-				source.setOutEdge(edge);
-				edge.setPrevious(twin);
-				twin.setNext(edge);
-			}
-			else {
-				// source has an outedge
-				List<EmbeddingEdge> outEdges = this.getIncidentEdgesToVertex(source.getId());
-				EmbeddingEdge outEdgeFace = null;
-				for (EmbeddingEdge e : outEdges) {
-					if (e.getFace().getId() == face.getId()) {
-						outEdgeFace = e;
-						break;
-					}
+		
+		if (updateChains) {
+			addToChain(edge);
+			addToChain(twin);
+			chainsValid = true;
+		}
+		
+		return edge;
+	}
+	
+	/**
+	 * Returns the chain of edge parts, to which an edge (part) belongs. The chains are built on first use.
+	 * @param e an edge (part)
+	 * @return  the chain
+	 */
+	private EdgeChain getChain(EmbeddingEdge e) {
+		if (!chainsValid) {
+			buildChains();
+		}
+		return e.getChain();
+	}
+	
+	/**
+	 * Assigns every edge part to its chain and counts the chains and crossings.
+	 */
+	private void buildChains() {
+		chains    = 0;
+		crossings = 0;
+		for (EmbeddingEdge e : edges.values()) {
+			if (e.getEdgeBeforeCrossing() == null) {
+				EdgeChain chain = new EdgeChain(e, e, 0);
+				for (EmbeddingEdge part = e; part != null; part = part.getEdgeAfterCrossing()) {
+					part.setChain(chain);
+					chain.setLast(part);
+					chain.setParts(chain.getParts() + 1);
 				}
-				EmbeddingEdge inEdgeFace = outEdgeFace.getPrevious();
-				
-				edge.setPrevious(inEdgeFace);
-				inEdgeFace.setNext(edge);
-				twin.setNext(outEdgeFace);
-				outEdgeFace.setPrevious(twin);
+				chains++;
 			}
 		}
+		for (EmbeddingVertex v : vertices.values()) {
+			if (v.isCrossing()) {
+				crossings++;
+			}
+		}
+		chainsValid = true;
+	}
+	
+	/**
+	 * Adds a new edge part to the chain of the part before or after it, or creates a chain for the part.
+	 */
+	private void addToChain(EmbeddingEdge e) {
+		EdgeChain chain;
+		if (e.getEdgeBeforeCrossing() != null) {
+			chain = e.getEdgeBeforeCrossing().getChain();
+			chain.setLast(e);
+		}
+		else if (e.getEdgeAfterCrossing() != null) {
+			chain = e.getEdgeAfterCrossing().getChain();
+			chain.setFirst(e);
+		}
 		else {
-			// source and target are not null
-			EmbeddingFace newFace = createFace();
-			newFace.setIncidentEdge(twin);
-			twin.setFace(newFace);
-
-			List<EmbeddingEdge> outEdges = this.getIncidentEdgesToVertex(source.getId());
-			EmbeddingEdge sourceOutEdge = null;
-			for (EmbeddingEdge e : outEdges) {
-				if (e.getFace().getId() == face.getId()) {
-					sourceOutEdge = e;
-					break;
+			chain = new EdgeChain(e, e, 0);
+			chains++;
+		}
+		chain.setParts(chain.getParts() + 1);
+		e.setChain(chain);
+	}
+	
+	/**
+	 * Updates the chain of an edge part that was subdivided into <code>first</code> and <code>second</code>,
+	 * where exactly one of them is new and has no chain yet.
+	 * If the new vertex is a crossing, the new part is added to the chain;
+	 * otherwise the chain is split at the new vertex and the parts of the new chain up to <code>first</code>
+	 * (or from <code>second</code> on) are assigned to it.
+	 */
+	private void updateChains(EmbeddingEdge first, EmbeddingEdge second, boolean isCrossing) {
+		boolean   firstIsNew = first.getChain() == null;
+		EdgeChain chain      = firstIsNew ? second.getChain() : first.getChain();
+		
+		if (isCrossing) {
+			if (firstIsNew) {
+				first.setChain(chain);
+				if (chain.getFirst() == second) {
+					chain.setFirst(first);
 				}
 			}
-			EmbeddingEdge sourceInEdge = sourceOutEdge.getPrevious();
-					
-
-			outEdges = this.getIncidentEdgesToVertex(target.getId());
-			EmbeddingEdge targetOutEdge = null;
-			for (EmbeddingEdge e : outEdges) {
-				if (e.getFace().getId() == face.getId()) {
-					targetOutEdge = e;
-					break;
+			else {
+				second.setChain(chain);
+				if (chain.getLast() == first) {
+					chain.setLast(second);
 				}
 			}
-			EmbeddingEdge targetInEdge = targetOutEdge.getPrevious();
-
-			edge.setNext(targetOutEdge);
-			targetOutEdge.setPrevious(edge);
-			edge.setPrevious(sourceInEdge);
-			sourceInEdge.setNext(edge);
-
-			twin.setNext(sourceOutEdge);
-			sourceOutEdge.setPrevious(twin);
-			twin.setPrevious(targetInEdge);
-			targetInEdge.setNext(twin);
-			
-			// update edges incident to new face
-			EmbeddingEdge e = twin.getNext();
-			while (e.getId() != twin.getId()) {
-				e.setFace(newFace);
-				e = e.getNext();
+			chain.setParts(chain.getParts() + 1);
+			return;
+		}
+		
+		int       parts    = 0;
+		EdgeChain newChain;
+		if (firstIsNew) {
+			newChain = new EdgeChain(first, first, 0);
+			for (EmbeddingEdge part = first; part != null; part = part.getEdgeBeforeCrossing()) {
+				part.setChain(newChain);
+				newChain.setFirst(part);
+				parts++;
 			}
+			chain.setFirst(second);
 		}
-
-		return switched? twin : edge;
+		else {
+			newChain = new EdgeChain(second, second, 0);
+			for (EmbeddingEdge part = second; part != null; part = part.getEdgeAfterCrossing()) {
+				part.setChain(newChain);
+				newChain.setLast(part);
+				parts++;
+			}
+			chain.setLast(first);
+		}
+		newChain.setParts(parts);
+		chain.setParts(chain.getParts() + 1 - parts);
+		chains++;
+	}
+	
+	/**
+	 * Adds <code>delta</code> to the degree of a face, if the degree is known.
+	 */
+	private void addToDegree(EmbeddingFace f, int delta) {
+		if (f.getDegree() != EmbeddingFace.UNKNOWN_DEGREE) {
+			f.setDegree(f.getDegree() + delta);
+		}
+	}
+	
+	/**
+	 * Forgets the degree of a face (after its boundary was set from outside).
+	 */
+	private void invalidateDegree(EmbeddingFace f) {
+		if (f != null && f.getDegree() != EmbeddingFace.UNKNOWN_DEGREE) {
+			record(f);
+			f.setDegree(EmbeddingFace.UNKNOWN_DEGREE);
+		}
+	}
+	
+	/**
+	 * Returns the edge entering <code>v</code> in front of its first outgoing edge in the rotation that lies on the boundary of <code>face</code>.
+	 * @return the corner or null, if <code>v</code> is not on the boundary of <code>face</code>
+	 */
+	private EmbeddingEdge getCorner(EmbeddingVertex v, EmbeddingFace face) {
+		EmbeddingEdge start = v.getOutEdge();
+		EmbeddingEdge e     = start;
+		do {
+			if (e.getFace() == face) {
+				return e.getPrevious();
+			}
+			e = e.getTwin().getNext();
+		} while (e != start);
+		return null;
 	}
 	
 	
@@ -770,13 +1151,50 @@ public class Embedding {
 	 * @return			true or false
 	 */
 	public boolean hasFaceVertex(int faceId, int vertexId) {
-		for (EmbeddingEdge e : getIncidentEdgesToFace(faceId)) {
-			if (e.getSource().getId() == vertexId) {
+		EmbeddingFace   face   = faces.get(faceId);
+		EmbeddingVertex vertex = vertices.get(vertexId);
+		EmbeddingEdge   first  = face.getIncidentEdge();
+		EmbeddingEdge   out    = vertex.getOutEdge();
+		if (first == null || out == null) {
+			return false;
+		}
+		
+		// walk the boundary of the face and the rotation of the vertex alternately and stop at the end of the shorter one
+		EmbeddingEdge boundary = first;
+		EmbeddingEdge rotation = out;
+		do {
+			if (boundary.getSource() == vertex || rotation.getFace() == face) {
 				return true;
 			}
-		}
+			boundary = boundary.getNext();
+			rotation = rotation.getTwin().getNext();
+		} while (boundary != first && rotation != out);
 		return false;
-		
+	}
+	
+	/**
+	 * Returns the index of the vertices on each face, which answers if two vertices lie on a common face
+	 * in constant expected time. The index is built on first use and kept up to date by {@link #insertEdge(int, int, int, int)},
+	 * {@link #insertEdge(EmbeddingEdge, EmbeddingEdge, int)} and {@link #subdivideEdge(int, boolean)};
+	 * other changes discard it.
+	 * @return the index
+	 */
+	public FaceIncidence getFaceIncidence() {
+		if (faceIncidence == null) {
+			faceIncidence = new FaceIncidence(this);
+		}
+		return faceIncidence;
+	}
+	
+	/**
+	 * Returns true, if and only if the vertices with ids <code>u</code> and <code>v</code>
+	 * lie on the boundary of a common face, see {@link #getFaceIncidence()}.
+	 * @param u	id of a vertex
+	 * @param v	id of a vertex
+	 * @return	true or false
+	 */
+	public boolean haveCommonFace(int u, int v) {
+		return getFaceIncidence().haveCommonFace(u, v);
 	}
 	
 	/**
@@ -786,14 +1204,7 @@ public class Embedding {
 	 * @return			id of the real source
 	 */
 	public int getRealSource(int edgeId) {
-		EmbeddingEdge edge = edges.get(edgeId);
-		EmbeddingVertex source = edge.getSource();
-		while (source.isCrossing()) {
-			edge = edge.getEdgeBeforeCrossing();
-			source = edge.getSource();
-		}
-		// source is not a crossing
-		return source.getId();
+		return getChain(edges.get(edgeId)).getFirst().getSource().getId();
 	}
 	
 	/**
@@ -803,14 +1214,7 @@ public class Embedding {
 	 * @return			id of the real target
 	 */
 	public int getRealTarget(int edgeId) {
-		EmbeddingEdge edge = edges.get(edgeId);
-		EmbeddingVertex target = edge.getTarget();
-		while (target.isCrossing()) {
-			edge = edge.getEdgeAfterCrossing();
-			target = edge.getTarget();
-		}
-		// target is not a crossing
-		return target.getId();
+		return getChain(edges.get(edgeId)).getLast().getTarget().getId();
 	}
 
 	
@@ -823,25 +1227,20 @@ public class Embedding {
 	 * @return 				true or false
 	 */
 	public boolean hasCrossing(int edgeId, int crossingId) {
-		EmbeddingEdge   e = edges.get(edgeId);
-
-		EmbeddingVertex source = e.getSource();
-		while (source.isCrossing()) {
-			e = e.getEdgeBeforeCrossing();
-			source = e.getSource();
+		EmbeddingEdge   e        = edges.get(edgeId);
+		EmbeddingVertex crossing = vertices.get(crossingId);
+		if (crossing == null || !crossing.isCrossing()) {
+			return false;
 		}
-		// source is not a crossing
 		
-		EmbeddingVertex target = e.getTarget();
-		while (target.isCrossing()) {
-			if (target.getId() == crossingId) {
+		// the whole edge passes the crossing, if one of the edges at the crossing belongs to it
+		EdgeChain chain     = getChain(e);
+		EdgeChain twinChain = getChain(e.getTwin());
+		for (EmbeddingEdge out : new RotationCursor(crossing)) {
+			if (out.getChain() == chain || out.getChain() == twinChain) {
 				return true;
 			}
-			e = e.getEdgeAfterCrossing();
-			target = e.getTarget();
-			
 		}
-		
 		return false;
 	}
 	
@@ -865,9 +1264,12 @@ public class Embedding {
 	 */
 	public void setVertexName(int vertexId, String vertexName) {
 		EmbeddingVertex v = getVertex(vertexId);
-		name2Vertex.remove(v.getName());
+		if (journal != null) {
+			journal.recordVertexName(v, vertexName);
+		}
+		labels.unbind(v);
 		v.setName(vertexName);
-		name2Vertex.put(vertexName, v.getId());
+		labels.bind(v);
 	}
 	
 	/**
@@ -883,43 +1285,28 @@ public class Embedding {
 	 * Exchanges the two bipartite sets with each other.
 	 */
 	public void switchNames() {
-		String TEMP_NAME = "temp";
-		List<Integer> set1 = new LinkedList<Integer>();
-		int i=1;
-		while (hasVertexWithName(Embedding.SET1_LETTER + i)) {
-			int vId = getVertexIdByName(Embedding.SET1_LETTER + i);
-			setVertexName(vId, TEMP_NAME + i);
-			set1.add(vId);
-			i++;
-		}
-
-		i = 1;
-		while (hasVertexWithName(Embedding.SET2_LETTER + i)) {
-			int vId = getVertexIdByName(Embedding.SET2_LETTER + i);
-			setVertexName(vId, SET1_LETTER + i);
-			i++;
-		}
-		
-		for (i=0; i<set1.size(); i++) {
-			setVertexName(set1.get(i), SET2_LETTER + (i+1));
+		if (journal != null) {
+			journal.recordSwitchNames();
 		}
+		labels.switchSets();
 	}
 	
-
-	
+	/**
+	 * Returns the bipartite set of the vertex with id <code>vertexId</code>, that is the set
+	 * given by the first letter of its name ({@link #SET1_LETTER} or {@link #SET2_LETTER}, followed by an index).
+	 * @param vertexId	id of a vertex
+	 * @return			1 or 2, or 0 if the vertex is in neither set
+	 */
+	public int getVertexSet(int vertexId) {
+		return labels.getSet(vertices.get(vertexId));
+	}
 	
 	/**
 	 * Calculate the first bipartite set of this embedding.
 	 * @return	list of vertices in the first bipartite set
 	 */
 	public List<Integer> getVertexSet1() {
-		List<Integer> set1 = new LinkedList<Integer>();
-		int i=1;		
-		while (hasVertexWithName(Embedding.SET1_LETTER + i)) {
-			set1.add(getVertexIdByName(Embedding.SET1_LETTER + i));
-			i++;
-		}
-		return set1;
+		return labels.getSetVertices(1);
 	}
 
 	/**
@@ -927,13 +1314,7 @@ public class Embedding {
 	 * @return	list of vertices in the second bipartite set
 	 */
 	public List<Integer> getVertexSet2() {
-		List<Integer> set2 = new LinkedList<Integer>();
-		int i=1;
-		while (hasVertexWithName(Embedding.SET2_LETTER + i)) {
-			set2.add(getVertexIdByName(Embedding.SET2_LETTER + i));
-			i++;
-		}
-		return set2;
+		return labels.getSetVertices(2);
 	}
 	
 
@@ -951,9 +1332,9 @@ public class Embedding {
 			EmbeddingEdge e = getEdge(id);
 			if (e.getTarget().isCrossing()) {
 				EmbeddingEdge crEdge = e.getNext();
-				crossingEdges.addAll(getWholeHalfEdge(crEdge.getId()));
+				addWholeHalfEdge(crEdge, crossingEdges);
 				crEdge = crEdge.getTwin();
-				crossingEdges.addAll(getWholeHalfEdge(crEdge.getId()));
+				addWholeHalfEdge(crEdge, crossingEdges);
 			}
 		}
 		
@@ -1020,4 +1401,75 @@ public class Embedding {
 		return getRealSource(edgeId) == vertexId || getRealTarget(edgeId) == vertexId;
 	}
 	
+	
+	
+	/**
+	 * Starts recording the changes of this embedding, so that they can be undone by {@link #rollback(int)}.
+	 * If the changes are already recorded, the recording simply goes on.
+	 * @return checkpoint that marks the current state
+	 */
+	public int startJournal() {
+		if (journal == null) {
+			journal = new EmbeddingJournal(this);
+		}
+		return journal.getCheckpoint();
+	}
+	
+	/**
+	 * Undoes all changes since the checkpoint. Afterwards, the changes are still recorded.
+	 * Elements created after the checkpoint must not be used any more.
+	 * @param checkpoint a checkpoint returned by {@link #startJournal()}
+	 */
+	public void rollback(int checkpoint) {
+		if (journal == null) {
+			throw new IllegalStateException("changes are not recorded");
+		}
+		journal.rollback(checkpoint);
+		chainsValid   = false;
+		faceIncidence = null;
+	}
+	
+	/**
+	 * Stops recording changes and discards the recorded changes.
+	 */
+	public void stopJournal() {
+		journal = null;
+	}
+	
+	/**
+	 * Returns if the changes of this embedding are recorded.
+	 * @return true, if the changes can be undone
+	 */
+	public boolean isJournalActive() {
+		return journal != null;
+	}
+	
+	/**
+	 * Records the state of a vertex in the journal, if any.
+	 * @param v a vertex
+	 */
+	private void record(EmbeddingVertex v) {
+		if (journal != null && v != null) {
+			journal.recordVertex(v);
+		}
+	}
+	/**
+	 * Records the state of an edge in the journal, if any.
+	 * @param e an edge
+	 */
+	private void record(EmbeddingEdge e) {
+		if (journal != null && e != null) {
+			journal.recordEdge(e);
+		}
+	}
+	/**
+	 * Records the state of a face in the journal, if any.
+	 * @param f a face
+	 */
+	private void record(EmbeddingFace f) {
+		if (journal != null && f != null) {
+			journal.recordFace(f);
+		}
+	}
+	
 }
@@ -18,10 +18,12 @@ public class EmbeddingEdge {
 	 
 	 private EmbeddingEdge edgeBeforCrossing; // edge(part) before the source, if the source is a crossing
 	 private EmbeddingEdge edgeAfterCrossing; // edge(part) after the target, if the target is a crossing
+	 private EdgeChain     chain;             // whole edge this part belongs to, maintained by the embedding
 
 	 // drawing
-	 private String  name;           // name of this edge
+	 private String  name;           // name of this edge (null for the id or the name of nameVertex)
 	 private String  mappedName;     // name of the edge this edge is mapped to (if any)
+	 private EmbeddingVertex nameVertex; // vertex whose names are the names of this edge (if any)
 	 private boolean toDraw = false; // show this edge? (either this edge or its twin should be drawn)
 
 	 /**
@@ -34,8 +36,8 @@ public class EmbeddingEdge {
 		 this.id = id;
 		 this.source = source;
 		 this.target = target;
-		 this.name   = id + "";
-		 this.mappedName  = name;
+		 this.name   = null;
+		 this.mappedName  = null;
 	 }
 	 
 	 /**
@@ -58,14 +60,29 @@ public class EmbeddingEdge {
 	  * @param name the new name
 	  */
 	 public void setName(String name) {
-		 this.name = name;
+		 this.name       = name;
+		 this.nameVertex = null;
 	 }
 	 /**
-	  * Returns the name of this edge.
+	  * Returns the name of this edge. Unless a name was set, this is the id.
 	  * @return the name of this edge
 	  */
 	 public String getName() {
-		return name;
+		 if (nameVertex != null) {
+			 return nameVertex.getName();
+		 }
+		return name != null ? name : String.valueOf(id);
+	 }
+	 
+	 /**
+	  * Names this edge after a vertex: the name and the mapped name of this edge are those of the vertex,
+	  * also when the vertex is renamed later.
+	  * @param v a vertex
+	  */
+	 public void setNameVertex(EmbeddingVertex v) {
+		 this.name       = null;
+		 this.mappedName = null;
+		 this.nameVertex = v;
 	 }
 	 
 	 /**
@@ -77,11 +94,14 @@ public class EmbeddingEdge {
 		 this.mappedName = mappedName;
 	 }
 	 /**
-	  * Returns the mapped name of this edge.
+	  * Returns the mapped name of this edge. Unless a mapped name was set, this is the id.
 	  * @return mapped name
 	  */
 	 public String getMappedName() {
-		return mappedName;
+		 if (mappedName != null) {
+			 return mappedName;
+		 }
+		return nameVertex != null ? nameVertex.getMappedName() : String.valueOf(id);
 	 }
 	 
 	 /**
@@ -226,6 +246,21 @@ public class EmbeddingEdge {
 		 this.toDraw = toDraw;
 	 }
 	 
+	 /**
+	  * Sets the chain of edge parts this edge belongs to.
+	  * @param chain the chain
+	  */
+	 void setChain(EdgeChain chain) {
+		 this.chain = chain;
+	 }
+	 /**
+	  * Returns the chain of edge parts this edge belongs to, as last assigned by the embedding.
+	  * @return the chain
+	  */
+	 EdgeChain getChain() {
+		 return this.chain;
+	 }
+	 
 	 @Override
 	 public String toString() {
 		 return "(" + this.source.getName() + "," + this.target.getName() + ")";
@@ -7,8 +7,11 @@ package embedding;
  */
 public class EmbeddingFace {
 
+	public static final int UNKNOWN_DEGREE = -1;
+	
 	private int id;				// id of the face
 	private EmbeddingEdge incidentEdge;	// an edge (part) on the boundary of this face
+	private int degree = UNKNOWN_DEGREE;	// number of edges on the boundary, maintained by the embedding
 	
 	/**
 	 * Creates a new <code>Face</code>.
@@ -57,4 +60,20 @@ public class EmbeddingFace {
 	public EmbeddingEdge getIncidentEdge() {
 		return this.incidentEdge;
 	}
+	
+	/**
+	 * Sets the number of edges on the boundary of this face, as maintained by the embedding.
+	 * @param degree degree of the face or {@link #UNKNOWN_DEGREE}
+	 */
+	void setDegree(int degree) {
+		this.degree = degree;
+	}
+	/**
+	 * Returns the number of edges on the boundary of this face, as maintained by the embedding.
+	 * Use {@link Embedding#getFaceDegree(int)} to get the degree in any case.
+	 * @return degree of the face or {@link #UNKNOWN_DEGREE}, if the degree is not known
+	 */
+	int getDegree() {
+		return this.degree;
+	}
 }
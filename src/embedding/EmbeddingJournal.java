@@ -0,0 +1,234 @@
+package embedding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Undo log of an {@link Embedding}. While the journal of an embedding is active, the embedding records the
+ * previous state of every element before it is changed by one of its methods, so all changes since a
+ * checkpoint can be undone. This is cheaper than a copy if only a part of the embedding is changed,
+ * for example by a triangulation that is only needed to calculate positions.
+ * <p>
+ * Recorded are the creation of elements, the links of vertices, edges and faces and the names of vertices.
+ * Positions, colors, labels and edge names are not recorded, neither are changes made directly to the elements.
+ * @author tommy
+ *
+ */
+class EmbeddingJournal {
+
+	private final Embedding   embedding;
+	private final List<Entry> entries = new ArrayList<Entry>();
+
+
+	/**
+	 * Creates a new journal for an embedding.
+	 * @param embedding the embedding
+	 */
+	EmbeddingJournal(Embedding embedding) {
+		this.embedding = embedding;
+	}
+
+
+	/**
+	 * Returns the current position in this journal.
+	 * @return checkpoint
+	 */
+	int getCheckpoint() {
+		return entries.size();
+	}
+
+	/**
+	 * Undoes all changes since a checkpoint in reversed order.
+	 * @param checkpoint position in this journal
+	 */
+	void rollback(int checkpoint) {
+		for (int i=entries.size()-1; i>=checkpoint; i--) {
+			entries.remove(i).undo();
+		}
+	}
+
+
+	/**
+	 * Records the state of a vertex before it is changed.
+	 * @param v a vertex
+	 */
+	void recordVertex(EmbeddingVertex v) {
+		final EmbeddingVertex vertex     = v;
+		final EmbeddingEdge   outEdge    = v.getOutEdge();
+		final boolean         isCrossing = v.isCrossing();
+		entries.add(new Entry() {
+			@Override
+			void undo() {
+				vertex.setOutEdge(outEdge);
+				vertex.setIsCrossing(isCrossing);
+			}
+		});
+	}
+
+	/**
+	 * Records the state of an edge before it is changed.
+	 * @param e an edge
+	 */
+	void recordEdge(EmbeddingEdge e) {
+		entries.add(new EdgeState(e));
+	}
+
+	/**
+	 * Records the state of a face before it is changed.
+	 * @param f a face
+	 */
+	void recordFace(EmbeddingFace f) {
+		final EmbeddingFace face         = f;
+		final EmbeddingEdge incidentEdge = f.getIncidentEdge();
+		final int           degree       = f.getDegree();
+		entries.add(new Entry() {
+			@Override
+			void undo() {
+				face.setIncidentEdge(incidentEdge);
+				face.setDegree(degree);
+			}
+		});
+	}
+
+	/**
+	 * Records the name of a vertex before it is changed to <code>newName</code>.
+	 * @param v       a vertex
+	 * @param newName the new name
+	 */
+	void recordVertexName(EmbeddingVertex v, String newName) {
+		final EmbeddingVertex vertex       = v;
+		final String          oldName      = v.getName();
+		final EmbeddingVertex oldNameOwner = embedding.labels.peekOwner(oldName);
+		final EmbeddingVertex newNameOwner = embedding.labels.peekOwner(newName);
+		entries.add(new Entry() {
+			@Override
+			void undo() {
+				embedding.labels.unbind(vertex);
+				vertex.setName(oldName);
+				restore(oldNameOwner);
+				restore(newNameOwner);
+			}
+		});
+	}
+	
+	/**
+	 * Records that the bipartite sets are exchanged.
+	 */
+	void recordSwitchNames() {
+		entries.add(new Entry() {
+			@Override
+			void undo() {
+				embedding.labels.switchSets();
+			}
+		});
+	}
+
+	/**
+	 * Records that a vertex was created.
+	 * @param v             the new vertex
+	 * @param previousCount value of the id counter before the creation
+	 */
+	void recordVertexCreation(EmbeddingVertex v, int previousCount) {
+		final int id    = v.getId();
+		final int count = previousCount;
+		entries.add(new Entry() {
+			@Override
+			void undo() {
+				embedding.vertices.remove(id);
+				embedding.vertexId = count;
+			}
+		});
+	}
+
+	/**
+	 * Records that an edge was created.
+	 * @param e             the new edge
+	 * @param previousCount value of the id counter before the creation
+	 */
+	void recordEdgeCreation(EmbeddingEdge e, int previousCount) {
+		final int id    = e.getId();
+		final int count = previousCount;
+		entries.add(new Entry() {
+			@Override
+			void undo() {
+				embedding.edges.remove(id);
+				embedding.edgeId = count;
+			}
+		});
+	}
+
+	/**
+	 * Records that a face was created.
+	 * @param f             the new face
+	 * @param previousCount value of the id counter before the creation
+	 */
+	void recordFaceCreation(EmbeddingFace f, int previousCount) {
+		final int id    = f.getId();
+		final int count = previousCount;
+		entries.add(new Entry() {
+			@Override
+			void undo() {
+				embedding.faces.remove(id);
+				embedding.faceId = count;
+			}
+		});
+	}
+
+
+	/**
+	 * Gives a name back to the vertex that owned it before.
+	 */
+	private void restore(EmbeddingVertex owner) {
+		if (owner != null) {
+			embedding.labels.bind(owner);
+		}
+	}
+
+
+	/**
+	 * A change that can be undone.
+	 */
+	private static abstract class Entry {
+		abstract void undo();
+	}
+
+	/**
+	 * State of all links of an edge.
+	 */
+	private static final class EdgeState extends Entry {
+
+		private final EmbeddingEdge   edge;
+		private final EmbeddingVertex source;
+		private final EmbeddingVertex target;
+		private final EmbeddingEdge   twin;
+		private final EmbeddingFace   face;
+		private final EmbeddingEdge   next;
+		private final EmbeddingEdge   previous;
+		private final EmbeddingEdge   edgeBeforeCrossing;
+		private final EmbeddingEdge   edgeAfterCrossing;
+
+		EdgeState(EmbeddingEdge e) {
+			edge               = e;
+			source             = e.getSource();
+			target             = e.getTarget();
+			twin               = e.getTwin();
+			face               = e.getFace();
+			next               = e.getNext();
+			previous           = e.getPrevious();
+			edgeBeforeCrossing = e.getEdgeBeforeCrossing();
+			edgeAfterCrossing  = e.getEdgeAfterCrossing();
+		}
+
+		@Override
+		void undo() {
+			edge.setSource(source);
+			edge.setTarget(target);
+			edge.setTwin(twin);
+			edge.setFace(face);
+			edge.setNext(next);
+			edge.setPrevious(previous);
+			edge.setEdgeBeforeCrossing(edgeBeforeCrossing);
+			edge.setEdgeAfterCrossing(edgeAfterCrossing);
+		}
+	}
+}
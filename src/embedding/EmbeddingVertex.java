@@ -10,7 +10,10 @@ import java.awt.Color;
 public class EmbeddingVertex {
 
 	private int     id;					// id of the vertex
-	private String  name;				// name of the vertex
+	private String  name;				// name of the vertex, if it is of kind OTHER
+	private byte    nameKind;			// kind of the name, see VertexLabels
+	private int     nameNumber;			// number in the name, if the name is generated
+	private VertexLabels labels;		// names of the embedding, null if this vertex does not belong to one
 	private boolean isCrossing = false;	// true, if this vertex is a crossing
 	private EmbeddingEdge    outEdge;			// an out-edge of this vertex
 	
@@ -19,7 +22,7 @@ public class EmbeddingVertex {
 	private int       y;				// y-position, de Fraysseix, Pach & Pollack algorithm
 	private int       strechedX;		// stretched x-position for drawing
 	private int       strechedY;		// stretched y-position for drawing
-	private String    mappedName;		// name of the vertex this vertex is mapped to (if any)
+	private String    mappedName;		// name of the vertex this vertex is mapped to (null for the initial name)
 	private EnumColor color;			// color of this vertex when shown in window
 	
 	
@@ -29,13 +32,13 @@ public class EmbeddingVertex {
 	 */
 	public EmbeddingVertex(int id) {
 		this.id   = id;
-		setName(getInitName());
+		this.nameKind = VertexLabels.INITIAL;
 		
 		this.x = 0;
 		this.y = 0;
 		this.strechedX = 0;
 		this.strechedY = 0;
-		this.mappedName = name;
+		this.mappedName = null;
 		this.color = EnumColor.SET1;
 	}
 	
@@ -59,18 +62,48 @@ public class EmbeddingVertex {
 	}
 	
 	/**
-	 * Sets the name of this vertex.
+	 * Sets the name of this vertex. Names that follow a pattern (see {@link VertexLabels}) are not stored as strings.
 	 * @param name name of this vertex
 	 */
 	void setName(String name) {
-		this.name = name;
+		this.nameKind   = labels != null ? labels.getKind(name, id) : VertexLabels.getPlainKind(name, id);
+		this.nameNumber = VertexLabels.getNumber(name, nameKind);
+		this.name       = nameKind == VertexLabels.OTHER ? name : null;
 	}
 	/**
 	 * Returns the name of this vertex.
 	 * @return name of this vertex
 	 */
 	public String getName() {
-		return this.name;
+		switch (nameKind) {
+		case VertexLabels.INITIAL: return getInitName();
+		case VertexLabels.NUMBER:  return String.valueOf(nameNumber);
+		case VertexLabels.OTHER:   return name;
+		default:                   return labels.getSetName(nameKind, nameNumber);
+		}
+	}
+	
+	/**
+	 * Returns the kind of the name of this vertex.
+	 * @return kind of the name, see {@link VertexLabels}
+	 */
+	byte getNameKind() {
+		return nameKind;
+	}
+	/**
+	 * Returns the number in the name of this vertex, if the name is generated.
+	 * @return number in the name
+	 */
+	int getNameNumber() {
+		return nameNumber;
+	}
+	
+	/**
+	 * Sets the names of the embedding this vertex belongs to. Must be set before the name is changed.
+	 * @param labels names of the embedding
+	 */
+	void setLabels(VertexLabels labels) {
+		this.labels = labels;
 	}
 	
 	/**
@@ -81,11 +114,11 @@ public class EmbeddingVertex {
 		this.mappedName = mappedName;
 	}
 	/**
-	 * Returns the mapped name of this vertex.
+	 * Returns the mapped name of this vertex. Unless a mapped name was set, this is the initial name.
 	 * @return
 	 */
 	public String getMappedName() {
-		return this.mappedName;
+		return mappedName != null ? mappedName : getInitName();
 	}
 	
 	/**
@@ -0,0 +1,75 @@
+package embedding;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Cursor over the boundary of a face, starting with the incident edge of the face and
+ * following {@link EmbeddingEdge#getNext()}. A cursor can be reset to another face,
+ * so a traversal of many faces needs only one cursor and allocates nothing else.
+ * <p>
+ * The cursor reads the successor of an edge when the edge is returned by {@link #next()};
+ * the boundary of the face must not be changed while the cursor is used.
+ * @author tommy
+ *
+ */
+public final class FaceCursor implements Iterator<EmbeddingEdge>, Iterable<EmbeddingEdge> {
+
+	private EmbeddingEdge start;	// first edge of the boundary
+	private EmbeddingEdge current;	// edge returned by the next call of next(), null at the end
+	
+	
+	/**
+	 * Creates a cursor that is at the end. Use {@link #reset(EmbeddingFace)} to start a traversal.
+	 */
+	public FaceCursor() {
+		this.start   = null;
+		this.current = null;
+	}
+	
+	/**
+	 * Creates a cursor over the boundary of a face.
+	 * @param face a face
+	 */
+	public FaceCursor(EmbeddingFace face) {
+		reset(face);
+	}
+	
+	
+	/**
+	 * Moves this cursor to the incident edge of <code>face</code>.
+	 * @param face a face
+	 * @return     this cursor
+	 */
+	public FaceCursor reset(EmbeddingFace face) {
+		start   = face.getIncidentEdge();
+		current = start;
+		return this;
+	}
+	
+	@Override
+	public boolean hasNext() {
+		return current != null;
+	}
+	
+	@Override
+	public EmbeddingEdge next() {
+		if (current == null) {
+			throw new NoSuchElementException();
+		}
+		EmbeddingEdge e = current;
+		current = e.getNext();
+		if (current == start) {
+			current = null;
+		}
+		return e;
+	}
+	
+	/**
+	 * Returns this cursor, so it can be used in a for-each loop directly after a reset.
+	 */
+	@Override
+	public Iterator<EmbeddingEdge> iterator() {
+		return this;
+	}
+}
@@ -0,0 +1,375 @@
+package embedding;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Index of the incidences between the vertices and the faces of an {@link Embedding}, which answers
+ * if two vertices lie on a common face in constant expected time, see {@link Embedding#getFaceIncidence()}.
+ * <p>
+ * The incidences form a planar bipartite graph (the vertex-face graph of the embedding), so they can be
+ * oriented such that every vertex and every face has at most {@link #MAX_OUT} outgoing incidences.
+ * Two vertices u and v lie on a common face f, if f is an out-neighbor of u or v and the other vertex
+ * is on f, or if both u and v are out-neighbors of f; for the last case, the pairs of out-neighbors
+ * of all faces are counted in a hash table. The number of corners of each vertex in each face is counted
+ * in a second hash table.
+ * <p>
+ * The embedding updates the index when it inserts an edge into a face or subdivides an edge; the orientation
+ * is repaired by reversing all out-incidences of a vertex or face with too many of them (Brodal and Fagerberg).
+ * Queries do not change the index, so they can run in parallel as long as the embedding is not changed.
+ * @author tommy
+ *
+ */
+public class FaceIncidence {
+
+	public static final int NONE = -1;
+
+	// maximal number of out-incidences of a vertex or face
+	public static final int MAX_OUT = 8;
+
+	private final Embedding embedding;
+
+	// nodes: vertex v is 2*v, face f is 2*f+1; the out-neighbors of node x are out[x][0] to out[x][outDegree[x]-1]
+	private int[][] out       = new int[0][];
+	private int[]   outDegree = new int[0];
+	private int[]   stack     = new int[16];	// nodes with too many out-incidences
+	private int     pending   = 0;				// number of nodes on the stack
+
+	private final PairTable corners = new PairTable();	// (vertex, face) -> number of corners of the vertex in the face
+	private final PairTable pairs   = new PairTable();	// (vertex, vertex) -> number of faces with both vertices as out-neighbors
+
+
+	/**
+	 * Creates the index for the current faces of an embedding.
+	 * @param embedding an embedding
+	 */
+	FaceIncidence(Embedding embedding) {
+		this.embedding = embedding;
+		for (EmbeddingEdge e : embedding.getEdges().values()) {
+			if (e.getFace() != null) {
+				addCorners(e.getSource().getId(), e.getFace().getId(), 1);
+			}
+		}
+	}
+
+
+
+	/**
+	 * Tests if two vertices lie on a common face. A vertex lies on a common face with itself if it has an edge.
+	 * @param u id of a vertex
+	 * @param v id of a vertex
+	 * @return  true, if there is a face with both vertices on its boundary
+	 */
+	public boolean haveCommonFace(int u, int v) {
+		return findCommonFace(u, v) != NONE || pairs.get(pairKey(u, v)) > 0;
+	}
+
+	/**
+	 * Returns a face that has both vertices on its boundary. If the face is only known from the pairs of
+	 * out-neighbors of the faces, the faces around <code>u</code> are searched, which takes time linear in the degree of <code>u</code>.
+	 * @param u id of a vertex
+	 * @param v id of a vertex
+	 * @return  id of a common face or NONE
+	 */
+	public int getCommonFace(int u, int v) {
+		int face = findCommonFace(u, v);
+		if (face != NONE || pairs.get(pairKey(u, v)) == 0) {
+			return face;
+		}
+		for (EmbeddingEdge e : embedding.getRotationCursor(u)) {
+			if (corners.get(key(v, e.getFace().getId())) > 0) {
+				return e.getFace().getId();
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * Tests for many pairs of vertices if they lie on a common face. The pairs are tested in parallel.
+	 * @param us ids of the first vertices
+	 * @param vs ids of the second vertices (same length as <code>us</code>)
+	 * @return   for every pair, true if the vertices lie on a common face
+	 */
+	public boolean[] haveCommonFaces(final int[] us, final int[] vs) {
+		final boolean[] result = new boolean[us.length];
+		IntStream.range(0, us.length).parallel().forEach(i -> result[i] = haveCommonFace(us[i], vs[i]));
+		return result;
+	}
+
+	/**
+	 * Tests if a vertex lies on a face.
+	 * @param vertexId id of a vertex
+	 * @param faceId   id of a face
+	 * @return         true, if the vertex is on the boundary of the face
+	 */
+	public boolean isOnFace(int vertexId, int faceId) {
+		return corners.get(key(vertexId, faceId)) > 0;
+	}
+
+	/**
+	 * Returns a face that is an out-neighbor of one vertex and has the other vertex on its boundary.
+	 */
+	private int findCommonFace(int u, int v) {
+		int face = findOutFace(2*u, v);
+		return face != NONE ? face : findOutFace(2*v, u);
+	}
+
+	/**
+	 * Returns an out-neighbor of a vertex node that has the vertex <code>v</code> on its boundary.
+	 */
+	private int findOutFace(int node, int v) {
+		if (node >= outDegree.length) {
+			return NONE;
+		}
+		for (int i=0; i<outDegree[node]; i++) {
+			int face = out[node][i] >> 1;
+			if (corners.get(key(v, face)) > 0) {
+				return face;
+			}
+		}
+		return NONE;
+	}
+
+
+
+	/**
+	 * Adds corners of a vertex in a face.
+	 * @param vertexId id of a vertex
+	 * @param faceId   id of a face
+	 * @param k        number of new corners
+	 */
+	void addCorners(int vertexId, int faceId, int k) {
+		if (corners.add(key(vertexId, faceId), k) == k) {
+			link(2*vertexId, 2*faceId + 1);
+		}
+	}
+
+	/**
+	 * Removes corners of a vertex in a face.
+	 * @param vertexId id of a vertex
+	 * @param faceId   id of a face
+	 * @param k        number of removed corners
+	 */
+	void removeCorners(int vertexId, int faceId, int k) {
+		if (corners.add(key(vertexId, faceId), -k) == 0) {
+			int vertex = 2*vertexId;
+			int face   = 2*faceId + 1;
+			if (hasArc(vertex, face)) {
+				removeArc(vertex, face);
+			}
+			else {
+				removeArc(face, vertex);
+			}
+		}
+	}
+
+	/**
+	 * Adds the incidence between a vertex node and a face node, leaving the node with fewer out-incidences.
+	 */
+	private void link(int vertex, int face) {
+		ensureNode(Math.max(vertex, face));
+		if (outDegree[vertex] <= outDegree[face]) {
+			addArc(vertex, face);
+		}
+		else {
+			addArc(face, vertex);
+		}
+		repair();
+	}
+
+	/**
+	 * Reverses all out-incidences of every node with more than {@link #MAX_OUT} of them, until there is no such node.
+	 */
+	private void repair() {
+		while (pending > 0) {
+			int x = stack[--pending];
+			while (outDegree[x] > 0) {
+				int y = out[x][outDegree[x] - 1];
+				removeArc(x, y);
+				addArc(y, x);
+			}
+		}
+	}
+
+	/**
+	 * Adds the incidence from node x to node y; the pairs of out-neighbors of faces are updated.
+	 */
+	private void addArc(int x, int y) {
+		int deg = outDegree[x];
+		if ((x & 1) == 1) {
+			for (int i=0; i<deg; i++) {
+				pairs.add(pairKey(out[x][i] >> 1, y >> 1), 1);
+			}
+		}
+		if (out[x] == null) {
+			out[x] = new int[4];
+		}
+		else if (deg == out[x].length) {
+			out[x] = Arrays.copyOf(out[x], 2*deg);
+		}
+		out[x][deg]  = y;
+		outDegree[x] = deg + 1;
+		if (deg + 1 == MAX_OUT + 1) {
+			if (pending == stack.length) {
+				stack = Arrays.copyOf(stack, 2*pending);
+			}
+			stack[pending++] = x;
+		}
+	}
+
+	/**
+	 * Removes the incidence from node x to node y; the pairs of out-neighbors of faces are updated.
+	 */
+	private void removeArc(int x, int y) {
+		int last = outDegree[x] - 1;
+		int pos  = 0;
+		while (out[x][pos] != y) {
+			pos++;
+		}
+		out[x][pos] = out[x][last];
+		outDegree[x]--;
+		if ((x & 1) == 1) {
+			for (int i=0; i<last; i++) {
+				pairs.add(pairKey(out[x][i] >> 1, y >> 1), -1);
+			}
+		}
+	}
+
+	/**
+	 * Returns true, if there is an incidence from node x to node y.
+	 */
+	private boolean hasArc(int x, int y) {
+		for (int i=0; i<outDegree[x]; i++) {
+			if (out[x][i] == y) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Enlarges the arrays so that they have room for the node.
+	 */
+	private void ensureNode(int node) {
+		if (node < outDegree.length) {
+			return;
+		}
+		int length = Math.max(2*outDegree.length, node + 1);
+		outDegree  = Arrays.copyOf(outDegree, length);
+		out        = Arrays.copyOf(out, length);
+	}
+
+	/**
+	 * Returns the key of a vertex and a face.
+	 */
+	private static long key(int vertexId, int faceId) {
+		return ((long) vertexId << 32) | faceId;
+	}
+
+	/**
+	 * Returns the key of an unordered pair of vertices.
+	 */
+	private static long pairKey(int u, int v) {
+		return u < v ? key(u, v) : key(v, u);
+	}
+
+
+
+	/**
+	 * Hash table from positive long keys to counters, with open addressing and linear probing.
+	 * A key is removed when its counter becomes 0.
+	 */
+	private static final class PairTable {
+
+		private long[] keys   = new long[16];	// 0 marks a free slot
+		private int[]  counts = new int[16];
+		private int    size   = 0;
+
+		/**
+		 * Returns the counter of a key (0 if the key is not present).
+		 */
+		int get(long key) {
+			int mask = keys.length - 1;
+			for (int i=slot(key, mask); keys[i] != 0; i=(i+1) & mask) {
+				if (keys[i] == key) {
+					return counts[i];
+				}
+			}
+			return 0;
+		}
+
+		/**
+		 * Adds <code>delta</code> to the counter of a key and returns the new counter.
+		 */
+		int add(long key, int delta) {
+			int mask = keys.length - 1;
+			int i    = slot(key, mask);
+			while (keys[i] != 0 && keys[i] != key) {
+				i = (i+1) & mask;
+			}
+			if (keys[i] == 0) {
+				keys[i]   = key;
+				counts[i] = delta;
+				if (++size > keys.length / 2) {
+					grow();
+				}
+				return delta;
+			}
+			int count = counts[i] += delta;
+			if (count == 0) {
+				remove(i);
+			}
+			return count;
+		}
+
+		/**
+		 * Removes the key in slot i and moves the following keys of the probe sequence back.
+		 */
+		private void remove(int i) {
+			int mask = keys.length - 1;
+			int j    = i;
+			while (true) {
+				j = (j+1) & mask;
+				if (keys[j] == 0) {
+					break;
+				}
+				int home = slot(keys[j], mask);
+				// keys[j] may move to i, if i is cyclically between its home slot and j
+				if (((j - home) & mask) >= ((j - i) & mask)) {
+					keys[i]   = keys[j];
+					counts[i] = counts[j];
+					i = j;
+				}
+			}
+			keys[i]   = 0;
+			counts[i] = 0;
+			size--;
+		}
+
+		/**
+		 * Doubles the capacity.
+		 */
+		private void grow() {
+			long[] oldKeys   = keys;
+			int[]  oldCounts = counts;
+			keys   = new long[2*oldKeys.length];
+			counts = new int[2*oldKeys.length];
+			int mask = keys.length - 1;
+			for (int k=0; k<oldKeys.length; k++) {
+				if (oldKeys[k] != 0) {
+					int i = slot(oldKeys[k], mask);
+					while (keys[i] != 0) {
+						i = (i+1) & mask;
+					}
+					keys[i]   = oldKeys[k];
+					counts[i] = oldCounts[k];
+				}
+			}
+		}
+
+		private static int slot(long key, int mask) {
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int) (h ^ (h >>> 32)) & mask;
+		}
+	}
+}
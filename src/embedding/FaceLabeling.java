@@ -0,0 +1,266 @@
+package embedding;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Faces of a half-edge structure that is given by its <code>next</code> permutation: every cycle of the permutation
+ * is the boundary of one face. The faces are numbered in the order of their smallest half-edge, which is also the
+ * incident edge of the face, so the result does not depend on the number of threads.
+ * <p>
+ * Large inputs are labeled in parallel by chunked cycle following: every half-edge whose index is a multiple of
+ * {@link #SPLITTER_DISTANCE} starts a segment that ends at the next such half-edge. The segments are followed in parallel,
+ * only the cycles of segments are followed sequentially, and faces without such a half-edge are found by the half-edges
+ * that are the smallest on their boundary. Small inputs are labeled sequentially.
+ * @author tommy
+ *
+ */
+public final class FaceLabeling {
+
+	public static final int NONE = -1;
+
+	// distance of the half-edges that start the segments of the parallel labeling
+	public static final int SPLITTER_DISTANCE = 64;
+
+	// number of half-edges below which the labeling is sequential
+	public static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+
+	private static final int SMALLEST = -2;		// mark of the smallest half-edge of a face without splitter
+	private static final int BLOCK    = 4096;	// number of half-edges that are handled by one task
+
+	private final int[] face;			// face of every half-edge
+	private final int[] size;			// number of half-edges of every face
+	private final int[] incidentEdge;	// smallest half-edge of every face
+
+
+	private FaceLabeling(int[] face, int[] size, int[] incidentEdge) {
+		this.face         = face;
+		this.size         = size;
+		this.incidentEdge = incidentEdge;
+	}
+
+
+	/**
+	 * Labels the faces of a half-edge structure, in parallel on the common fork-join pool if the input is large.
+	 * @param next next half-edge on the boundary of the face of every half-edge (a permutation)
+	 * @return     the faces
+	 */
+	public static FaceLabeling of(int[] next) {
+		return of(next, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Labels the faces of a half-edge structure, in parallel on <code>pool</code> if the input is large.
+	 * @param next next half-edge on the boundary of the face of every half-edge (a permutation)
+	 * @param pool the pool that runs the parallel steps
+	 * @return     the faces
+	 */
+	public static FaceLabeling of(int[] next, ForkJoinPool pool) {
+		if (next.length < SEQUENTIAL_THRESHOLD || pool.getParallelism() == 1) {
+			return sequential(next);
+		}
+		return parallel(next, pool);
+	}
+
+	/**
+	 * Labels the faces of a half-edge structure by following every cycle in one thread.
+	 * @param next next half-edge on the boundary of the face of every half-edge (a permutation)
+	 * @return     the faces
+	 */
+	public static FaceLabeling sequential(int[] next) {
+		int   m            = next.length;
+		int[] face         = new int[m];
+		int[] size         = new int[m];
+		int[] incidentEdge = new int[m];
+		int   faces        = 0;
+		Arrays.fill(face, NONE);
+		for (int start=0; start<m; start++) {
+			if (face[start] != NONE) {
+				continue;
+			}
+			int e = start;
+			do {
+				face[e] = faces;
+				size[faces]++;
+				e = next[e];
+			} while (e != start);
+			incidentEdge[faces++] = start;
+		}
+		return new FaceLabeling(face, Arrays.copyOf(size, faces), Arrays.copyOf(incidentEdge, faces));
+	}
+
+
+
+	/**
+	 * Returns the number of faces.
+	 * @return number of faces
+	 */
+	public int getNumberOfFaces() {
+		return size.length;
+	}
+
+	/**
+	 * Returns the face of a half-edge.
+	 * @param e half-edge
+	 * @return  face between 0 and {@link #getNumberOfFaces()}-1
+	 */
+	public int getFace(int e) {
+		return face[e];
+	}
+
+	/**
+	 * Returns the number of half-edges on the boundary of a face.
+	 * @param f face
+	 * @return  size of the face
+	 */
+	public int getFaceSize(int f) {
+		return size[f];
+	}
+
+	/**
+	 * Returns the smallest half-edge on the boundary of a face.
+	 * @param f face
+	 * @return  incident half-edge
+	 */
+	public int getIncidentEdge(int f) {
+		return incidentEdge[f];
+	}
+
+
+
+	/**
+	 * Labels the faces in parallel.
+	 */
+	private static FaceLabeling parallel(final int[] next, ForkJoinPool pool) {
+		final int   m         = next.length;
+		final int   splitters = (m + SPLITTER_DISTANCE - 1) / SPLITTER_DISTANCE;
+		final int   blocks    = (m + BLOCK - 1) / BLOCK;
+		final int[] label     = new int[m];	// smallest half-edge of the face
+		final int[] face      = new int[m];
+		final int[] successor = new int[splitters];
+		final int[] segMin    = new int[splitters];
+		final int[] segLength = new int[splitters];
+		Arrays.fill(label, NONE);
+
+		// follow the segment of every splitter up to the next splitter
+		run(pool, splitters, s -> {
+			int start = s * SPLITTER_DISTANCE;
+			int min   = start;
+			int e     = next[start];
+			int len   = 1;
+			while (e % SPLITTER_DISTANCE != 0) {
+				min = Math.min(min, e);
+				e   = next[e];
+				len++;
+			}
+			successor[s] = e / SPLITTER_DISTANCE;
+			segMin[s]    = min;
+			segLength[s] = len;
+		});
+
+		// follow the cycles of segments; the length of a face is kept at its smallest half-edge for now
+		int[] cycleMin = new int[splitters];
+		Arrays.fill(cycleMin, NONE);
+		for (int s=0; s<splitters; s++) {
+			if (cycleMin[s] != NONE) {
+				continue;
+			}
+			int min = segMin[s];
+			int len = 0;
+			int t   = s;
+			do {
+				min  = Math.min(min, segMin[t]);
+				len += segLength[t];
+				t    = successor[t];
+			} while (t != s);
+			do {
+				cycleMin[t] = min;
+				t = successor[t];
+			} while (t != s);
+			face[min] = len;
+		}
+		run(pool, splitters, s -> {
+			int start = s * SPLITTER_DISTANCE;
+			int e     = start;
+			do {
+				label[e] = cycleMin[s];
+				e = next[e];
+			} while (e % SPLITTER_DISTANCE != 0);
+		});
+
+		// faces without splitter: the smallest half-edge of each face marks itself, then labels its face
+		run(pool, blocks, b -> {
+			for (int e=b*BLOCK; e<Math.min(m, (b+1)*BLOCK); e++) {
+				if (label[e] != NONE) {
+					continue;
+				}
+				int f = next[e];
+				while (f > e) {
+					f = next[f];
+				}
+				if (f == e) {
+					label[e] = SMALLEST;
+				}
+			}
+		});
+		run(pool, blocks, b -> {
+			for (int e=b*BLOCK; e<Math.min(m, (b+1)*BLOCK); e++) {
+				if (label[e] != SMALLEST) {
+					continue;
+				}
+				label[e] = e;
+				int len  = 1;
+				for (int f = next[e]; f != e; f = next[f]) {
+					label[f] = e;
+					len++;
+				}
+				face[e] = len;
+			}
+		});
+
+		// number the faces in the order of their smallest half-edges
+		final int[] blockOffset = new int[blocks + 1];
+		run(pool, blocks, b -> {
+			int count = 0;
+			for (int e=b*BLOCK; e<Math.min(m, (b+1)*BLOCK); e++) {
+				if (label[e] == e) {
+					count++;
+				}
+			}
+			blockOffset[b+1] = count;
+		});
+		for (int b=0; b<blocks; b++) {
+			blockOffset[b+1] += blockOffset[b];
+		}
+		final int[] size         = new int[blockOffset[blocks]];
+		final int[] incidentEdge = new int[blockOffset[blocks]];
+		run(pool, blocks, b -> {
+			int f = blockOffset[b];
+			for (int e=b*BLOCK; e<Math.min(m, (b+1)*BLOCK); e++) {
+				if (label[e] == e) {
+					size[f]         = face[e];
+					incidentEdge[f] = e;
+					face[e]         = f++;
+				}
+			}
+		});
+		run(pool, blocks, b -> {
+			for (int e=b*BLOCK; e<Math.min(m, (b+1)*BLOCK); e++) {
+				if (label[e] != e) {
+					face[e] = face[label[e]];
+				}
+			}
+		});
+
+		return new FaceLabeling(face, size, incidentEdge);
+	}
+
+	/**
+	 * Runs <code>task</code> for 0 to n-1 in parallel on <code>pool</code> and waits for the end.
+	 */
+	private static void run(ForkJoinPool pool, int n, IntConsumer task) {
+		pool.submit(() -> IntStream.range(0, n).parallel().forEach(task)).join();
+	}
+}
@@ -0,0 +1,340 @@
+package embedding;
+
+/**
+ * Immutable snapshot of an {@link Embedding}, see {@link Embedding#freeze()}.
+ * The snapshot is a read-only view of a {@link CompactEmbedding} that is addressed by the ids of the embedding
+ * instead of indices, so every query is a few array accesses (and a binary search, if the ids of the
+ * embedding are not consecutive) and no traversal creates objects. Names, crossings and positions of the
+ * vertices are copied as well.
+ * <p>
+ * The compact embedding is created in the constructor, kept in a final field and never changed or handed out,
+ * so a snapshot can be shared by any number of threads without synchronization, also if it is published
+ * without a lock or volatile field. Later changes of the embedding are not visible in the snapshot.
+ * @author tommy
+ *
+ */
+public final class FrozenEmbedding {
+
+	public static final int NONE = -1;
+
+	private final CompactEmbedding compact;
+
+
+	/**
+	 * Creates a snapshot of an embedding.
+	 * @param emb an embedding
+	 */
+	FrozenEmbedding(Embedding emb) {
+		compact = CompactEmbedding.fromEmbedding(emb);
+	}
+
+
+
+	/**
+	 * Returns the number of vertices (including crossings).
+	 * @return number of vertices
+	 */
+	public int getNumberOfVertices() {
+		return compact.getNumberOfVertices();
+	}
+
+	/**
+	 * Returns the number of half-edges.
+	 * @return number of half-edges
+	 */
+	public int getNumberOfEdges() {
+		return compact.getNumberOfEdges();
+	}
+
+	/**
+	 * Returns the number of faces.
+	 * @return number of faces
+	 */
+	public int getNumberOfFaces() {
+		return compact.getNumberOfFaces();
+	}
+
+	/**
+	 * Returns the id of the i-th vertex, where the vertices are ordered by their ids.
+	 * @param i position (0 &lt;= i &lt; number of vertices)
+	 * @return  id of the vertex
+	 */
+	public int getVertexId(int i) {
+		return compact.getVertexId(i);
+	}
+
+	/**
+	 * Returns the id of the i-th half-edge, where the half-edges are ordered by their ids.
+	 * @param i position (0 &lt;= i &lt; number of half-edges)
+	 * @return  id of the half-edge
+	 */
+	public int getEdgeId(int i) {
+		return compact.getEdgeId(i);
+	}
+
+	/**
+	 * Returns the id of the i-th face, where the faces are ordered by their ids.
+	 * @param i position (0 &lt;= i &lt; number of faces)
+	 * @return  id of the face
+	 */
+	public int getFaceId(int i) {
+		return compact.getFaceId(i);
+	}
+
+	/**
+	 * Tests if there is a vertex with the specified id.
+	 * @param vertexId an id
+	 * @return         true, if the snapshot contains the vertex
+	 */
+	public boolean hasVertex(int vertexId) {
+		return vertex(vertexId) != NONE;
+	}
+
+	/**
+	 * Tests if there is a half-edge with the specified id.
+	 * @param edgeId an id
+	 * @return       true, if the snapshot contains the half-edge
+	 */
+	public boolean hasEdge(int edgeId) {
+		return edge(edgeId) != NONE;
+	}
+
+	/**
+	 * Tests if there is a face with the specified id.
+	 * @param faceId an id
+	 * @return       true, if the snapshot contains the face
+	 */
+	public boolean hasFace(int faceId) {
+		return face(faceId) != NONE;
+	}
+
+
+	/**
+	 * Returns the source vertex of a half-edge.
+	 * @param edgeId id of a half-edge
+	 * @return       id of the source
+	 */
+	public int getSource(int edgeId) {
+		return compact.getVertexId(compact.getSource(edge(edgeId)));
+	}
+
+	/**
+	 * Returns the target vertex of a half-edge.
+	 * @param edgeId id of a half-edge
+	 * @return       id of the target
+	 */
+	public int getTarget(int edgeId) {
+		return compact.getVertexId(compact.getTarget(edge(edgeId)));
+	}
+
+	/**
+	 * Returns the twin of a half-edge.
+	 * @param edgeId id of a half-edge
+	 * @return       id of the twin
+	 */
+	public int getTwin(int edgeId) {
+		return compact.getEdgeId(compact.getTwin(edge(edgeId)));
+	}
+
+	/**
+	 * Returns the half-edge that follows a half-edge on the boundary of its face.
+	 * @param edgeId id of a half-edge
+	 * @return       id of the next half-edge
+	 */
+	public int getNext(int edgeId) {
+		return compact.getEdgeId(compact.getNext(edge(edgeId)));
+	}
+
+	/**
+	 * Returns the half-edge that precedes a half-edge on the boundary of its face.
+	 * @param edgeId id of a half-edge
+	 * @return       id of the previous half-edge
+	 */
+	public int getPrevious(int edgeId) {
+		return compact.getEdgeId(compact.getPrevious(edge(edgeId)));
+	}
+
+	/**
+	 * Returns the face of a half-edge.
+	 * @param edgeId id of a half-edge
+	 * @return       id of the face
+	 */
+	public int getFace(int edgeId) {
+		return compact.getFaceId(compact.getFace(edge(edgeId)));
+	}
+
+	/**
+	 * Returns the edge part before the crossing at the source of a half-edge.
+	 * @param edgeId id of a half-edge
+	 * @return       id of the edge part or NONE, if the source is no crossing
+	 */
+	public int getEdgeBeforeCrossing(int edgeId) {
+		return edgeId(compact.getEdgeBeforeCrossing(edge(edgeId)));
+	}
+
+	/**
+	 * Returns the edge part after the crossing at the target of a half-edge.
+	 * @param edgeId id of a half-edge
+	 * @return       id of the edge part or NONE, if the target is no crossing
+	 */
+	public int getEdgeAfterCrossing(int edgeId) {
+		return edgeId(compact.getEdgeAfterCrossing(edge(edgeId)));
+	}
+
+
+	/**
+	 * Returns the degree of a vertex, that is the number of its out-edges.
+	 * @param vertexId id of a vertex
+	 * @return         degree
+	 */
+	public int getVertexDegree(int vertexId) {
+		return compact.getVertexDegree(vertex(vertexId));
+	}
+
+	/**
+	 * Returns the out-edge of a vertex at position <code>i</code> of its rotation.
+	 * The order is the order of {@link Embedding#getIncidentEdgesToVertex(int)}.
+	 * @param vertexId id of a vertex
+	 * @param i        position (0 &lt;= i &lt; degree)
+	 * @return         id of the out-edge
+	 */
+	public int getOutEdge(int vertexId, int i) {
+		return compact.getEdgeId(compact.getOutEdge(vertex(vertexId), i));
+	}
+
+	/**
+	 * Writes the ids of the out-edges of a vertex in the order of its rotation into <code>buffer</code>.
+	 * If the buffer is too small, only the first <code>buffer.length</code> ids are written.
+	 * @param vertexId id of a vertex
+	 * @param buffer   array for the edge ids
+	 * @return         the degree of the vertex
+	 */
+	public int getIncidentEdgesToVertex(int vertexId, int[] buffer) {
+		int v   = vertex(vertexId);
+		int deg = compact.getVertexDegree(v);
+		for (int i=0; i<deg && i<buffer.length; i++) {
+			buffer[i] = compact.getEdgeId(compact.getOutEdge(v, i));
+		}
+		return deg;
+	}
+
+	/**
+	 * Writes the ids of the faces around a vertex into <code>buffer</code>, that is the face of every
+	 * out-edge in the order of the rotation. If the buffer is too small, only the first <code>buffer.length</code>
+	 * ids are written.
+	 * @param vertexId id of a vertex
+	 * @param buffer   array for the face ids
+	 * @return         the degree of the vertex
+	 */
+	public int getIncidentFacesToVertex(int vertexId, int[] buffer) {
+		int v   = vertex(vertexId);
+		int deg = compact.getVertexDegree(v);
+		for (int i=0; i<deg && i<buffer.length; i++) {
+			buffer[i] = compact.getFaceId(compact.getFace(compact.getOutEdge(v, i)));
+		}
+		return deg;
+	}
+
+	/**
+	 * Returns the degree of a face, that is the number of half-edges on its boundary.
+	 * @param faceId id of a face
+	 * @return       degree
+	 */
+	public int getFaceDegree(int faceId) {
+		return compact.getFaceDegree(face(faceId));
+	}
+
+	/**
+	 * Returns the half-edge at position <code>i</code> of the boundary of a face.
+	 * The order is the order of {@link Embedding#getIncidentEdgesToFace(int)}.
+	 * @param faceId id of a face
+	 * @param i      position (0 &lt;= i &lt; degree)
+	 * @return       id of the half-edge
+	 */
+	public int getFaceEdge(int faceId, int i) {
+		return compact.getEdgeId(compact.getFaceEdge(face(faceId), i));
+	}
+
+	/**
+	 * Writes the ids of the half-edges on the boundary of a face into <code>buffer</code>.
+	 * If the buffer is too small, only the first <code>buffer.length</code> ids are written.
+	 * @param faceId id of a face
+	 * @param buffer array for the edge ids
+	 * @return       the degree of the face
+	 */
+	public int getIncidentEdgesToFace(int faceId, int[] buffer) {
+		int f   = face(faceId);
+		int deg = compact.getFaceDegree(f);
+		for (int i=0; i<deg && i<buffer.length; i++) {
+			buffer[i] = compact.getEdgeId(compact.getFaceEdge(f, i));
+		}
+		return deg;
+	}
+
+
+	/**
+	 * Returns if a vertex is a crossing.
+	 * @param vertexId id of a vertex
+	 * @return         true if and only if the vertex is a crossing
+	 */
+	public boolean isCrossing(int vertexId) {
+		return compact.isCrossing(vertex(vertexId));
+	}
+
+	/**
+	 * Returns the name of a vertex.
+	 * @param vertexId id of a vertex
+	 * @return         name
+	 */
+	public String getVertexName(int vertexId) {
+		return compact.getVertexName(vertex(vertexId));
+	}
+
+	/**
+	 * Returns the x-position of a vertex.
+	 * @param vertexId id of a vertex
+	 * @return         x-position
+	 */
+	public int getX(int vertexId) {
+		return compact.getX(vertex(vertexId));
+	}
+
+	/**
+	 * Returns the y-position of a vertex.
+	 * @param vertexId id of a vertex
+	 * @return         y-position
+	 */
+	public int getY(int vertexId) {
+		return compact.getY(vertex(vertexId));
+	}
+
+
+
+	/**
+	 * Returns the index of a vertex in the compact embedding.
+	 */
+	private int vertex(int vertexId) {
+		return compact.getVertexIndex(vertexId);
+	}
+
+	/**
+	 * Returns the index of a half-edge in the compact embedding.
+	 */
+	private int edge(int edgeId) {
+		return compact.getEdgeIndex(edgeId);
+	}
+
+	/**
+	 * Returns the index of a face in the compact embedding.
+	 */
+	private int face(int faceId) {
+		return compact.getFaceIndex(faceId);
+	}
+
+	/**
+	 * Returns the id of a half-edge or NONE for NONE.
+	 */
+	private int edgeId(int e) {
+		return e == NONE ? NONE : compact.getEdgeId(e);
+	}
+}
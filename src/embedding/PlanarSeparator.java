@@ -0,0 +1,800 @@
+package embedding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Separator of a planar embedding after Lipton and Tarjan: a set of O(sqrt(n)) vertices whose removal leaves two sides
+ * with at most about 2n/3 vertices each and no edge between the sides.
+ * <p>
+ * The vertices of the largest component are divided into BFS levels; two levels l0 and l2 of small size around the median
+ * level separate the component into the levels below l0, the middle levels and the levels above l2. If the middle levels are
+ * too large, the levels up to l0 are contracted into the root of the BFS tree, the levels from l2 on are deleted, and the
+ * faces of the rest are triangulated with a middle vertex in every face.
+ * The non-tree edges then form a spanning tree of the dual graph; the fundamental cycle whose dual subtree is the
+ * most balanced one by the number of vertices is added to the separator. Every step is linear in the size of the embedding.
+ * <p>
+ * {@link #divide(CompactEmbedding, int)} applies the separator recursively until every region has at most r vertices (an r-division);
+ * the regions of one level of the recursion are separated in parallel. The vertices are given as indices of
+ * the {@link CompactEmbedding}, or as ids for an {@link Embedding}.
+ * @author tommy
+ *
+ */
+public final class PlanarSeparator {
+
+	private static final int NONE = -1;
+
+	// parts of a piece while it is separated
+	private static final int SEPARATOR = -1;
+	private static final int BELOW     = 0;	// levels below l0
+	private static final int INSIDE    = 1;	// middle levels, inside of the cycle
+	private static final int OUTSIDE   = 2;	// middle levels, outside of the cycle
+	private static final int ABOVE     = 3;	// levels above l2
+	private static final int REST      = 4;	// other components
+	private static final int PARTS     = 5;
+
+	private final int[] separator;
+	private final int[] first;
+	private final int[] second;
+
+
+	private PlanarSeparator(int[] separator, int[] first, int[] second) {
+		this.separator = separator;
+		this.first     = first;
+		this.second    = second;
+	}
+
+
+	/**
+	 * Separates an embedding.
+	 * @param emb an embedding
+	 * @return    the separator and the sides as vertex ids
+	 */
+	public static PlanarSeparator separate(Embedding emb) {
+		CompactEmbedding compact = CompactEmbedding.fromEmbedding(emb);
+		PlanarSeparator  s       = separate(compact);
+		return new PlanarSeparator(toIds(compact, s.separator), toIds(compact, s.first), toIds(compact, s.second));
+	}
+
+	/**
+	 * Separates a compact embedding.
+	 * @param emb a compact embedding
+	 * @return    the separator and the sides as vertex indices
+	 */
+	public static PlanarSeparator separate(CompactEmbedding emb) {
+		return separate(emb, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Separates a compact embedding; large faces are labeled in parallel on <code>pool</code>.
+	 * @param emb  a compact embedding
+	 * @param pool the pool for the parallel steps
+	 * @return     the separator and the sides as vertex indices
+	 */
+	public static PlanarSeparator separate(CompactEmbedding emb, ForkJoinPool pool) {
+		Piece piece = Piece.of(emb);
+		int[] side  = piece.split(pool);
+		int[] count = new int[3];
+		for (int s : side) {
+			count[s + 1]++;
+		}
+		int[][] sets = {new int[count[0]], new int[count[1]], new int[count[2]]};
+		Arrays.fill(count, 0);
+		for (int v=0; v<side.length; v++) {
+			sets[side[v] + 1][count[side[v] + 1]++] = v;
+		}
+		return new PlanarSeparator(sets[0], sets[1], sets[2]);
+	}
+
+	/**
+	 * Divides an embedding into regions of at most r vertices, see {@link #divide(CompactEmbedding, int, ForkJoinPool)}.
+	 * @param emb an embedding
+	 * @param r   maximal number of vertices of a region
+	 * @return    the division with vertex ids
+	 */
+	public static Division divide(Embedding emb, int r) {
+		CompactEmbedding compact  = CompactEmbedding.fromEmbedding(emb);
+		Division         division = divide(compact, r, ForkJoinPool.commonPool());
+		int[][]          regions  = new int[division.regions.length][];
+		for (int i=0; i<regions.length; i++) {
+			regions[i] = toIds(compact, division.regions[i]);
+		}
+		return new Division(toIds(compact, division.boundary), regions);
+	}
+
+	/**
+	 * Divides a compact embedding into regions of at most r vertices on the common fork-join pool.
+	 * @param emb a compact embedding
+	 * @param r   maximal number of vertices of a region
+	 * @return    the division with vertex indices
+	 */
+	public static Division divide(CompactEmbedding emb, int r) {
+		return divide(emb, r, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Divides a compact embedding into regions of at most r vertices by separating every larger region again.
+	 * The separator vertices are the boundary; they belong to no region, so there is no edge between two regions.
+	 * A region that can not be separated any further is kept even if it is larger.
+	 * @param emb  a compact embedding
+	 * @param r    maximal number of vertices of a region (at least 1)
+	 * @param pool the pool that separates the regions of one level in parallel
+	 * @return     the division with vertex indices
+	 */
+	public static Division divide(CompactEmbedding emb, int r, final ForkJoinPool pool) {
+		if (r < 1) {
+			throw new IllegalArgumentException("r must be positive: " + r);
+		}
+		List<int[]> regions  = new ArrayList<int[]>();
+		List<int[]> boundary = new ArrayList<int[]>();
+		List<Piece> pieces   = new ArrayList<Piece>();
+		pieces.add(Piece.of(emb));
+		while (!pieces.isEmpty()) {
+			final Piece[]   current   = pieces.toArray(new Piece[pieces.size()]);
+			final Piece[][] parts     = new Piece[current.length][];
+			final int[][]   separator = new int[current.length][];
+			pool.submit(() -> IntStream.range(0, current.length).parallel().forEach(i -> {
+				if (current[i].n <= r) {
+					return;
+				}
+				int[] side = current[i].split(pool);
+				int   sep  = 0;
+				int   one  = 0;
+				for (int s : side) {
+					sep += s == NONE ? 1 : 0;
+					one += s == 1 ? 1 : 0;
+				}
+				if (sep == 0 && (one == 0 || one == side.length)) {
+					return;		// no progress
+				}
+				separator[i] = current[i].vertices(side, NONE);
+				parts[i]     = current[i].induce(side);
+			})).join();
+
+			pieces.clear();
+			for (int i=0; i<current.length; i++) {
+				if (parts[i] == null) {
+					if (current[i].n > 0) {
+						regions.add(current[i].vertex);
+					}
+					continue;
+				}
+				boundary.add(separator[i]);
+				for (Piece p : parts[i]) {
+					if (p.n > 0) {
+						pieces.add(p);
+					}
+				}
+			}
+		}
+		int size = 0;
+		for (int[] b : boundary) {
+			size += b.length;
+		}
+		int[] all = new int[size];
+		size = 0;
+		for (int[] b : boundary) {
+			System.arraycopy(b, 0, all, size, b.length);
+			size += b.length;
+		}
+		return new Division(all, regions.toArray(new int[regions.size()][]));
+	}
+
+
+
+	/**
+	 * Returns the separator.
+	 * @return vertices of the separator
+	 */
+	public int[] getSeparator() {
+		return separator;
+	}
+
+	/**
+	 * Returns the first side.
+	 * @return vertices of the first side
+	 */
+	public int[] getFirst() {
+		return first;
+	}
+
+	/**
+	 * Returns the second side.
+	 * @return vertices of the second side
+	 */
+	public int[] getSecond() {
+		return second;
+	}
+
+	private static int[] toIds(CompactEmbedding emb, int[] vertices) {
+		int[] ids = new int[vertices.length];
+		for (int i=0; i<vertices.length; i++) {
+			ids[i] = emb.getVertexId(vertices[i]);
+		}
+		return ids;
+	}
+
+
+
+	/**
+	 * Regions of an r-division and the boundary vertices between them.
+	 */
+	public static final class Division {
+
+		private final int[]   boundary;
+		private final int[][] regions;
+
+		private Division(int[] boundary, int[][] regions) {
+			this.boundary = boundary;
+			this.regions  = regions;
+		}
+
+		/**
+		 * Returns the vertices of all separators.
+		 * @return boundary vertices
+		 */
+		public int[] getBoundary() {
+			return boundary;
+		}
+
+		/**
+		 * Returns the regions; every vertex is in the boundary or in exactly one region.
+		 * @return vertices of every region
+		 */
+		public int[][] getRegions() {
+			return regions;
+		}
+	}
+
+
+
+	/**
+	 * Induced subgraph of an embedding with the restricted rotations. The half-edges of vertex v are
+	 * start[v] to start[v+1]-1 in the order of the rotation.
+	 */
+	private static final class Piece {
+
+		final int   n;
+		final int[] vertex;		// vertex of the embedding for every vertex of this piece
+		final int[] start;
+		final int[] target;
+		final int[] twin;
+
+		Piece(int[] vertex, int[] start, int[] target, int[] twin) {
+			this.n      = vertex.length;
+			this.vertex = vertex;
+			this.start  = start;
+			this.target = target;
+			this.twin   = twin;
+		}
+
+		static Piece of(CompactEmbedding emb) {
+			int   n      = emb.getNumberOfVertices();
+			int   m      = emb.getNumberOfEdges();
+			int[] vertex = new int[n];
+			int[] start  = new int[n + 1];
+			int[] pos    = new int[m];
+			for (int v=0; v<n; v++) {
+				vertex[v]    = v;
+				start[v + 1] = start[v] + emb.getVertexDegree(v);
+				for (int i=0; i<emb.getVertexDegree(v); i++) {
+					pos[emb.getOutEdge(v, i)] = start[v] + i;
+				}
+			}
+			int[] target = new int[m];
+			int[] twin   = new int[m];
+			for (int e=0; e<m; e++) {
+				target[pos[e]] = emb.getTarget(e);
+				twin[pos[e]]   = pos[emb.getTwin(e)];
+			}
+			return new Piece(vertex, start, target, twin);
+		}
+
+		/**
+		 * Returns the vertices (of the embedding) with a given label.
+		 */
+		int[] vertices(int[] label, int value) {
+			int count = 0;
+			for (int v=0; v<n; v++) {
+				count += label[v] == value ? 1 : 0;
+			}
+			int[] result = new int[count];
+			count = 0;
+			for (int v=0; v<n; v++) {
+				if (label[v] == value) {
+					result[count++] = vertex[v];
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Returns the subgraphs induced by the two sides (label 0 and 1).
+		 */
+		Piece[] induce(int[] side) {
+			int[] local  = new int[n];
+			int[] dart   = new int[target.length];
+			int[] count  = new int[2];
+			int[] darts  = new int[2];
+			for (int v=0; v<n; v++) {
+				int s = side[v];
+				if (s == NONE) {
+					continue;
+				}
+				local[v] = count[s]++;
+				for (int d=start[v]; d<start[v + 1]; d++) {
+					if (side[target[d]] == s) {
+						dart[d] = darts[s]++;
+					}
+				}
+			}
+			Piece[] result = new Piece[2];
+			for (int s=0; s<2; s++) {
+				int[] pVertex = new int[count[s]];
+				int[] pStart  = new int[count[s] + 1];
+				int[] pTarget = new int[darts[s]];
+				int[] pTwin   = new int[darts[s]];
+				int   i       = 0;
+				for (int v=0; v<n; v++) {
+					if (side[v] != s) {
+						continue;
+					}
+					pVertex[i] = vertex[v];
+					int k = pStart[i];
+					for (int d=start[v]; d<start[v + 1]; d++) {
+						if (side[target[d]] == s) {
+							pTarget[k] = local[target[d]];
+							pTwin[k]   = dart[twin[d]];
+							k++;
+						}
+					}
+					pStart[++i] = k;
+				}
+				result[s] = new Piece(pVertex, pStart, pTarget, pTwin);
+			}
+			return result;
+		}
+
+		/**
+		 * Returns the side (0 or 1) of every vertex or NONE for the vertices of the separator.
+		 */
+		int[] split(ForkJoinPool pool) {
+			int[] part  = new int[n];		// part of every vertex, see the constants below
+			int[] size  = new int[PARTS];
+			Arrays.fill(part, REST);
+
+			// components; the largest one is separated, the others are the rest
+			int[] queue = new int[n];
+			int[] comp  = new int[n];
+			Arrays.fill(comp, NONE);
+			int largest = NONE;
+			int maxSize = 0;
+			for (int r=0; r<n; r++) {
+				if (comp[r] != NONE) {
+					continue;
+				}
+				int tail = 0;
+				comp[r] = r;
+				queue[tail++] = r;
+				for (int head=0; head<tail; head++) {
+					int v = queue[head];
+					for (int d=start[v]; d<start[v + 1]; d++) {
+						if (comp[target[d]] == NONE) {
+							comp[target[d]] = r;
+							queue[tail++]   = target[d];
+						}
+					}
+				}
+				if (tail > maxSize) {
+					maxSize = tail;
+					largest = r;
+				}
+			}
+			if (n > 0 && 3 * maxSize <= 2 * n) {
+				return splitComponents(comp);
+			}
+
+			// BFS levels of the largest component
+			int[] level      = new int[n];
+			int[] parentDart = new int[n];		// half-edge to the parent in the BFS tree
+			Arrays.fill(level, NONE);
+			int tail = 0;
+			level[largest]      = 0;
+			parentDart[largest] = NONE;
+			queue[tail++]       = largest;
+			for (int head=0; head<tail; head++) {
+				int v = queue[head];
+				for (int d=start[v]; d<start[v + 1]; d++) {
+					int w = target[d];
+					if (level[w] == NONE) {
+						level[w]      = level[v] + 1;
+						parentDart[w] = twin[d];
+						queue[tail++] = w;
+					}
+				}
+			}
+			int   k          = tail;
+			int   maxLevel   = level[queue[k - 1]];
+			int[] levelSize  = new int[maxLevel + 2];
+			for (int i=0; i<k; i++) {
+				levelSize[level[queue[i]]]++;
+			}
+
+			// median level l1, small levels l0 <= l1 < l2
+			int l1  = 0;
+			int sum = levelSize[0];
+			while (2 * sum <= k) {
+				sum += levelSize[++l1];
+			}
+			int l0 = NONE;
+			for (int l=0; l<=l1; l++) {
+				if (levelSize[l] + 2 * (l1 - l) < (l0 == NONE ? 2 * (l1 + 1) : levelSize[l0] + 2 * (l1 - l0))) {
+					l0 = l;
+				}
+			}
+			int l2 = maxLevel + 1;		// levelSize[maxLevel + 1] = 0
+			for (int l=maxLevel; l>l1; l--) {
+				if (levelSize[l] + 2 * (l - l1 - 1) < levelSize[l2] + 2 * (l2 - l1 - 1)) {
+					l2 = l;
+				}
+			}
+
+			int middle = 0;
+			for (int i=0; i<k; i++) {
+				int v = queue[i];
+				int l = level[v];
+				part[v] = l == l0 || l == l2 ? SEPARATOR : (l < l0 ? BELOW : (l > l2 ? ABOVE : INSIDE));
+				middle += part[v] == INSIDE ? 1 : 0;
+			}
+			if (3 * middle > 2 * k) {
+				separateMiddle(part, level, parentDart, largest, l0, l2, pool);
+			}
+
+			// sides: the parts in decreasing size, each to the smaller side
+			for (int v=0; v<n; v++) {
+				if (part[v] != SEPARATOR) {
+					size[part[v]]++;
+				}
+			}
+			int[]   sideOf = new int[PARTS];
+			int[]   weight = new int[2];
+			boolean[] done = new boolean[PARTS];
+			for (int i=0; i<PARTS; i++) {
+				int p = NONE;
+				for (int q=0; q<PARTS; q++) {
+					if (!done[q] && (p == NONE || size[q] > size[p])) {
+						p = q;
+					}
+				}
+				done[p]    = true;
+				sideOf[p]  = weight[0] <= weight[1] ? 0 : 1;
+				weight[sideOf[p]] += size[p];
+			}
+			int[] side = new int[n];
+			for (int v=0; v<n; v++) {
+				side[v] = part[v] == SEPARATOR ? NONE : sideOf[part[v]];
+			}
+			return side;
+		}
+
+		/**
+		 * Distributes the components (none larger than 2n/3) on the two sides.
+		 */
+		private int[] splitComponents(int[] comp) {
+			int[] compSize = new int[n];
+			for (int v=0; v<n; v++) {
+				compSize[comp[v]]++;
+			}
+			Integer[] roots = IntStream.range(0, n).filter(v -> comp[v] == v).boxed().toArray(Integer[]::new);
+			Arrays.sort(roots, (a, b) -> Integer.compare(compSize[b], compSize[a]));
+			int[] sideOf = new int[n];
+			int[] weight = new int[2];
+			for (int r : roots) {
+				sideOf[r] = weight[0] <= weight[1] ? 0 : 1;
+				weight[sideOf[r]] += compSize[r];
+			}
+			int[] side = new int[n];
+			for (int v=0; v<n; v++) {
+				side[v] = sideOf[comp[v]];
+			}
+			return side;
+		}
+
+		/**
+		 * Separates the middle levels by a fundamental cycle: vertices of the cycle get SEPARATOR, the others INSIDE or OUTSIDE.
+		 */
+		private void separateMiddle(int[] part, int[] level, int[] parentDart, int bfsRoot, int l0, int l2, ForkJoinPool pool) {
+			// nodes: 0 is the root (the contracted levels up to l0, or the BFS root), then the other middle vertices
+			int[] node  = new int[n];
+			Arrays.fill(node, NONE);
+			int   nodes = 1;
+			for (int v=0; v<n; v++) {
+				if (part[v] == INSIDE && v != bfsRoot) {
+					node[v] = nodes++;
+				}
+				else if (l0 != NONE ? level[v] == l0 : v == bfsRoot) {
+					node[v] = 0;
+				}
+			}
+			int[] nodeVertex = new int[nodes];
+			nodeVertex[0] = l0 == NONE ? bfsRoot : NONE;
+			for (int v=0; v<n; v++) {
+				if (node[v] > 0) {
+					nodeVertex[node[v]] = v;
+				}
+			}
+
+			// half-edges of the root: in the order of a walk around the BFS tree of the contracted levels
+			int[] newDart = new int[target.length];
+			int[] rootDarts;
+			if (l0 == NONE) {
+				rootDarts = keptDarts(bfsRoot, node);
+			}
+			else {
+				IntList tour  = new IntList();
+				int     first = start[bfsRoot];
+				int     d     = first;
+				do {
+					int w = target[d];
+					if (level[w] >= 0 && level[w] <= l0 && (parentDart[w] == twin[d] || parentDart[sourceOf(d)] == d)) {
+						d = rotationNext(twin[d]);		// along a tree edge of the contracted levels
+					}
+					else {
+						if (level[w] == l0 + 1) {
+							tour.add(d);
+						}
+						d = rotationNext(d);
+					}
+				} while (d != first);
+				rootDarts = tour.toArray();
+			}
+
+			// half-edges of the middle graph, in the order of the rotations
+			int[] nodeStart = new int[nodes + 1];
+			int   md        = rootDarts.length;
+			for (int i=0; i<rootDarts.length; i++) {
+				newDart[rootDarts[i]] = i;
+			}
+			nodeStart[1] = md;
+			for (int x=1; x<nodes; x++) {
+				int v = nodeVertex[x];
+				for (int d=start[v]; d<start[v + 1]; d++) {
+					if (node[target[d]] != NONE) {
+						newDart[d] = md++;
+					}
+				}
+				nodeStart[x + 1] = md;
+			}
+			int[] mSource = new int[md];
+			int[] mTwin   = new int[md];
+			int[] mNext   = new int[md];
+			for (int i=0; i<rootDarts.length; i++) {
+				mSource[i] = 0;
+				mTwin[i]   = newDart[twin[rootDarts[i]]];
+			}
+			for (int x=1; x<nodes; x++) {
+				int v = nodeVertex[x];
+				for (int d=start[v]; d<start[v + 1]; d++) {
+					if (node[target[d]] != NONE) {
+						mSource[newDart[d]] = x;
+						mTwin[newDart[d]]   = newDart[twin[d]];
+					}
+				}
+			}
+			for (int e=0; e<md; e++) {
+				int t = mTwin[e];
+				int s = mSource[t];
+				mNext[e] = t + 1 < nodeStart[s + 1] ? t + 1 : nodeStart[s];	// next(e) = rotation successor of twin(e)
+			}
+
+			// triangulation: a middle vertex in every face that is no triangle
+			FaceLabeling faces  = FaceLabeling.of(mNext, pool);
+			int          extra  = 0;
+			int          dummys = 0;
+			for (int f=0; f<faces.getNumberOfFaces(); f++) {
+				if (faces.getFaceSize(f) != 3) {
+					extra += 2 * faces.getFaceSize(f);
+					dummys++;
+				}
+			}
+			int   tn      = nodes + dummys;
+			int   td      = md + extra;
+			int[] tSource = Arrays.copyOf(mSource, td);
+			int[] tTwin   = Arrays.copyOf(mTwin, td);
+			int[] tNext   = Arrays.copyOf(mNext, td);
+			int[] tParent = new int[tn];		// half-edge to the parent in the tree
+			int[] depth   = new int[tn];
+			tParent[0] = NONE;
+			for (int x=1; x<nodes; x++) {
+				int v = nodeVertex[x];
+				tParent[x] = newDart[parentDart[v]];
+				depth[x]   = level[v] - Math.max(l0, 0);
+			}
+			int x = nodes;
+			int e = md;
+			for (int f=0; f<faces.getNumberOfFaces(); f++) {
+				int k = faces.getFaceSize(f);
+				if (k == 3) {
+					continue;
+				}
+				int h     = faces.getIncidentEdge(f);
+				int first = e;
+				for (int i=0; i<k; i++, h=mNext[h]) {
+					int a = first + 2*i;			// corner i -> middle vertex
+					int b = a + 1;					// middle vertex -> corner i
+					int c = first + 2*((i + 1) % k);	// corner i+1 -> middle vertex
+					tSource[a] = mSource[h];
+					tSource[b] = x;
+					tTwin[a]   = b;
+					tTwin[b]   = a;
+					tNext[h]   = c;
+					tNext[c]   = b;
+					tNext[b]   = h;
+				}
+				tParent[x] = first + 1;
+				depth[x]   = depth[mSource[faces.getIncidentEdge(f)]] + 1;
+				x++;
+				e += 2*k;
+			}
+
+			// dual tree of the non-tree edges, rooted at a face of the root
+			FaceLabeling triangles = FaceLabeling.of(tNext, pool);
+			int          tf        = triangles.getNumberOfFaces();
+			int[]        dualStart = new int[tf + 1];
+			for (int d=0; d<td; d++) {
+				if (!isTreeDart(d, tSource, tTwin, tParent)) {
+					dualStart[triangles.getFace(d) + 1]++;
+				}
+			}
+			for (int f=0; f<tf; f++) {
+				dualStart[f + 1] += dualStart[f];
+			}
+			int[] dualDart = new int[dualStart[tf]];
+			int[] fill     = Arrays.copyOf(dualStart, tf);
+			for (int d=0; d<td; d++) {
+				if (!isTreeDart(d, tSource, tTwin, tParent)) {
+					dualDart[fill[triangles.getFace(d)]++] = d;
+				}
+			}
+			int[] parentDual = new int[tf];		// half-edge (of the face) to the parent face
+			int[] pre        = new int[tf];
+			int[] order      = new int[tf];
+			int[] stack      = new int[tf];
+			int[] iter       = Arrays.copyOf(dualStart, tf);
+			Arrays.fill(pre, NONE);
+			int rootFace = triangles.getFace(0);
+			int count    = 0;
+			int top      = 0;
+			pre[rootFace]        = count;
+			order[count++]       = rootFace;
+			parentDual[rootFace] = NONE;
+			stack[top++]         = rootFace;
+			while (top > 0) {
+				int f = stack[top - 1];
+				if (iter[f] == dualStart[f + 1]) {
+					top--;
+					continue;
+				}
+				int d = dualDart[iter[f]++];
+				int g = triangles.getFace(tTwin[d]);
+				if (pre[g] == NONE) {
+					pre[g]        = count;
+					order[count++] = g;
+					parentDual[g] = d;
+					stack[top++]  = g;
+				}
+			}
+
+			// weights: every middle vertex counts for the face on the left of its tree edge
+			int[] subtree = new int[tf];
+			int[] weight  = new int[tf];
+			int   total   = 0;
+			for (int y=1; y<nodes; y++) {
+				weight[triangles.getFace(tParent[y])]++;
+				total++;
+			}
+			for (int i=count-1; i>0; i--) {
+				int f = order[i];
+				int p = triangles.getFace(parentDual[f]);
+				subtree[f] += 1;
+				subtree[p] += subtree[f];
+				weight[p]  += weight[f];
+			}
+			int best = NONE;
+			for (int i=1; i<count; i++) {
+				int f = order[i];
+				if (best == NONE || Math.max(weight[f], total - weight[f]) < Math.max(weight[best], total - weight[best])) {
+					best = f;
+				}
+			}
+			if (best == NONE) {
+				return;
+			}
+
+			// the fundamental cycle of the best edge
+			boolean[] onCycle = new boolean[tn];
+			int u = tSource[parentDual[best]];
+			int w = tSource[tTwin[parentDual[best]]];
+			while (u != w) {
+				if (depth[u] >= depth[w]) {
+					onCycle[u] = true;
+					u = tSource[tTwin[tParent[u]]];
+				}
+				else {
+					onCycle[w] = true;
+					w = tSource[tTwin[tParent[w]]];
+				}
+			}
+			onCycle[u] = true;
+			int from = pre[best];
+			int to   = from + subtree[best];
+			for (int y=0; y<nodes; y++) {
+				int v = nodeVertex[y];
+				if (v == NONE) {
+					continue;
+				}
+				if (onCycle[y]) {
+					part[v] = SEPARATOR;
+				}
+				else if (y > 0 && pre[triangles.getFace(tParent[y])] >= from && pre[triangles.getFace(tParent[y])] < to) {
+					part[v] = INSIDE;
+				}
+				else {
+					part[v] = OUTSIDE;
+				}
+			}
+		}
+
+		/**
+		 * Returns the half-edges of a vertex whose target is a node of the middle graph.
+		 */
+		private int[] keptDarts(int v, int[] node) {
+			IntList list = new IntList();
+			for (int d=start[v]; d<start[v + 1]; d++) {
+				if (node[target[d]] != NONE) {
+					list.add(d);
+				}
+			}
+			return list.toArray();
+		}
+
+		/**
+		 * Returns the source of a half-edge.
+		 */
+		private int sourceOf(int d) {
+			return target[twin[d]];
+		}
+
+		private int rotationNext(int d) {
+			int v = target[twin[d]];
+			return d + 1 < start[v + 1] ? d + 1 : start[v];
+		}
+
+		private static boolean isTreeDart(int d, int[] source, int[] twin, int[] parent) {
+			return parent[source[d]] == d || parent[source[twin[d]]] == twin[d];
+		}
+	}
+
+	/**
+	 * Growing list of ints.
+	 */
+	private static final class IntList {
+
+		private int[] values = new int[16];
+		private int   size   = 0;
+
+		void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, 2*size);
+			}
+			values[size++] = value;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package embedding;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Cursor over the outgoing edges of a vertex in the cyclic order of the embedding,
+ * starting with the out edge of the vertex. A cursor can be reset to another vertex,
+ * so a traversal of many vertices needs only one cursor and allocates nothing else.
+ * <p>
+ * The cursor reads the successor of an edge when the edge is returned by {@link #next()};
+ * the embedding must not be changed around the vertex while the cursor is used.
+ * @author tommy
+ *
+ */
+public final class RotationCursor implements Iterator<EmbeddingEdge>, Iterable<EmbeddingEdge> {
+
+	private EmbeddingEdge start;	// first edge of the rotation
+	private EmbeddingEdge current;	// edge returned by the next call of next(), null at the end
+	
+	
+	/**
+	 * Creates a cursor that is at the end. Use {@link #reset(EmbeddingVertex)} to start a traversal.
+	 */
+	public RotationCursor() {
+		this.start   = null;
+		this.current = null;
+	}
+	
+	/**
+	 * Creates a cursor over the outgoing edges of a vertex.
+	 * @param vertex a vertex
+	 */
+	public RotationCursor(EmbeddingVertex vertex) {
+		reset(vertex);
+	}
+	
+	
+	/**
+	 * Moves this cursor to the first outgoing edge of <code>vertex</code>.
+	 * @param vertex a vertex
+	 * @return       this cursor
+	 */
+	public RotationCursor reset(EmbeddingVertex vertex) {
+		start   = vertex.getOutEdge();
+		current = start;
+		return this;
+	}
+	
+	@Override
+	public boolean hasNext() {
+		return current != null;
+	}
+	
+	@Override
+	public EmbeddingEdge next() {
+		if (current == null) {
+			throw new NoSuchElementException();
+		}
+		EmbeddingEdge e = current;
+		current = e.getTwin().getNext();
+		if (current == start) {
+			current = null;
+		}
+		return e;
+	}
+	
+	/**
+	 * Returns this cursor, so it can be used in a for-each loop directly after a reset.
+	 */
+	@Override
+	public Iterator<EmbeddingEdge> iterator() {
+		return this;
+	}
+}
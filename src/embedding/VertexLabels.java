@@ -0,0 +1,286 @@
+package embedding;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Names of the vertices of an {@link Embedding}. Most names follow a pattern: the initial name
+ * <code>"x"+id</code>, a number (the label of a vertex in a {@link planarityTest.dataStructures.Graph})
+ * or a name of a bipartite set, that is {@link Embedding#SET1_LETTER} or {@link Embedding#SET2_LETTER}
+ * followed by a positive index. Such names are not stored as strings; a vertex only keeps the kind
+ * of its name and a number, and the name is generated when it is requested. Other names are stored as given.
+ * <p>
+ * For the bipartite sets, this table keeps the vertices of each set ordered by their index,
+ * so that the sets and the set of a vertex are known without looking up names, and the two sets
+ * are exchanged by flipping a flag. Vertices with other names are only found by name through
+ * an index that is built on the first lookup.
+ * @author tommy
+ *
+ */
+class VertexLabels {
+
+	// kinds of names
+	static final byte INITIAL = 0;	// "x" + id
+	static final byte NUMBER  = 1;	// a non-negative number
+	static final byte SET1    = 2;	// first bipartite set (before the sets were exchanged)
+	static final byte SET2    = 3;	// second bipartite set (before the sets were exchanged)
+	static final byte OTHER   = 4;	// any other name, stored as string
+	
+	private final HashMap<Integer, EmbeddingVertex> vertices;
+	private final List<EmbeddingVertex>             set1     = new ArrayList<EmbeddingVertex>();	// vertex of kind SET1 with index i at i-1
+	private final List<EmbeddingVertex>             set2     = new ArrayList<EmbeddingVertex>();	// vertex of kind SET2 with index i at i-1
+	private       boolean                           switched = false;	// true, if SET1 means the second set
+	private       HashMap<String, Integer>          byName   = null;	// names of kind NUMBER and OTHER, null if not built yet
+	
+	
+	/**
+	 * Creates the name table for the vertices of an embedding.
+	 * @param vertices the vertices of the embedding
+	 */
+	VertexLabels(HashMap<Integer, EmbeddingVertex> vertices) {
+		this.vertices = vertices;
+	}
+	
+	
+	/**
+	 * Returns the kind of a name for the vertex with id <code>vertexId</code>.
+	 * @param name     a name
+	 * @param vertexId id of the vertex
+	 * @return         kind of the name
+	 */
+	byte getKind(String name, int vertexId) {
+		byte kind = getPlainKind(name, vertexId);
+		if (kind != OTHER) {
+			return kind;
+		}
+		if (parseNumber(name, Embedding.SET1_LETTER) > 0) {
+			return switched ? SET2 : SET1;
+		}
+		if (parseNumber(name, Embedding.SET2_LETTER) > 0) {
+			return switched ? SET1 : SET2;
+		}
+		return OTHER;
+	}
+	
+	/**
+	 * Returns the kind of a name for the vertex with id <code>vertexId</code>, where names of bipartite sets
+	 * are of kind {@link #OTHER}. This is used for vertices that do not belong to an embedding.
+	 * @param name     a name
+	 * @param vertexId id of the vertex
+	 * @return         {@link #INITIAL}, {@link #NUMBER} or {@link #OTHER}
+	 */
+	static byte getPlainKind(String name, int vertexId) {
+		int id = parseNumber(name, "x");
+		if (id >= 0 && id == vertexId) {
+			return INITIAL;
+		}
+		if (parseNumber(name, "") >= 0) {
+			return NUMBER;
+		}
+		return OTHER;
+	}
+	
+	/**
+	 * Returns the number in a name of kind {@link #NUMBER}, {@link #SET1} or {@link #SET2}.
+	 * @param name a name
+	 * @param kind kind of the name
+	 * @return     number (0 for the other kinds)
+	 */
+	static int getNumber(String name, byte kind) {
+		switch (kind) {
+		case NUMBER: return parseDigits(name, 0);
+		case SET1:
+		case SET2:   return parseDigits(name, 1);
+		default:     return 0;
+		}
+	}
+	
+	/**
+	 * Generates the name of a vertex of kind {@link #SET1} or {@link #SET2}.
+	 * @param kind  kind of the name
+	 * @param index index in the set
+	 * @return      the name
+	 */
+	String getSetName(byte kind, int index) {
+		return ((kind == SET1) != switched ? Embedding.SET1_LETTER : Embedding.SET2_LETTER) + index;
+	}
+	
+	/**
+	 * Returns the bipartite set of a vertex.
+	 * @param v a vertex
+	 * @return  1 or 2 for the first or second set, 0 if the vertex is in no set
+	 */
+	int getSet(EmbeddingVertex v) {
+		switch (v.getNameKind()) {
+		case SET1: return switched ? 2 : 1;
+		case SET2: return switched ? 1 : 2;
+		default:   return 0;
+		}
+	}
+	
+	/**
+	 * Returns the ids of the vertices of a bipartite set with the indices 1, 2, ... up to the first missing index.
+	 * @param set 1 or 2
+	 * @return    ids in the order of the indices
+	 */
+	List<Integer> getSetVertices(int set) {
+		List<EmbeddingVertex> vertices = (set == 1) != switched ? set1 : set2;
+		List<Integer>         ids      = new ArrayList<Integer>();
+		for (EmbeddingVertex v : vertices) {
+			if (v == null) {
+				break;
+			}
+			ids.add(v.getId());
+		}
+		return ids;
+	}
+	
+	/**
+	 * Exchanges the two bipartite sets, so that every name with {@link Embedding#SET1_LETTER}
+	 * gets {@link Embedding#SET2_LETTER} and vice versa.
+	 */
+	void switchSets() {
+		switched = !switched;
+	}
+	
+	
+	/**
+	 * Returns the id of the vertex with the specified name.
+	 * @param name a name
+	 * @return     id of the vertex or null, if there is no such vertex
+	 */
+	Integer getOwner(String name) {
+		EmbeddingVertex owner = getSetOwner(name);
+		if (owner != null) {
+			return owner.getId();
+		}
+		int id = parseNumber(name, "x");
+		if (id >= 0) {
+			EmbeddingVertex v = vertices.get(id);
+			if (v != null && v.getNameKind() == INITIAL) {
+				return id;
+			}
+		}
+		if (byName == null) {
+			byName = new HashMap<String, Integer>();
+			for (EmbeddingVertex v : vertices.values()) {
+				bind(v);
+			}
+		}
+		return byName.get(name);
+	}
+	
+	/**
+	 * Returns the vertex with the specified name, if the name is a name of a bipartite set.
+	 */
+	private EmbeddingVertex getSetOwner(String name) {
+		byte kind = getKind(name, -1);
+		if (kind != SET1 && kind != SET2) {
+			return null;
+		}
+		List<EmbeddingVertex> vertices = kind == SET1 ? set1 : set2;
+		int                   index    = getNumber(name, kind);
+		return index <= vertices.size() ? vertices.get(index - 1) : null;
+	}
+	
+	/**
+	 * Returns the vertex that the indices of this table give for the specified name,
+	 * without building the index of names that are not kept yet.
+	 * @param name a name
+	 * @return     the vertex or null
+	 */
+	EmbeddingVertex peekOwner(String name) {
+		EmbeddingVertex owner = getSetOwner(name);
+		if (owner == null && byName != null) {
+			Integer id = byName.get(name);
+			owner = id == null ? null : vertices.get(id);
+		}
+		return owner;
+	}
+	
+	/**
+	 * Adds the name of a vertex to the indices of this table. An earlier vertex with the same name is replaced.
+	 * @param v a vertex
+	 */
+	void bind(EmbeddingVertex v) {
+		switch (v.getNameKind()) {
+		case SET1:
+		case SET2:
+			List<EmbeddingVertex> vertices = v.getNameKind() == SET1 ? set1 : set2;
+			while (vertices.size() < v.getNameNumber()) {
+				vertices.add(null);
+			}
+			vertices.set(v.getNameNumber() - 1, v);
+			break;
+		case NUMBER:
+		case OTHER:
+			if (byName != null) {
+				byName.put(v.getName(), v.getId());
+			}
+			break;
+		default:
+			break;
+		}
+	}
+	
+	/**
+	 * Removes the name of a vertex from the indices of this table, if the name belongs to this vertex there.
+	 * @param v a vertex
+	 */
+	void unbind(EmbeddingVertex v) {
+		switch (v.getNameKind()) {
+		case SET1:
+		case SET2:
+			List<EmbeddingVertex> vertices = v.getNameKind() == SET1 ? set1 : set2;
+			if (v.getNameNumber() <= vertices.size() && vertices.get(v.getNameNumber() - 1) == v) {
+				vertices.set(v.getNameNumber() - 1, null);
+			}
+			break;
+		case NUMBER:
+		case OTHER:
+			if (byName != null) {
+				Integer id = byName.get(v.getName());
+				if (id != null && id == v.getId()) {
+					byName.remove(v.getName());
+				}
+			}
+			break;
+		default:
+			break;
+		}
+	}
+	
+	
+	/**
+	 * Returns the number that follows <code>prefix</code> in <code>name</code>.
+	 * @param name   a name
+	 * @param prefix expected beginning of the name
+	 * @return       the number or -1, if the name is not the prefix followed by a number without leading zeros
+	 */
+	static int parseNumber(String name, String prefix) {
+		return name.startsWith(prefix) ? parseDigits(name, prefix.length()) : -1;
+	}
+	
+	/**
+	 * Returns the number that is formed by the characters of <code>name</code> from position <code>start</code> on.
+	 * @param name  a name
+	 * @param start position of the first digit
+	 * @return      the number or -1, if the characters are not a number without leading zeros
+	 */
+	private static int parseDigits(String name, int start) {
+		int length = name.length() - start;
+		if (length <= 0 || length > 9 || (name.charAt(start) == '0' && length > 1)) {
+			return -1;
+		}
+		int number = 0;
+		for (int i=start; i<name.length(); i++) {
+			char c = name.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			number = 10 * number + (c - '0');
+		}
+		return number;
+	}
+}
@@ -0,0 +1,65 @@
+package io.safeLoad;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import embedding.CompactEmbedding;
+import embedding.Embedding;
+
+/**
+ * Reads and writes embeddings in the binary format of {@link CompactEmbedding#writeTo(java.nio.channels.WritableByteChannel)}.
+ * Files are read through a memory mapping, so loading a large embedding needs no parsing, only bulk copies.
+ * @author tommy
+ *
+ */
+public class EmbeddingFile {
+
+	/**
+	 * Writes an embedding to a binary file.
+	 * @param emb  embedding
+	 * @param path target file name
+	 * @throws IOException if writing fails
+	 */
+	public static void write(Embedding emb, String path) throws IOException {
+		write(CompactEmbedding.fromEmbedding(emb), path);
+	}
+
+	/**
+	 * Writes a compact embedding to a binary file.
+	 * @param emb  compact embedding
+	 * @param path target file name
+	 * @throws IOException if writing fails
+	 */
+	public static void write(CompactEmbedding emb, String path) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			emb.writeTo(channel);
+		}
+	}
+
+	/**
+	 * Reads a compact embedding from a binary file.
+	 * @param path file name
+	 * @return     compact embedding
+	 * @throws IOException if reading fails or the file is no embedding file
+	 */
+	public static CompactEmbedding read(String path) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return CompactEmbedding.readFrom(buffer);
+		}
+	}
+
+	/**
+	 * Reads an embedding from a binary file.
+	 * @param path file name
+	 * @return     embedding
+	 * @throws IOException if reading fails or the file is no embedding file
+	 */
+	public static Embedding load(String path) throws IOException {
+		return read(path).toEmbedding();
+	}
+}
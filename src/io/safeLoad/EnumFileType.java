@@ -4,12 +4,14 @@ public enum EnumFileType {
 
 	XML,	// safe in xml-like style
 	GML,	// safe in gml
-	TXT;	// safe as txt
+	TXT,	// safe as txt
+	EMB;	// safe as binary embedding, see EmbeddingFile
 	
 	public static String getFileExtension(EnumFileType type) {
 		switch(type) {
 		case XML:  	       return "xml";
 		case GML:  	       return "gml";
+		case EMB:  	       return "emb";
 		case TXT: default: return "txt";
 		}
 	}
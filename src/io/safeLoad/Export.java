@@ -29,4 +29,20 @@ public class Export {
 		}
 		return true;
 	}
+	
+	/**
+	 * Exports the specified embedding to a binary file with the specified name, see {@link EmbeddingFile}.
+	 * @param emb		embedding
+	 * @param safePath	target file name
+	 * @return			true, if exporting was successful
+	 */
+	public static boolean exportBinary(Embedding emb, String safePath) {
+		try {
+			EmbeddingFile.write(emb, safePath);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+		return true;
+	}
 }
@@ -0,0 +1,63 @@
+package io.safeLoad;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import planarityTest.RotationSink;
+
+/**
+ * Writes a rotation system as text, one line per vertex:
+ * the index of the vertex, a colon and the indices of its neighbors in the cyclic order of the embedding,
+ * for example <code>4: 0 7 2</code>. The lines are written in the order in which the rotations are received.
+ * @author tommy
+ *
+ */
+public class RotationWriter implements RotationSink {
+
+	private static final char LINE_SEPARATOR = '\n';
+	private static final char SEPARATOR      = ' ';
+	private static final char VERTEX_DELIM   = ':';
+
+	private final Writer writer;
+
+
+	/**
+	 * Creates a writer for the file with the specified name.
+	 * @param path target file name
+	 * @throws IOException if the file cannot be opened
+	 */
+	public RotationWriter(String path) throws IOException {
+		this(new FileOutputStream(path));
+	}
+
+	/**
+	 * Creates a writer for a stream, for example of a file or a network connection.
+	 * The stream is closed by {@link #finish()}.
+	 * @param out target stream
+	 */
+	public RotationWriter(OutputStream out) {
+		this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.US_ASCII), 1 << 16);
+	}
+
+
+	@Override
+	public void rotation(int vertex, int[] neighbors, int degree) throws IOException {
+		writer.write(Integer.toString(vertex));
+		writer.write(VERTEX_DELIM);
+		for (int i=0; i<degree; i++) {
+			writer.write(SEPARATOR);
+			writer.write(Integer.toString(neighbors[i]));
+		}
+		writer.write(LINE_SEPARATOR);
+	}
+
+	@Override
+	public void finish() throws IOException {
+		writer.close();
+	}
+}
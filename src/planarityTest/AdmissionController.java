@@ -0,0 +1,208 @@
+package planarityTest;
+
+import planarityTest.dataStructures.Graph;
+
+/**
+ * Admission control for planarity tests, embeddings and drawings that share one JVM.
+ * Before a graph is handled, a {@link Ticket} is requested. The controller estimates the peak memory
+ * with a {@link FootprintEstimator} and
+ * <ul>
+ * <li>admits the work, if the estimate fits into the free part of the heap budget,</li>
+ * <li>queues the work until enough memory was released by other tickets, if the estimate fits into the budget,</li>
+ * <li>degrades the work to a weaker {@link EnumRunMode}, if the estimate of the requested mode exceeds the whole budget,</li>
+ * <li>rejects the work, if even the test alone exceeds the budget or if the waiting time runs out.</li>
+ * </ul>
+ * Every admitted ticket must be released after the work is done.
+ * @author tommy
+ *
+ */
+public class AdmissionController {
+	
+	private final long               heapBudget;
+	private final FootprintEstimator estimator;
+	private       long               reserved = 0;
+	
+	
+	/**
+	 * Creates a new controller with the default estimator.
+	 * @param heapBudget heap memory in bytes that may be used by all admitted tickets together
+	 */
+	public AdmissionController(long heapBudget) {
+		this(heapBudget, new FootprintEstimator());
+	}
+	
+	/**
+	 * Creates a new controller.
+	 * @param heapBudget heap memory in bytes that may be used by all admitted tickets together
+	 * @param estimator  estimator for the memory of a single graph
+	 */
+	public AdmissionController(long heapBudget, FootprintEstimator estimator) {
+		if (heapBudget <= 0) {
+			throw new IllegalArgumentException("heap budget must be positive");
+		}
+		this.heapBudget = heapBudget;
+		this.estimator  = estimator;
+	}
+	
+	/**
+	 * Creates a new controller whose budget is a fraction of the maximal heap of this JVM.
+	 * @param fraction fraction of {@link Runtime#maxMemory()} (between 0 and 1)
+	 * @return         the new controller
+	 */
+	public static AdmissionController forMaxHeap(double fraction) {
+		return new AdmissionController((long) (Runtime.getRuntime().maxMemory() * fraction));
+	}
+	
+	
+	/**
+	 * Returns the heap budget.
+	 * @return budget in bytes
+	 */
+	public long getHeapBudget() {
+		return heapBudget;
+	}
+	
+	/**
+	 * Returns the memory that is currently reserved by admitted tickets.
+	 * @return reserved memory in bytes
+	 */
+	public synchronized long getReserved() {
+		return reserved;
+	}
+	
+	
+	/**
+	 * Requests a ticket for a graph and waits at most <code>maxWaitMillis</code> milliseconds
+	 * until enough memory is free.
+	 * @param graph			the graph to handle
+	 * @param requested		what should be done with the graph
+	 * @param maxWaitMillis	maximal time to wait in the queue (0 does not wait)
+	 * @return				the ticket; its decision tells what may be done
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public Ticket admit(Graph graph, EnumRunMode requested, long maxWaitMillis) throws InterruptedException {
+		return admit(graph.getNumberOfVertices(), graph.getNumberOfEdges(), requested, maxWaitMillis);
+	}
+	
+	/**
+	 * Requests a ticket for a graph with <code>n</code> vertices and <code>m</code> edges and waits at most
+	 * <code>maxWaitMillis</code> milliseconds until enough memory is free.
+	 * @param n				number of vertices
+	 * @param m				number of edges
+	 * @param requested		what should be done with the graph
+	 * @param maxWaitMillis	maximal time to wait in the queue (0 does not wait)
+	 * @return				the ticket; its decision tells what may be done
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public Ticket admit(long n, long m, EnumRunMode requested, long maxWaitMillis) throws InterruptedException {
+		
+		// strongest mode that fits into the whole budget
+		EnumRunMode mode     = requested;
+		long        estimate = estimator.estimatePeak(mode, n, m);
+		while (estimate > heapBudget) {
+			mode = mode.degrade();
+			if (mode == null) {
+				return new Ticket(EnumAdmission.REJECTED, null, 0);
+			}
+			estimate = estimator.estimatePeak(mode, n, m);
+		}
+		
+		// wait until enough memory is free
+		long deadline = System.currentTimeMillis() + maxWaitMillis;
+		synchronized (this) {
+			while (reserved + estimate > heapBudget) {
+				long wait = deadline - System.currentTimeMillis();
+				if (wait <= 0) {
+					return new Ticket(EnumAdmission.REJECTED, null, 0);
+				}
+				wait(wait);
+			}
+			reserved += estimate;
+		}
+		
+		EnumAdmission decision = (mode == requested) ? EnumAdmission.ADMITTED : EnumAdmission.DEGRADED;
+		return new Ticket(decision, mode, estimate);
+	}
+	
+	
+	/**
+	 * Releases the memory of a ticket and wakes up queued requests.
+	 * @param bytes reserved memory
+	 */
+	private synchronized void release(long bytes) {
+		reserved -= bytes;
+		notifyAll();
+	}
+	
+	
+	
+	/**
+	 * Result of an admission request. Admitted and degraded tickets hold a reservation
+	 * that is returned by {@link #release()}.
+	 * @author tommy
+	 *
+	 */
+	public class Ticket implements AutoCloseable {
+		
+		private final EnumAdmission decision;
+		private final EnumRunMode   mode;
+		private final long          bytes;
+		private       boolean       released = false;
+		
+		private Ticket(EnumAdmission decision, EnumRunMode mode, long bytes) {
+			this.decision = decision;
+			this.mode     = mode;
+			this.bytes    = bytes;
+		}
+		
+		/**
+		 * Returns the decision of the controller.
+		 * @return decision
+		 */
+		public EnumAdmission getDecision() {
+			return decision;
+		}
+		
+		/**
+		 * Returns what may be done with the graph.
+		 * @return granted mode or null, if the request was rejected
+		 */
+		public EnumRunMode getMode() {
+			return mode;
+		}
+		
+		/**
+		 * Returns the reserved memory.
+		 * @return estimated peak memory in bytes
+		 */
+		public long getReservedBytes() {
+			return bytes;
+		}
+		
+		/**
+		 * Returns if the work may run.
+		 * @return true if and only if the ticket was admitted or degraded
+		 */
+		public boolean isAdmitted() {
+			return decision != EnumAdmission.REJECTED;
+		}
+		
+		/**
+		 * Returns the reserved memory to the controller. Further calls have no effect.
+		 */
+		public void release() {
+			synchronized (AdmissionController.this) {
+				if (released || !isAdmitted()) {
+					return;
+				}
+				released = true;
+			}
+			AdmissionController.this.release(bytes);
+		}
+		
+		@Override
+		public void close() {
+			release();
+		}
+	}
+}
@@ -0,0 +1,186 @@
+package planarityTest;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Passes rotations to another {@link RotationSink} in a separate thread, so that the embedding phase and
+ * a slow sink (a file or a network connection) can work at the same time.
+ * The rotations are collected in blocks of fixed size; at most <code>capacity</code> blocks wait for the sink.
+ * If all of them are waiting, the embedding phase blocks until the sink has processed a block (backpressure),
+ * so the memory needed is bounded independently of the size of the graph.
+ * If the stream is not finished, for example because the test was aborted, {@link #cancel()} stops the thread.
+ * @author tommy
+ *
+ */
+public class BufferedRotationSink implements RotationSink {
+
+	private static final int[] END_OF_STREAM = new int[0];
+	private static final long  PUT_TIMEOUT   = 10;		// milliseconds between two checks of the consumer while the queue is full
+
+	private final RotationSink          target;
+	private final BlockingQueue<int[]>  queue;
+	private final int                   blockSize;
+	private final Thread                consumer;
+
+	private int[]                current   = null;	// block: (vertex, degree, neighbors...)*
+	private int                  position  = 0;
+	private volatile IOException failure   = null;
+
+
+	/**
+	 * Creates a new buffered sink with 16 blocks of 64K entries.
+	 * @param target the sink that receives the rotations
+	 */
+	public BufferedRotationSink(RotationSink target) {
+		this(target, 16, 1 << 16);
+	}
+
+	/**
+	 * Creates a new buffered sink.
+	 * @param target	the sink that receives the rotations
+	 * @param capacity	number of blocks that may wait for the sink
+	 * @param blockSize	number of entries of a block (a rotation needs degree + 2 entries)
+	 */
+	public BufferedRotationSink(RotationSink target, int capacity, int blockSize) {
+		this.target    = target;
+		this.queue     = new ArrayBlockingQueue<int[]>(capacity);
+		this.blockSize = blockSize;
+		this.consumer  = new Thread(this::consume, "rotation-sink");
+		this.consumer.setDaemon(true);
+		this.consumer.start();
+	}
+
+
+	@Override
+	public void rotation(int vertex, int[] neighbors, int degree) throws IOException {
+		checkFailure();
+		if (current != null && position + degree + 2 > current.length) {
+			flush();
+		}
+		if (current == null) {
+			current  = new int[Math.max(blockSize, degree + 2)];
+			position = 0;
+		}
+		current[position++] = vertex;
+		current[position++] = degree;
+		System.arraycopy(neighbors, 0, current, position, degree);
+		position += degree;
+	}
+
+	@Override
+	public void finish() throws IOException {
+		if (current != null) {
+			flush();
+		}
+		put(END_OF_STREAM);
+		try {
+			consumer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while waiting for the rotation sink");
+		}
+		checkFailure();
+	}
+
+
+	/**
+	 * Stops passing rotations to the target sink. The rotations that are still waiting are discarded
+	 * and {@link RotationSink#finish()} of the target sink is not called; later calls of this sink
+	 * throw an <code>IOException</code> instead of waiting for the stopped thread.
+	 */
+	public void cancel() {
+		fail(new IOException("the rotation sink was canceled"));
+		consumer.interrupt();
+	}
+
+
+	/**
+	 * Hands the current block to the consumer.
+	 */
+	private void flush() throws IOException {
+		if (position < current.length) {
+			current[position] = -1;		// end of block
+		}
+		put(current);
+		current = null;
+	}
+
+	/**
+	 * Puts a block into the queue; blocks while the queue is full, but not after the consumer failed or stopped.
+	 */
+	private void put(int[] block) throws IOException {
+		checkFailure();
+		try {
+			while (!queue.offer(block, PUT_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				checkFailure();
+				if (!consumer.isAlive()) {
+					throw new IOException("the rotation sink has stopped");
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while waiting for the rotation sink");
+		}
+		checkFailure();
+	}
+
+	/**
+	 * Throws the failure of the consumer, if any.
+	 */
+	private void checkFailure() throws IOException {
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Stores the first failure; exceptions other than <code>IOException</code> are wrapped.
+	 */
+	private void fail(Throwable t) {
+		if (failure == null) {
+			failure = t instanceof IOException ? (IOException) t : new IOException("the rotation sink failed", t);
+		}
+	}
+
+	/**
+	 * Passes the blocks to the target sink until the end of the stream.
+	 * After a failure of the target sink, also by a runtime exception, the remaining blocks are discarded,
+	 * so the producer is never blocked forever and gets the failure from the next call.
+	 */
+	private void consume() {
+		int[] neighbors = new int[16];
+		try {
+			for (int[] block = queue.take(); block != END_OF_STREAM; block = queue.take()) {
+				if (failure != null) {
+					continue;
+				}
+				try {
+					int pos = 0;
+					while (pos < block.length && block[pos] >= 0) {
+						int vertex = block[pos++];
+						int degree = block[pos++];
+						if (neighbors.length < degree) {
+							neighbors = new int[Math.max(degree, 2 * neighbors.length)];
+						}
+						System.arraycopy(block, pos, neighbors, 0, degree);
+						pos += degree;
+						target.rotation(vertex, neighbors, degree);
+					}
+				} catch (Throwable t) {
+					fail(t);
+				}
+			}
+			if (failure == null) {
+				target.finish();
+			}
+		} catch (InterruptedException e) {
+			fail(new InterruptedIOException("rotation sink was interrupted"));
+		} catch (Throwable t) {
+			fail(t);
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package planarityTest;
+
+import alg.progress.AbortException;
+import alg.progress.ProgressMonitor;
+import drawing.DrawingPositioner;
+import embedding.CompactEmbedding;
+import embedding.Embedding;
+import planarityTest.dataStructures.Vertex;
+
+/**
+ * Embedding of one component of a planar graph, see {@link LRPlanarityTest#calculateComponentEmbeddings()}.
+ * The rotation system is available at once; the {@link Embedding} with its faces and the positions of the
+ * vertices are only calculated on first access and are kept afterwards.
+ * The graph must not be changed as long as the embedding or the drawing may still be requested.
+ * @author tommy
+ *
+ */
+public class ComponentEmbedding {
+
+	private final Vertex          root;
+	private final RotationSystem  rotationSystem;
+	private final LREmbedder      embedder;
+	private final ProgressMonitor monitor;
+
+	private Embedding embedding = null;
+	private boolean   isDrawn   = false;
+
+
+	/**
+	 * Creates the embedding of the component of <code>root</code>.
+	 * @param root				DFS root of the component
+	 * @param rotationSystem	rotation system of the graph
+	 * @param embedder			embedder of the graph
+	 * @param monitor			progress monitor used for the embedding and the drawing
+	 */
+	ComponentEmbedding(Vertex root, RotationSystem rotationSystem, LREmbedder embedder, ProgressMonitor monitor) {
+		this.root           = root;
+		this.rotationSystem = rotationSystem;
+		this.embedder       = embedder;
+		this.monitor        = monitor;
+	}
+
+
+	/**
+	 * Returns the DFS root of this component.
+	 * @return the root
+	 */
+	public Vertex getRoot() {
+		return root;
+	}
+
+	/**
+	 * Returns the rotation system of the graph. The vertices of this component are those with
+	 * <code>getComponent(v) == getComponent(getRoot().getIndex())</code>.
+	 * @return rotation system
+	 */
+	public RotationSystem getRotationSystem() {
+		return rotationSystem;
+	}
+
+	/**
+	 * Returns the embedding with faces, but without positions. It is calculated on first access.
+	 * @return embedding of this component
+	 * @throws AbortException if the progress monitor aborts the calculation
+	 */
+	public Embedding getEmbedding() throws AbortException {
+		if (embedding == null) {
+			embedding = embedder.getPlanarEmbedding(root);
+		}
+		return embedding;
+	}
+
+	/**
+	 * Returns the embedding of this component in the compact representation.
+	 * It is calculated anew on every call and does not contain positions.
+	 * @return compact embedding of this component
+	 * @throws AbortException if the progress monitor aborts the calculation
+	 */
+	public CompactEmbedding getCompactEmbedding() throws AbortException {
+		return embedder.getCompactEmbedding(root);
+	}
+
+	/**
+	 * Returns the embedding with the positions of all vertices. The positions are calculated on first access
+	 * (by triangulation and canonical ordering, see {@link DrawingPositioner}).
+	 * @return embedding of this component with positions
+	 * @throws AbortException if the progress monitor aborts the calculation
+	 */
+	public Embedding getDrawing() throws AbortException {
+		Embedding emb = getEmbedding();
+		if (!isDrawn) {
+			DrawingPositioner.calcPos(emb, monitor);
+			isDrawn = true;
+		}
+		return emb;
+	}
+
+	/**
+	 * Returns if the embedding with faces has already been calculated.
+	 * @return true if and only if {@link #getEmbedding()} does not need to calculate anything
+	 */
+	public boolean hasEmbedding() {
+		return embedding != null;
+	}
+
+	/**
+	 * Returns if the positions have already been calculated.
+	 * @return true if and only if {@link #getDrawing()} does not need to calculate anything
+	 */
+	public boolean isDrawn() {
+		return isDrawn;
+	}
+}
@@ -0,0 +1,245 @@
+package planarityTest;
+
+import java.util.Arrays;
+
+import planarityTest.dataStructures.Edge;
+import planarityTest.dataStructures.Vertex;
+
+/**
+ * Bridges, cut vertices and 2-edge-connected components of a graph. They are computed during the
+ * orientation phase (DFS1) of the {@link LRPlanarityTest} from the DFS heights, the lowpoints and one
+ * additional low value per vertex, so no further traversal is needed.
+ * <p>
+ * Vertices and edges are addressed by their index in the graph, see {@link Vertex#getIndex()} and {@link Edge#getIndex()}.
+ * @author tommy
+ *
+ */
+public class ConnectivityAnalysis {
+
+	private final boolean[] bridge;
+	private final boolean[] cutVertex;
+	private final int[]     component;		// 2-edge-connected component of each vertex
+	private       int       components = 0;
+	private       int       bridges    = 0;
+	private       int       cutVertices = 0;
+
+	// only needed during DFS1
+	private int[] low;						// lowest height reachable from the subtree of a vertex with at most one back edge
+	private int[] treeChildren;
+	private int[] stack;
+	private int   stackSize = 0;
+
+
+	/**
+	 * Creates a new analysis for a graph.
+	 * @param n number of vertices
+	 * @param m number of edges
+	 */
+	ConnectivityAnalysis(int n, int m) {
+		bridge       = new boolean[m];
+		cutVertex    = new boolean[n];
+		component    = new int[n];
+		low          = new int[n];
+		treeChildren = new int[n];
+		stack        = new int[n];
+	}
+
+
+	/**
+	 * Is called when DFS1 discovers a vertex. Its height must already be set.
+	 * @param v the vertex
+	 */
+	void discover(Vertex v) {
+		low[v.getIndex()]   = v.getHeight();
+		stack[stackSize++] = v.getIndex();
+	}
+
+	/**
+	 * Is called when DFS1 finds a back edge.
+	 * @param v source of the back edge
+	 * @param w target of the back edge
+	 */
+	void backEdge(Vertex v, Vertex w) {
+		low[v.getIndex()] = Math.min(low[v.getIndex()], w.getHeight());
+	}
+
+	/**
+	 * Is called when DFS1 has finished the subtree of a tree edge. Its lowpoint must already be set.
+	 * @param edge the tree edge
+	 */
+	void treeEdgeFinished(Edge edge) {
+		Vertex v = edge.getSource();
+		Vertex w = edge.getTarget();
+		int    vi = v.getIndex();
+		int    wi = w.getIndex();
+
+		low[vi] = Math.min(low[vi], low[wi]);
+		treeChildren[vi]++;
+
+		if (low[wi] == w.getHeight()) {
+			// no back edge leaves the subtree of w
+			bridge[edge.getIndex()] = true;
+			bridges++;
+			closeComponent(wi);
+		}
+		if (edge.getLowpoint() == v.getHeight() && v.getHeight() > 0 && !cutVertex[vi]) {
+			// no back edge from the subtree of w passes v
+			cutVertex[vi] = true;
+			cutVertices++;
+		}
+	}
+
+	/**
+	 * Is called when DFS1 has finished a root.
+	 * @param s the root
+	 */
+	void rootFinished(Vertex s) {
+		int si = s.getIndex();
+		if (treeChildren[si] > 1) {
+			cutVertex[si] = true;
+			cutVertices++;
+		}
+		closeComponent(si);
+	}
+
+	/**
+	 * Is called after DFS1. Frees the memory that is only needed during DFS1.
+	 */
+	void finish() {
+		low          = null;
+		treeChildren = null;
+		stack        = null;
+	}
+
+	/**
+	 * Labels all vertices on the stack down to <code>vi</code> with a new component.
+	 * @param vi index of the first vertex of the component
+	 */
+	private void closeComponent(int vi) {
+		int u;
+		do {
+			u = stack[--stackSize];
+			component[u] = components;
+		} while (u != vi);
+		components++;
+	}
+
+
+
+	/**
+	 * Returns if an edge is a bridge.
+	 * @param e index of the edge
+	 * @return  true if and only if removing the edge disconnects its component
+	 */
+	public boolean isBridge(int e) {
+		return bridge[e];
+	}
+
+	/**
+	 * Returns if an edge is a bridge.
+	 * @param e edge
+	 * @return  true if and only if removing the edge disconnects its component
+	 */
+	public boolean isBridge(Edge e) {
+		return bridge[e.getIndex()];
+	}
+
+	/**
+	 * Returns if a vertex is a cut vertex (articulation point).
+	 * @param v index of the vertex
+	 * @return  true if and only if removing the vertex disconnects its component
+	 */
+	public boolean isCutVertex(int v) {
+		return cutVertex[v];
+	}
+
+	/**
+	 * Returns if a vertex is a cut vertex (articulation point).
+	 * @param v vertex
+	 * @return  true if and only if removing the vertex disconnects its component
+	 */
+	public boolean isCutVertex(Vertex v) {
+		return cutVertex[v.getIndex()];
+	}
+
+	/**
+	 * Returns the indices of all bridges.
+	 * @return edge indices in increasing order
+	 */
+	public int[] getBridges() {
+		return collect(bridge, bridges);
+	}
+
+	/**
+	 * Returns the indices of all cut vertices.
+	 * @return vertex indices in increasing order
+	 */
+	public int[] getCutVertices() {
+		return collect(cutVertex, cutVertices);
+	}
+
+	/**
+	 * Returns the number of bridges.
+	 * @return number of bridges
+	 */
+	public int getNumberOfBridges() {
+		return bridges;
+	}
+
+	/**
+	 * Returns the number of cut vertices.
+	 * @return number of cut vertices
+	 */
+	public int getNumberOfCutVertices() {
+		return cutVertices;
+	}
+
+	/**
+	 * Returns the number of 2-edge-connected components.
+	 * @return number of components
+	 */
+	public int getNumberOfTwoEdgeConnectedComponents() {
+		return components;
+	}
+
+	/**
+	 * Returns the 2-edge-connected component of a vertex.
+	 * @param v index of the vertex
+	 * @return  component label between 0 and {@link #getNumberOfTwoEdgeConnectedComponents()}-1
+	 */
+	public int getTwoEdgeConnectedComponent(int v) {
+		return component[v];
+	}
+
+	/**
+	 * Returns the 2-edge-connected component of a vertex.
+	 * @param v vertex
+	 * @return  component label between 0 and {@link #getNumberOfTwoEdgeConnectedComponents()}-1
+	 */
+	public int getTwoEdgeConnectedComponent(Vertex v) {
+		return component[v.getIndex()];
+	}
+
+	/**
+	 * Returns the 2-edge-connected component labels of all vertices.
+	 * @return copy of the labels indexed by vertex index
+	 */
+	public int[] getTwoEdgeConnectedComponents() {
+		return Arrays.copyOf(component, component.length);
+	}
+
+
+	/**
+	 * Returns the indices of all set flags.
+	 */
+	private static int[] collect(boolean[] flags, int count) {
+		int[] result = new int[count];
+		int   k      = 0;
+		for (int i=0; i<flags.length; i++) {
+			if (flags[i]) {
+				result[k++] = i;
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,471 @@
+package planarityTest;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+import embedding.CompactEmbedding;
+import embedding.Embedding;
+import embedding.EmbeddingEdge;
+import embedding.EmbeddingFace;
+import embedding.EmbeddingVertex;
+import embedding.FaceLabeling;
+import planarityTest.dataStructures.Edge;
+import planarityTest.dataStructures.Graph;
+import planarityTest.dataStructures.Vertex;
+
+/**
+ * Certifies that an embedding is a planar embedding of a graph, without testing the graph again.
+ * The certificate is checked in linear time:
+ * <ol>
+ * <li>every half-edge is consistent with its twin, next and previous half-edge and has the face of its next half-edge,</li>
+ * <li>the cycles of the next permutation are traced, every face must be exactly one of them; only the face of a component
+ *     that is a single vertex without edges has no half-edges, so there are at most as many such faces as isolated vertices,</li>
+ * <li>the rotation of every vertex (<code>next(twin(e))</code>) must be a single cycle,</li>
+ * <li>every connected component satisfies Euler's formula V - E + F = 2 with its own vertices, half-edge pairs and
+ *     faces, so its genus is 0; since a face is a single cycle, it belongs to exactly one component, and every component
+ *     has its own outer face. An isolated vertex counts as V - E + F = 1 - 0 + 1 with its face without half-edges,
+ *     whether that face is present or omitted,</li>
+ * <li>the vertices are the vertices of the graph with the same names (labels), and their edges are the edges of the graph.</li>
+ * </ol>
+ * The checks of the half-edges, faces and rotations run in parallel. The graph is optional; without it,
+ * only the planarity of the embedding is certified, which also works for planarized embeddings.
+ * <p>
+ * A certifier is not thread-safe, it reuses an array of the size of the graph.
+ * @author tommy
+ *
+ */
+public class EmbeddingCertifier {
+
+	private static final int NONE = -1;
+
+	private final Graph               graph;			// null: the embedding is not compared with a graph
+	private final ForkJoinPool        pool;
+	private final Map<String, Vertex> vertexByLabel;	// null value: the label is not unique
+	private final int[]               localIndex;		// index in the embedding of every graph vertex
+
+	private String       violation = null;
+	private FaceLabeling cycles    = null;	// faces of the current embedding
+
+	// current embedding
+	private int      n;
+	private int      f;
+	private int[]    source;
+	private int[]    target;
+	private int[]    twin;
+	private int[]    next;
+	private int[]    previous;
+	private int[]    face;
+	private String[] names;
+	private int[]    edgeIds;
+	private int[]    faceIds;
+
+
+	/**
+	 * Creates a certifier that only certifies planarity, on the common fork-join pool.
+	 */
+	public EmbeddingCertifier() {
+		this(null, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a certifier for embeddings of a graph, on the common fork-join pool.
+	 * @param graph the graph
+	 */
+	public EmbeddingCertifier(Graph graph) {
+		this(graph, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a certifier for embeddings of a graph.
+	 * @param graph the graph or null, if the embeddings are not compared with a graph
+	 * @param pool  the pool that runs the parallel checks
+	 */
+	public EmbeddingCertifier(Graph graph, ForkJoinPool pool) {
+		this.graph = graph;
+		this.pool  = pool;
+		if (graph == null) {
+			vertexByLabel = null;
+			localIndex    = null;
+			return;
+		}
+		vertexByLabel = new HashMap<String, Vertex>(2 * graph.getNumberOfVertices());
+		for (Vertex v : graph.getVertices()) {
+			if (vertexByLabel.containsKey(v.getLabel())) {
+				vertexByLabel.put(v.getLabel(), null);
+			}
+			else {
+				vertexByLabel.put(v.getLabel(), v);
+			}
+		}
+		localIndex = new int[graph.getNumberOfVertices()];
+		Arrays.fill(localIndex, NONE);
+	}
+
+
+	/**
+	 * Returns the reason why the last certification failed.
+	 * @return violated property or null, if the last embedding was certified
+	 */
+	public String getViolation() {
+		return violation;
+	}
+
+	/**
+	 * Certifies an embedding, for example one of {@link LREmbedder#getPlanarEmbedding(Vertex)}.
+	 * The embedding may be a single component of the graph.
+	 * @param emb the embedding
+	 * @return    true, if the embedding is a planar embedding (of the graph); otherwise, see {@link #getViolation()}
+	 */
+	public boolean certify(Embedding emb) {
+		EmbeddingVertex[] vertexAt = new EmbeddingVertex[maxKey(emb.getVertices().keySet()) + 1];
+		EmbeddingEdge[]   edgeAt   = new EmbeddingEdge[maxKey(emb.getEdges().keySet()) + 1];
+		EmbeddingFace[]   faceAt   = new EmbeddingFace[maxKey(emb.getFaces().keySet()) + 1];
+		int[]             vIndex   = new int[vertexAt.length];
+		int[]             eIndex   = new int[edgeAt.length];
+		int[]             fIndex   = new int[faceAt.length];
+
+		n     = 0;
+		names = new String[emb.getVertices().size()];
+		for (EmbeddingVertex v : emb.getVertices().values()) {
+			vertexAt[v.getId()] = v;
+			vIndex[v.getId()]   = n;
+			names[n++]          = v.getName();
+		}
+		int m   = 0;
+		edgeIds = new int[emb.getEdges().size()];
+		for (EmbeddingEdge e : emb.getEdges().values()) {
+			edgeAt[e.getId()] = e;
+			eIndex[e.getId()] = m;
+			edgeIds[m++]      = e.getId();
+		}
+		f       = 0;
+		faceIds = new int[emb.getFaces().size()];
+		for (EmbeddingFace fc : emb.getFaces().values()) {
+			faceAt[fc.getId()] = fc;
+			fIndex[fc.getId()] = f;
+			faceIds[f++]       = fc.getId();
+		}
+
+		source   = new int[m];
+		target   = new int[m];
+		twin     = new int[m];
+		next     = new int[m];
+		previous = new int[m];
+		face     = new int[m];
+		for (EmbeddingEdge e : emb.getEdges().values()) {
+			int i       = eIndex[e.getId()];
+			source[i]   = index(e.getSource(),   vertexAt, vIndex);
+			target[i]   = index(e.getTarget(),   vertexAt, vIndex);
+			twin[i]     = index(e.getTwin(),     edgeAt,   eIndex);
+			next[i]     = index(e.getNext(),     edgeAt,   eIndex);
+			previous[i] = index(e.getPrevious(), edgeAt,   eIndex);
+			face[i]     = index(e.getFace(),     faceAt,   fIndex);
+		}
+		return certify();
+	}
+
+	/**
+	 * Certifies a compact embedding, for example one of {@link LREmbedder#getCompactEmbedding(Vertex)}.
+	 * @param emb the embedding
+	 * @return    true, if the embedding is a planar embedding (of the graph); otherwise, see {@link #getViolation()}
+	 */
+	public boolean certify(CompactEmbedding emb) {
+		int m    = emb.getNumberOfEdges();
+		n        = emb.getNumberOfVertices();
+		f        = emb.getNumberOfFaces();
+		source   = new int[m];
+		target   = new int[m];
+		twin     = new int[m];
+		next     = new int[m];
+		previous = new int[m];
+		face     = new int[m];
+		names    = new String[n];
+		edgeIds  = new int[m];
+		faceIds  = new int[f];
+		for (int e=0; e<m; e++) {
+			source[e]   = emb.getSource(e);
+			target[e]   = emb.getTarget(e);
+			twin[e]     = emb.getTwin(e);
+			next[e]     = emb.getNext(e);
+			previous[e] = emb.getPrevious(e);
+			face[e]     = emb.getFace(e);
+			edgeIds[e]  = emb.getEdgeId(e);
+		}
+		for (int v=0; v<n; v++) {
+			names[v] = emb.getVertexName(v);
+		}
+		for (int i=0; i<f; i++) {
+			faceIds[i] = emb.getFaceId(i);
+		}
+		return certify();
+	}
+
+
+
+	/**
+	 * Checks the arrays of the current embedding.
+	 */
+	private boolean certify() {
+		violation = null;
+		try {
+			return checkHalfEdges() && checkFaces() && checkRotationsAndEuler() && checkGraph();
+		} finally {
+			source = target = twin = next = previous = face = edgeIds = faceIds = null;
+			names  = null;
+			cycles = null;
+		}
+	}
+
+	/**
+	 * Checks the links of every half-edge (in parallel).
+	 */
+	private boolean checkHalfEdges() {
+		int e = findFirst(source.length, i -> !isConsistent(i));
+		if (e != NONE) {
+			violation = "half-edge " + edgeIds[e] + " is not consistent with its twin, next or previous half-edge";
+		}
+		return e == NONE;
+	}
+
+	private boolean isConsistent(int e) {
+		int m = source.length;
+		if (!inRange(source[e], n) || !inRange(target[e], n) || !inRange(face[e], f)
+				|| !inRange(twin[e], m) || !inRange(next[e], m) || !inRange(previous[e], m)) {
+			return false;
+		}
+		int t = twin[e];
+		int x = next[e];
+		return t != e && twin[t] == e && source[t] == target[e]
+				&& previous[x] == e && next[previous[e]] == e
+				&& source[x] == target[e] && face[x] == face[e];
+	}
+
+	/**
+	 * Traces the faces and checks that every face is exactly one cycle of half-edges,
+	 * apart from one face without half-edges for every isolated vertex.
+	 */
+	private boolean checkFaces() {
+		cycles = FaceLabeling.of(next, pool);
+		int[] count = new int[f];
+		for (int c=0; c<cycles.getNumberOfFaces(); c++) {
+			count[face[cycles.getIncidentEdge(c)]]++;
+		}
+		boolean[] hasEdge  = new boolean[n];
+		int       isolated = n;
+		for (int e=0; e<source.length; e++) {
+			if (!hasEdge[source[e]]) {
+				hasEdge[source[e]] = true;
+				isolated--;
+			}
+		}
+		for (int i=0; i<f; i++) {
+			if (count[i] == 0 && isolated > 0) {
+				// the face of an isolated vertex
+				isolated--;
+			}
+			else if (count[i] != 1) {
+				violation = "face " + faceIds[i] + " has " + count[i] + " boundary cycles";
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks that the rotation of every vertex is a single cycle, labels the connected components
+	 * and checks Euler's formula for every component.
+	 */
+	private boolean checkRotationsAndEuler() {
+		final int   m        = source.length;
+		final int[] rotation = new int[m];
+		pool.submit(() -> IntStream.range(0, m).parallel().forEach(e -> rotation[e] = next[twin[e]])).join();
+		FaceLabeling rotations = FaceLabeling.of(rotation, pool);
+
+		// one rotation cycle per vertex
+		int[] outEdge = new int[n];
+		Arrays.fill(outEdge, NONE);
+		for (int c=0; c<rotations.getNumberOfFaces(); c++) {
+			int e = rotations.getIncidentEdge(c);
+			if (outEdge[source[e]] != NONE) {
+				violation = "the rotation of vertex " + names[source[e]] + " consists of several cycles";
+				return false;
+			}
+			outEdge[source[e]] = e;
+		}
+
+		// connected components by a search over the rotations
+		int[] component = new int[n];
+		int[] stack     = new int[n];
+		int   count     = 0;
+		Arrays.fill(component, NONE);
+		for (int r=0; r<n; r++) {
+			if (component[r] != NONE) {
+				continue;
+			}
+			int size = 0;
+			component[r]  = count;
+			stack[size++] = r;
+			while (size > 0) {
+				int v = stack[--size];
+				int e = outEdge[v];
+				if (e == NONE) {
+					continue;
+				}
+				do {
+					int w = target[e];
+					if (component[w] == NONE) {
+						component[w]  = count;
+						stack[size++] = w;
+					}
+					e = rotation[e];
+				} while (e != outEdge[v]);
+			}
+			count++;
+		}
+
+		// Euler's formula V - E + F = 2 for every component, counted twice: +2 per vertex and face, -1 per half-edge
+		int[] euler = new int[count];
+		int[] root  = new int[count];
+		for (int v=0; v<n; v++) {
+			euler[component[v]] += outEdge[v] == NONE ? 4 : 2;	// an isolated vertex is a vertex and its face without half-edges
+			root[component[v]]   = v;
+		}
+		for (int e=0; e<m; e++) {
+			euler[component[source[e]]]--;
+		}
+		for (int c=0; c<cycles.getNumberOfFaces(); c++) {
+			euler[component[source[cycles.getIncidentEdge(c)]]] += 2;
+		}
+		for (int c=0; c<count; c++) {
+			if (euler[c] != 4) {
+				violation = "the component of vertex " + names[root[c]] + " violates Euler's formula (V - E + F = "
+						+ (euler[c] / 2) + " instead of 2)";
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks that the vertices and edges are the ones of the graph (rows are compared in parallel).
+	 */
+	private boolean checkGraph() {
+		if (graph == null) {
+			return true;
+		}
+		final int      m      = source.length;
+		final Vertex[] vertex = new Vertex[n];
+		try {
+			// vertices by name and their degrees
+			final int[] start = new int[n + 1];
+			for (int e=0; e<m; e++) {
+				start[source[e] + 1]++;
+			}
+			for (int v=0; v<n; v++) {
+				vertex[v] = vertexByLabel.get(names[v]);
+				if (vertex[v] == null) {
+					violation = vertexByLabel.containsKey(names[v]) ? "the label " + names[v] + " is not unique in the graph"
+							: "vertex " + names[v] + " is not in the graph";
+					return false;
+				}
+				if (localIndex[vertex[v].getIndex()] != NONE) {
+					violation = "vertex " + names[v] + " is embedded twice";
+					return false;
+				}
+				localIndex[vertex[v].getIndex()] = v;
+				if (graph.getAdjacencyList(vertex[v]).getDegree() != start[v + 1]) {
+					violation = "vertex " + names[v] + " has degree " + start[v + 1] + " instead of "
+							+ graph.getAdjacencyList(vertex[v]).getDegree();
+					return false;
+				}
+			}
+			for (int v=0; v<n; v++) {
+				start[v + 1] += start[v];
+			}
+
+			// rows of neighbors in increasing order, since the neighbors are visited in increasing order
+			final int[] graphRow     = new int[m];
+			final int[] embeddingRow = new int[m];
+			final int[] graphPos     = Arrays.copyOf(start, n);
+			final int[] embedPos     = Arrays.copyOf(start, n);
+			final int[] outEdges     = new int[m];
+			final int[] outPos       = Arrays.copyOf(start, n);
+			for (int e=0; e<m; e++) {
+				outEdges[outPos[source[e]]++] = e;
+			}
+			for (int w=0; w<n; w++) {
+				for (Edge edge : graph.getAdjacencyList(vertex[w])) {
+					int u = localIndex[edge.getOther(vertex[w]).getIndex()];
+					if (u == NONE) {
+						violation = "the edge between " + names[w] + " and " + edge.getOther(vertex[w]).getLabel() + " is not embedded";
+						return false;
+					}
+					graphRow[graphPos[u]++] = w;
+				}
+				for (int i=start[w]; i<start[w + 1]; i++) {
+					int u = target[outEdges[i]];
+					embeddingRow[embedPos[u]++] = w;
+				}
+			}
+			int v = findFirst(n, u -> !Arrays.equals(graphRow, start[u], start[u + 1], embeddingRow, start[u], start[u + 1]));
+			if (v != NONE) {
+				violation = "the edges of vertex " + names[v] + " are not the edges of the graph";
+			}
+			return v == NONE;
+		} finally {
+			for (Vertex u : vertex) {
+				if (u != null) {
+					localIndex[u.getIndex()] = NONE;
+				}
+			}
+		}
+	}
+
+
+
+	/**
+	 * Returns the smallest i in [0, length) that satisfies a predicate or NONE; the predicate is evaluated in parallel.
+	 */
+	private int findFirst(int length, IntPredicate predicate) {
+		OptionalInt first = pool.submit(() -> IntStream.range(0, length).parallel().filter(predicate).findFirst()).join();
+		return first.orElse(NONE);
+	}
+
+	private static boolean inRange(int i, int length) {
+		return i >= 0 && i < length;
+	}
+
+	/**
+	 * Returns the index of a vertex or NONE, if it is null or does not belong to the embedding.
+	 */
+	private static int index(EmbeddingVertex v, EmbeddingVertex[] vertexAt, int[] indexOf) {
+		return v != null && v.getId() >= 0 && v.getId() < vertexAt.length && vertexAt[v.getId()] == v ? indexOf[v.getId()] : NONE;
+	}
+
+	/**
+	 * Returns the index of an edge or NONE, if it is null or does not belong to the embedding.
+	 */
+	private static int index(EmbeddingEdge e, EmbeddingEdge[] edgeAt, int[] indexOf) {
+		return e != null && e.getId() >= 0 && e.getId() < edgeAt.length && edgeAt[e.getId()] == e ? indexOf[e.getId()] : NONE;
+	}
+
+	/**
+	 * Returns the index of a face or NONE, if it is null or does not belong to the embedding.
+	 */
+	private static int index(EmbeddingFace fc, EmbeddingFace[] faceAt, int[] indexOf) {
+		return fc != null && fc.getId() >= 0 && fc.getId() < faceAt.length && faceAt[fc.getId()] == fc ? indexOf[fc.getId()] : NONE;
+	}
+
+	private static int maxKey(Iterable<Integer> keys) {
+		int max = 0;
+		for (int key : keys) {
+			max = Math.max(max, key);
+		}
+		return max;
+	}
+}
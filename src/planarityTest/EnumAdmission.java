@@ -0,0 +1,21 @@
+package planarityTest;
+
+/**
+ * Decisions of an {@link AdmissionController}.
+ * @author tommy
+ *
+ */
+public enum EnumAdmission {
+
+	ADMITTED,	// the work may run in the requested mode
+	DEGRADED,	// the work may only run in a weaker mode than requested
+	REJECTED;	// the work must not run at all
+	
+	/**
+	 * Returns the name of this element.
+	 * @return name
+	 */
+	public String getString() {
+		return this.name();
+	}
+}
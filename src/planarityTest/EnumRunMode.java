@@ -0,0 +1,34 @@
+package planarityTest;
+
+/**
+ * How much of the work for a graph is done: only the planarity test, the test
+ * and the embedding, or the test, the embedding and the drawing.
+ * @author tommy
+ *
+ */
+public enum EnumRunMode {
+
+	TEST_ONLY,	// only decide planarity
+	EMBEDDING,	// decide planarity and calculate the embeddings without positions
+	DRAWING;	// decide planarity, calculate the embeddings and the positions of the vertices
+	
+	/**
+	 * Returns the mode that does less work than this mode.
+	 * @return the next weaker mode or null, if this is already the weakest mode
+	 */
+	public EnumRunMode degrade() {
+		switch(this) {
+		case DRAWING:   return EMBEDDING;
+		case EMBEDDING: return TEST_ONLY;
+		default:        return null;
+		}
+	}
+	
+	/**
+	 * Returns the name of this element.
+	 * @return name
+	 */
+	public String getString() {
+		return this.name();
+	}
+}
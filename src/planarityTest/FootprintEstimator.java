@@ -0,0 +1,148 @@
+package planarityTest;
+
+import alg.progress.EnumPhase;
+import planarityTest.dataStructures.Graph;
+
+/**
+ * Estimates the heap memory (in bytes) needed to test, embed and draw a graph
+ * with <code>n</code> vertices and <code>m</code> edges.
+ * <p>
+ * Every phase is modelled as <code>a*n + b*m</code>. The default coefficients were measured
+ * (heap in use after a full garbage collection) on lattices, wheels and stacked triangulations
+ * with 10^4 to 10^5 vertices on a 64-bit JVM with compressed references. They can be replaced
+ * by own measurements with {@link #setCoefficients(EnumPhase, long, long)}.
+ * @author tommy
+ *
+ */
+public class FootprintEstimator {
+	
+	// graph (Vertex, Edge, IncidentEdgeList with its HashMap and list elements)
+	public static final long GRAPH_PER_VERTEX     = 240;
+	public static final long GRAPH_PER_EDGE       = 200;
+	// embeddings returned by the embedder (EmbeddingVertex, two EmbeddingEdges per edge, EmbeddingFace, HashMaps)
+	public static final long EMBEDDING_PER_VERTEX = 120;
+	public static final long EMBEDDING_PER_EDGE   = 430;
+	// undo log of an in-place triangulation per added edge (recorded links of the changed vertices, edges and faces)
+	public static final long JOURNAL_PER_EDGE     = 420;
+	
+	private final long[] perVertex = new long[EnumPhase.values().length];
+	private final long[] perEdge   = new long[EnumPhase.values().length];
+	
+	
+	/**
+	 * Creates a new estimator with the default coefficients.
+	 */
+	public FootprintEstimator() {
+		// temporary memory of the phases
+		setCoefficients(EnumPhase.ORIENTATION,      64,  16);	// recursion of DFS1
+		setCoefficients(EnumPhase.TESTING,          64, 120);	// conflict pairs, sorting of the incident edges
+		setCoefficients(EnumPhase.EMBEDDING,        64, 100);	// copies of the incident edge lists in DFS3
+		setCoefficients(EnumPhase.EMBEDDER,        330, 165);	// vertex and edge maps of the LREmbedder
+		setCoefficients(EnumPhase.TRIANGULATION,     0,   0);	// see estimatePhase
+		setCoefficients(EnumPhase.CANONICAL_ORDER, 250,   0);	// per vertex of the triangulation
+		setCoefficients(EnumPhase.POSITIONING,     150,   0);	// per vertex of the triangulation
+	}
+	
+	/**
+	 * Sets the coefficients for the temporary memory of a phase.
+	 * @param phase		a phase
+	 * @param perVertex	bytes per vertex
+	 * @param perEdge	bytes per edge
+	 */
+	public void setCoefficients(EnumPhase phase, long perVertex, long perEdge) {
+		this.perVertex[phase.ordinal()] = perVertex;
+		this.perEdge[phase.ordinal()]   = perEdge;
+	}
+	
+	
+	/**
+	 * Returns the estimated size of a graph.
+	 * @param n number of vertices
+	 * @param m number of edges
+	 * @return  estimated size in bytes
+	 */
+	public long estimateGraph(long n, long m) {
+		return GRAPH_PER_VERTEX * n + GRAPH_PER_EDGE * m;
+	}
+	
+	/**
+	 * Returns the estimated size of the embeddings of all components of a graph.
+	 * @param n number of vertices
+	 * @param m number of edges
+	 * @return  estimated size in bytes
+	 */
+	public long estimateEmbedding(long n, long m) {
+		return EMBEDDING_PER_VERTEX * n + EMBEDDING_PER_EDGE * m;
+	}
+	
+	/**
+	 * Returns the estimated temporary memory of a phase.
+	 * For the drawing phases <code>n</code> and <code>m</code> are the sizes of the embedding, not of its triangulation.
+	 * @param phase a phase
+	 * @param n     number of vertices
+	 * @param m     number of edges
+	 * @return      estimated size in bytes
+	 */
+	public long estimatePhase(EnumPhase phase, long n, long m) {
+		if (phase == EnumPhase.TRIANGULATION || phase == EnumPhase.CANONICAL_ORDER || phase == EnumPhase.POSITIONING) {
+			long triangulationVertices = getTriangulationVertices(n);
+			long triangulationEdges    = 3 * triangulationVertices;
+			long size = perVertex[phase.ordinal()] * triangulationVertices + perEdge[phase.ordinal()] * triangulationEdges;
+			if (phase == EnumPhase.TRIANGULATION) {
+				// the embedding is triangulated in place: the added edges and faces and the journal to roll them back
+				long addedEdges = Math.max(0, triangulationEdges - 6 - m);
+				size += (EMBEDDING_PER_EDGE + JOURNAL_PER_EDGE) * addedEdges;
+			}
+			return size;
+		}
+		return perVertex[phase.ordinal()] * n + perEdge[phase.ordinal()] * m;
+	}
+	
+	/**
+	 * Returns the estimated peak of the heap memory that is needed to handle a graph, including the graph itself.
+	 * @param mode what is done with the graph
+	 * @param n    number of vertices
+	 * @param m    number of edges
+	 * @return     estimated peak in bytes
+	 */
+	public long estimatePeak(EnumRunMode mode, long n, long m) {
+		long retained = estimateGraph(n, m);
+		long peak     = retained + Math.max(estimatePhase(EnumPhase.ORIENTATION, n, m), estimatePhase(EnumPhase.TESTING, n, m));
+		if (mode == EnumRunMode.TEST_ONLY) {
+			return peak;
+		}
+		
+		peak      = Math.max(peak, retained + estimatePhase(EnumPhase.EMBEDDING, n, m));
+		retained += estimateEmbedding(n, m);
+		peak      = Math.max(peak, retained + estimatePhase(EnumPhase.EMBEDDER, n, m));
+		if (mode == EnumRunMode.EMBEDDING) {
+			return peak;
+		}
+		
+		// the triangulation lives until the positions are calculated
+		long triangulation = estimatePhase(EnumPhase.TRIANGULATION, n, m);
+		long drawing       = Math.max(estimatePhase(EnumPhase.CANONICAL_ORDER, n, m), estimatePhase(EnumPhase.POSITIONING, n, m));
+		return Math.max(peak, retained + triangulation + drawing);
+	}
+	
+	/**
+	 * Returns the estimated peak of the heap memory that is needed to handle a graph, including the graph itself.
+	 * @param mode  what is done with the graph
+	 * @param graph a graph
+	 * @return      estimated peak in bytes
+	 */
+	public long estimatePeak(EnumRunMode mode, Graph graph) {
+		return estimatePeak(mode, graph.getNumberOfVertices(), graph.getNumberOfEdges());
+	}
+	
+	
+	/**
+	 * Returns the number of vertices of the triangulation of a connected embedding:
+	 * dummy vertices are only added to embeddings with fewer than three vertices.
+	 * @param n number of vertices
+	 * @return  number of vertices of the triangulation
+	 */
+	private long getTriangulationVertices(long n) {
+		return Math.max(n, 3);
+	}
+}
@@ -0,0 +1,534 @@
+package planarityTest;
+
+import java.util.Arrays;
+
+import planarityTest.dataStructures.ImplicitGraph;
+
+/**
+ * Left-right planarity test on an {@link ImplicitGraph}. In contrast to {@link LRPlanarityTest}
+ * it only decides planarity (no embedding), does not change the graph, runs without recursion
+ * and keeps its whole state in primitive arrays indexed by vertex and edge ids.
+ * <p>
+ * The graph is only read through its adjacencies, so it does not have to be materialized.
+ * The test itself needs four ints per edge (nesting depth, reference edge, sorting buffer and
+ * sorted outgoing edges) and seven ints per vertex:
+ * <ul>
+ * <li>the lowpoint of an edge is half of its nesting depth,</li>
+ * <li>the lowpoint2 and the low point edge of a tree edge are stored at its target vertex,</li>
+ * <li>the source of an edge is only needed for sorting and is kept in the reference array until then,</li>
+ * <li>the target of a tree edge is kept in the reference array afterwards (a tree edge never gets a reference in the test),</li>
+ * <li>a return edge ends at u if and only if its lowpoint is the height of u, because its target is on the current DFS path.</li>
+ * </ul>
+ * The arrays are kept between two runs and only grow, so an instance can test many graphs of
+ * similar size without allocating. An instance must not be used by more than one thread at a time.
+ * @author tommy
+ *
+ */
+public class ImplicitLRPlanarityTest {
+
+	private static final int NONE = -1;
+
+	private ImplicitGraph graph;
+	private int components = 0;
+
+	// per vertex
+	private int[] height     = new int[0];
+	private int[] parentEdge = new int[0];
+	private int[] position   = new int[0];		// next adjacency position (DFS1) or next outgoing edge (DFS2)
+	private int[] lowpoint2  = new int[0];		// lowpoint2 of the parent edge (DFS1), low point edge of the parent edge (DFS2)
+	private int[] outStart   = new int[0];		// outgoing edges of v are outEdges[outStart[v]] to outEdges[outStart[v+1]-1]
+	private int[] frames     = new int[0];		// DFS stack (DFS1), buckets (sorting), pairs of vertex and stack bottom (DFS2)
+
+	// per edge
+	private int[] nestingDepth = new int[0];	// lowpoint until the edge is finished in DFS1
+	private int[] reference    = new int[0];	// source until sorting, then target of tree edges and reference of return edges
+	private int[] sorted       = new int[0];
+	private int[] outEdges     = new int[0];
+
+	// conflict pairs: four entries (left low, left high, right low, right high) per pair
+	private int[] pairs        = new int[16];
+	private int   pairCount    = 0;
+
+
+	/**
+	 * Tests the graph for planarity.
+	 * The graph has to be simple, that is, it must neither contain self-loops
+	 * nor more than one edge between each pair of vertices.
+	 * @param graph the graph
+	 * @return      true if and only if the graph is planar
+	 */
+	public boolean testPlanar(ImplicitGraph graph) {
+		this.graph = graph;
+		int n = graph.getNumberOfVertices();
+		int m = graph.getNumberOfEdges();
+
+		components = 0;
+		pairCount  = 0;
+
+		if (n <= 2) {
+			// a graph with at most 2 vertices is planar
+			components = n;
+			return true;
+		}
+		if (m > 3*n-6) {
+			// a planar graph can have at most (3 * #vertices - 6) edges
+			return false;
+		}
+
+		ensureCapacity(n, m);
+
+		orient(n, m);
+		sortByNestingDepth(n, m);
+
+		for (int s=0; s<n; s++) {
+			if (parentEdge[s] == NONE && !test(s)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of components of the last tested graph.
+	 * The value is only valid, if the last graph was found to be planar.
+	 * @return number of components
+	 */
+	public int getNumberOfComponents() {
+		return components;
+	}
+
+	/**
+	 * Releases the arrays. The next test allocates them again.
+	 */
+	public void trimToSize() {
+		height = parentEdge = position = lowpoint2 = outStart = frames = new int[0];
+		nestingDepth = reference = sorted = outEdges = new int[0];
+		pairs = new int[16];
+		graph = null;
+	}
+
+	/**
+	 * Returns the memory of a test of a graph with <code>n</code> vertices and <code>m</code> edges
+	 * (without the graph and without the conflict pairs, which are usually few).
+	 * @param n number of vertices
+	 * @param m number of edges
+	 * @return  memory in bytes
+	 */
+	public static long estimateMemory(long n, long m) {
+		return 4L * (7*n + 4*m);
+	}
+
+
+	/**
+	 * Grows the arrays, so that a graph with <code>n</code> vertices and <code>m</code> edges fits.
+	 * @param n number of vertices
+	 * @param m number of edges
+	 */
+	private void ensureCapacity(int n, int m) {
+		if (height.length < n) {
+			int size = (int) Math.min(Integer.MAX_VALUE / 2 - 2, Math.max(n, height.length + height.length / 2L));
+			height     = null;	// allow the garbage collection of the old arrays before allocating
+			parentEdge = position = lowpoint2 = outStart = frames = null;
+			height     = new int[size];
+			parentEdge = new int[size];
+			position   = new int[size];
+			lowpoint2  = new int[size];
+			outStart   = new int[size+1];
+			frames     = new int[2*size+3];
+		}
+		if (nestingDepth.length < m) {
+			int size = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(m, nestingDepth.length + nestingDepth.length / 2L));
+			nestingDepth = reference = sorted = outEdges = null;
+			nestingDepth = new int[size];
+			reference    = new int[size];
+			sorted       = new int[size];
+			outEdges     = new int[size];
+		}
+	}
+
+
+
+	/**
+	 * Orientation of the graph (DFS1) for all components.
+	 * @param n number of vertices
+	 * @param m number of edges
+	 */
+	private void orient(int n, int m) {
+		int[] dfsStack = frames;
+
+		Arrays.fill(height, 0, n, NONE);
+		Arrays.fill(position, 0, n, 0);
+		Arrays.fill(nestingDepth, 0, m, NONE);
+
+		for (int s=0; s<n; s++) {
+			if (height[s] != NONE) {
+				continue;
+			}
+			components++;
+			height[s]     = 0;
+			parentEdge[s] = NONE;
+
+			int top = 0;
+			dfsStack[top++] = s;
+			while (top > 0) {
+				int v = dfsStack[top-1];
+
+				if (position[v] == graph.getDegree(v)) {
+					// v is finished
+					top--;
+					int e = parentEdge[v];
+					if (e != NONE) {
+						int u = dfsStack[top-1];
+						int lp = nestingDepth[e];
+						nestingDepth[e] = 2 * lp + (lowpoint2[v] < height[u] ? 1 : 0);
+						updateParent(u, lp, lowpoint2[v]);
+					}
+					continue;
+				}
+
+				int i = position[v]++;
+				int e = graph.getEdgeId(v, i);
+				if (nestingDepth[e] != NONE) {
+					// already oriented
+					continue;
+				}
+
+				int w = graph.getNeighbor(v, i);
+				reference[e] = v;
+
+				if (height[w] == NONE) {
+					// we have a tree edge
+					nestingDepth[e] = height[v];
+					lowpoint2[w]    = height[v];
+					parentEdge[w]   = e;
+					height[w]       = height[v] + 1;
+					dfsStack[top++] = w;
+				}
+				else {
+					// we have a back edge, its lowpoint2 is the height of v, so it is not chordal
+					nestingDepth[e] = 2 * height[w];
+					updateParent(v, height[w], height[v]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Updates the lowpoints of the parent edge of <code>v</code> with a finished outgoing edge of <code>v</code>.
+	 * @param v  a vertex
+	 * @param lp lowpoint of the finished edge
+	 * @param lp2 lowpoint2 of the finished edge
+	 */
+	private void updateParent(int v, int lp, int lp2) {
+		int pe = parentEdge[v];
+		if (pe == NONE) {
+			return;
+		}
+		if (lp < nestingDepth[pe]) {
+			lowpoint2[v]     = Math.min(nestingDepth[pe], lp2);
+			nestingDepth[pe] = lp;
+		}
+		else if (lp > nestingDepth[pe]) {
+			lowpoint2[v] = Math.min(lowpoint2[v], lp);
+		}
+		else {
+			// lowpoints of edge and parent edge are the same
+			lowpoint2[v] = Math.min(lowpoint2[v], lp2);
+		}
+	}
+
+
+	/**
+	 * Groups the outgoing edges by their source and sorts them by nesting depth (two counting sorts).
+	 * Afterwards the reference array holds the targets of the tree edges.
+	 * @param n number of vertices
+	 * @param m number of edges
+	 */
+	private void sortByNestingDepth(int n, int m) {
+		int[] bucket = frames;
+		int[] source = reference;
+
+		// nesting depths are at most 2 * n + 1
+		int keys = 2*n + 2;
+		Arrays.fill(bucket, 0, keys+1, 0);
+		for (int e=0; e<m; e++) {
+			bucket[nestingDepth[e] + 1]++;
+		}
+		for (int k=0; k<keys; k++) {
+			bucket[k+1] += bucket[k];
+		}
+		for (int e=0; e<m; e++) {
+			sorted[bucket[nestingDepth[e]]++] = e;
+		}
+
+		Arrays.fill(outStart, 0, n+1, 0);
+		for (int e=0; e<m; e++) {
+			outStart[source[e] + 1]++;
+		}
+		for (int v=0; v<n; v++) {
+			outStart[v+1] += outStart[v];
+			position[v]    = outStart[v];
+		}
+		for (int k=0; k<m; k++) {
+			int e = sorted[k];
+			outEdges[position[source[e]]++] = e;
+		}
+
+		Arrays.fill(reference, 0, m, NONE);
+		for (int w=0; w<n; w++) {
+			if (parentEdge[w] != NONE) {
+				reference[parentEdge[w]] = w;
+			}
+		}
+	}
+
+
+
+	/**
+	 * Testing for planarity (DFS2) of the component of root <code>s</code>.
+	 * @param s root
+	 * @return  true if and only if the component is planar
+	 */
+	private boolean test(int s) {
+		int top = 0;
+		position[s] = outStart[s];
+		frames[top] = s;
+		top += 2;
+
+		while (top > 0) {
+			int v = frames[top-2];
+
+			if (position[v] < outStart[v+1]) {
+				int e = outEdges[position[v]];
+				frames[top-1] = pairCount;	// stack bottom of e
+
+				int w = reference[e];
+				if (w != NONE) {
+					// tree edge: descend, the edge is integrated when w is finished
+					position[w] = outStart[w];
+					frames[top] = w;
+					top += 2;
+					continue;
+				}
+
+				// back edge
+				push(NONE, NONE, e, e);	// put back edge first to the right
+				if (!integrate(v, e, e, frames[top-1])) {
+					return false;
+				}
+				position[v]++;
+			}
+			else {
+				// v is finished, remove back edges returning to parent
+				top -= 2;
+				int pe = parentEdge[v];
+				if (pe != NONE) {
+					int u = frames[top-2];
+					trimBack(u);
+					if (!integrate(u, pe, lowpoint2[v], frames[top-1])) {
+						return false;
+					}
+					position[u]++;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the lowpoint of an edge.
+	 */
+	private int lowpoint(int e) {
+		return nestingDepth[e] >> 1;
+	}
+
+	/**
+	 * Integrates the return edges of an outgoing edge of <code>v</code>.
+	 * @param v            a vertex
+	 * @param e            the current outgoing edge of v
+	 * @param lowPointEdge the low point edge of e
+	 * @param stackBottom  size of the conflict pair stack when e was started
+	 * @return             true if no contradiction to planarity was found
+	 */
+	private boolean integrate(int v, int e, int lowPointEdge, int stackBottom) {
+		if (lowpoint(e) < height[v]) {
+			// edge has return edge, that is, there must be a parent edge
+			if (e == outEdges[outStart[v]]) {
+				lowpoint2[v] = lowPointEdge;
+			}
+			else {
+				return addConstraints(v, e, stackBottom);
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Add constraints for <code>edge</code>.
+	 * @param v           source of the edge
+	 * @param edge        the current edge
+	 * @param stackBottom size of the conflict pair stack when the edge was started
+	 * @return            true if no contradiction to planarity was found
+	 */
+	private boolean addConstraints(int v, int edge, int stackBottom) {
+		int parentLowpoint = lowpoint(parentEdge[v]);
+		int pLl = NONE, pLh = NONE, pRl = NONE, pRh = NONE;
+
+		while (pairCount > stackBottom) {
+			int q = --pairCount * 4;
+			int qLl = pairs[q], qLh = pairs[q+1], qRl = pairs[q+2], qRh = pairs[q+3];
+
+			if (qLl != NONE || qLh != NONE) {
+				// swap intervals
+				int l = qLl; qLl = qRl; qRl = l;
+				int h = qLh; qLh = qRh; qRh = h;
+			}
+			if (qLl != NONE || qLh != NONE) {
+				// none of the intervals in the conflict pair are empty -> conflict to planarity
+				return false;
+			}
+
+			// left interval is empty and right should not be empty
+			if (lowpoint(qRl) > parentLowpoint) {
+				// merge intervals
+				if (pRl == NONE && pRh == NONE) {
+					// topmost interval
+					pRh = qRh;
+				}
+				else {
+					reference[pRl] = qRh;
+				}
+				pRl = qRl;
+			}
+			else {
+				// align
+				reference[qRl] = lowpoint2[v];
+			}
+		}
+
+		// merge conflicting return edges of already considered outgoing edges of current vertex
+		// into left interval of conflict pair
+		while (pairCount > 0) {
+			int q = (pairCount-1) * 4;
+			int qLl = pairs[q], qLh = pairs[q+1], qRl = pairs[q+2], qRh = pairs[q+3];
+			if (!conflicting(qLl, qLh, edge) && !conflicting(qRl, qRh, edge)) {
+				break;
+			}
+			pairCount--;
+
+			if (conflicting(qRl, qRh, edge)) {
+				// swap intervals
+				int l = qLl; qLl = qRl; qRl = l;
+				int h = qLh; qLh = qRh; qRh = h;
+			}
+			if (conflicting(qRl, qRh, edge)) {
+				return false;
+			}
+
+			// merge interval below lowpoint of edge into right side of p
+			if (pRl != NONE) {
+				reference[pRl] = qRh;
+			}
+			if (qRl != NONE) {
+				pRl = qRl;
+			}
+
+			if (pLl == NONE && pLh == NONE) {
+				// topmost interval
+				pLh = qLh;
+			}
+			else {
+				reference[pLl] = qLh;
+			}
+			pLl = qLl;
+		}
+
+		if (pLl != NONE || pLh != NONE || pRl != NONE || pRh != NONE) {
+			push(pLl, pLh, pRl, pRh);
+		}
+		return true;
+	}
+
+	/**
+	 * Decides if an edge interval is in conflict with an edge.
+	 * @param low  low edge of the interval
+	 * @param high high edge of the interval
+	 * @param e    edge
+	 * @return     true if and only the interval is in conflict with the edge
+	 */
+	private boolean conflicting(int low, int high, int e) {
+		return (low != NONE || high != NONE) && lowpoint(high) > lowpoint(e);
+	}
+
+
+	/**
+	 * Remove return edges that end above vertex u.
+	 * @param u current vertex
+	 */
+	private void trimBack(int u) {
+		int h = height[u];
+
+		// drop entire conflict pairs
+		while (pairCount > 0 && lowest((pairCount-1) * 4) == h) {
+			pairCount--;
+		}
+
+		if (pairCount > 0) {
+			// one more conflict pair to consider
+			int p = (pairCount-1) * 4;
+			int pLl = pairs[p], pLh = pairs[p+1], pRl = pairs[p+2], pRh = pairs[p+3];
+
+			// trim left interval
+			while (pLh != NONE && lowpoint(pLh) == h) {
+				pLh = reference[pLh];
+			}
+			if (pLh == NONE && pLl != NONE) {
+				// just emptied
+				reference[pLl] = pRl;
+				pLl = NONE;
+			}
+
+			// trim right interval
+			while (pRh != NONE && lowpoint(pRh) == h) {
+				pRh = reference[pRh];
+			}
+			if (pRh == NONE && pRl != NONE) {
+				// just emptied
+				reference[pRl] = pLl;
+				pRl = NONE;
+			}
+
+			pairs[p] = pLl; pairs[p+1] = pLh; pairs[p+2] = pRl; pairs[p+3] = pRh;
+		}
+	}
+
+	/**
+	 * Returns the lowest return point in a conflict pair.
+	 * @param p offset of the conflict pair
+	 * @return  the lowest return point
+	 */
+	private int lowest(int p) {
+		if (pairs[p] == NONE && pairs[p+1] == NONE) {
+			return lowpoint(pairs[p+2]);
+		}
+		if (pairs[p+2] == NONE && pairs[p+3] == NONE) {
+			return lowpoint(pairs[p]);
+		}
+		return Math.min(lowpoint(pairs[p]), lowpoint(pairs[p+2]));
+	}
+
+	/**
+	 * Pushes a conflict pair on the stack.
+	 */
+	private void push(int leftLow, int leftHigh, int rightLow, int rightHigh) {
+		if ((pairCount+1) * 4 > pairs.length) {
+			pairs = Arrays.copyOf(pairs, 2 * pairs.length);
+		}
+		int p = pairCount++ * 4;
+		pairs[p]   = leftLow;
+		pairs[p+1] = leftHigh;
+		pairs[p+2] = rightLow;
+		pairs[p+3] = rightHigh;
+	}
+}
@@ -1,75 +1,115 @@
 package planarityTest;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+
+import alg.progress.AbortException;
+import alg.progress.EnumPhase;
+import alg.progress.ProgressMonitor;
+import embedding.CompactEmbedding;
 import embedding.Embedding;
 import embedding.EmbeddingEdge;
 import embedding.EmbeddingFace;
 import embedding.EmbeddingVertex;
+import embedding.FaceLabeling;
 import planarityTest.dataStructures.Edge;
 import planarityTest.dataStructures.Graph;
-import planarityTest.dataStructures.IncidentEdgeList;
 import planarityTest.dataStructures.Vertex;
 
+/**
+ * Translates the rotation system of the embedding phase into an {@link Embedding}.
+ * The half-edges are addressed by the indices of the edges in the graph (see {@link Edge#getIndex()}):
+ * the half-edge of edge i leaving its source has the position 2i, its twin the position 2i+1.
+ * One embedder can be used for all components of a graph; its arrays are allocated once.
+ * @author tommy
+ *
+ */
 public class LREmbedder {
 
 	private Graph     graph;
 	private Embedding emb;
 	
+	private ProgressMonitor monitor = new ProgressMonitor();
+	
 
 	private EmbeddingFace outerFace;
 	
-	private List<Vertex> vertices = new LinkedList<Vertex>();
-	private List<EmbeddingEdge> backEdges = new LinkedList<EmbeddingEdge>();
-	private Map<Vertex,EmbeddingVertex> vMap = new HashMap<Vertex,EmbeddingVertex>();
+	private Vertex[]          vertices;		// vertices of the current component in DFS order
+	private int               vertexCount;
+	private EmbeddingVertex[] vMap;			// indexed by vertex index
+	private EmbeddingEdge[]   halfEdges;	// indexed by half-edge position
+	private EmbeddingEdge[]   backEdges;	// half-edges of the return edges leaving their source
+	private int               backEdgeCount;
 	
-	private Map<Vertex, Map<Edge, EmbeddingEdge>> eOutMap = new HashMap<Vertex, Map<Edge, EmbeddingEdge>>();
-	private Map<Vertex, Map<Edge, EmbeddingEdge>> eInMap = new HashMap<Vertex, Map<Edge, EmbeddingEdge>>();
+	private int[] vIndex;					// index in the compact embedding, indexed by vertex index
+	private int[] hIndex;					// index in the compact embedding, indexed by half-edge position
 
 	
 	
 	public LREmbedder(Graph graph) {
 		this.graph = graph;
 	}
+	
+	/**
+	 * Sets the monitor that receives the progress and that may abort the calculation.
+	 * @param monitor progress monitor
+	 */
+	public void setProgressMonitor(ProgressMonitor monitor) {
+		this.monitor = monitor;
+	}
 
 	
 	
-	public Embedding getPlanarEmbedding(Vertex root) {
+	/**
+	 * Translates the rotation system of the component of <code>root</code> into an embedding.
+	 * The vertices get their ids in DFS order, the half-edges in the order of the rotation system,
+	 * the outer face gets the id 1 and every return edge one further face.
+	 * @param root root of a DFS tree of the embedding phase
+	 * @return     embedding of the component
+	 * @throws AbortException if the progress monitor aborts the calculation
+	 */
+	public Embedding getPlanarEmbedding(Vertex root) throws AbortException {
+		
+		if (vMap == null || vMap.length < graph.getNumberOfVertices() || halfEdges.length < 2 * graph.getNumberOfEdges()) {
+			vertices  = new Vertex[graph.getNumberOfVertices()];
+			vMap      = new EmbeddingVertex[graph.getNumberOfVertices()];
+			halfEdges = new EmbeddingEdge[2 * graph.getNumberOfEdges()];
+			backEdges = new EmbeddingEdge[Math.max(graph.getNumberOfEdges(), 1)];
+		}
 		
 		emb = new Embedding();
 		outerFace = emb.createFace();
 		
 		// determine vertices of this component
-		vertices.add(root);
-		dfsVertices(root);
+		collectVertices(root);
 		
-		// create an embedding vertex for every vertex of the component
-		for (Vertex v : vertices) {
-			EmbeddingVertex ev = emb.createVertex(v.getLabel());
-			vMap.put(v, ev);
+		long adjacencies = 0;
+		for (int i=0; i<vertexCount; i++) {
+			adjacencies += graph.getAdjacencyList(vertices[i]).getDegree();
 		}
-
-		// init hash maps
-		for (Vertex v : vertices) {
-			eOutMap.put(v, new HashMap<Edge, EmbeddingEdge>());
-			eInMap.put(v, new HashMap<Edge, EmbeddingEdge>());
+		monitor.startPhase(EnumPhase.EMBEDDER, 2 * adjacencies);
+		
+		// create an embedding vertex for every vertex of the component
+		for (int i=0; i<vertexCount; i++) {
+			Vertex v = vertices[i];
+			vMap[v.getIndex()] = emb.createVertex(v.getLabel());
 		}
 		
 		
-		// create edges
-		for (Vertex v : vertices) {
-			EmbeddingVertex ev = vMap.get(v);
+		// create edges and one face for every return edge
+		backEdgeCount = 0;
+		for (int i=0; i<vertexCount; i++) {
+			Vertex          v  = vertices[i];
+			EmbeddingVertex ev = vMap[v.getIndex()];
 			
 			for (Edge e : graph.getAdjacencyList(v)) {
-				Vertex w = e.getOther(v);
+				monitor.worked();
+				boolean isOutEdge = (e.getSource() == v);
 				
-				boolean isOutEdge = (e.getSource().getId() == v.getId());
-				EmbeddingEdge ee = emb.createEdge(vMap.get(v), vMap.get(w));
-				ee.setFace(outerFace);
-				eOutMap.get(v).put(e, ee);
-				eInMap.get(w).put(e, ee);
+				EmbeddingEdge ee = emb.createEdge(ev, vMap[e.getOther(v).getIndex()]);
+				halfEdges[position(e, isOutEdge)] = ee;
 				ev.setOutEdge(ee);
 				
 				if (isOutEdge && !e.isTreeEdge()) {
@@ -78,121 +118,313 @@ public class LREmbedder {
 					EmbeddingFace ef = emb.createFace();
 					ee.setFace(ef);
 					ef.setIncidentEdge(ee);
-					backEdges.add(ee);
+					backEdges[backEdgeCount++] = ee;
 				}
 			}
 		}
 		
 		
-		// connect twin edges
-		for (Vertex v : vertices) {	
-			for (Edge e : graph.getAdjacencyList(v)) {
-				EmbeddingEdge ee = eOutMap.get(v).get(e);
-				EmbeddingEdge eeTwin = eInMap.get(v).get(e);
-				ee.setTwin(eeTwin);
-				eeTwin.setTwin(ee);
-			}
-		}
-		
-		
-		// order edges
-		for (Vertex v : vertices) {
-			
-			//System.out.println("\n vertex: " + v.getId());
+		// connect twin edges and order edges
+		for (int i=0; i<vertexCount; i++) {
+			Vertex v = vertices[i];
 			
 			EmbeddingEdge eFirstOutEdge = null;
-			EmbeddingEdge ePrevInEdge = null;
+			EmbeddingEdge ePrevInEdge   = null;
 			
 			for (Edge e : graph.getAdjacencyList(v)) {
-				
-				//System.out.print(e.getString() + " ");
+				monitor.worked();
+				int           pos      = position(e, e.getSource() == v);
+				EmbeddingEdge eOutEdge = halfEdges[pos];
+				EmbeddingEdge eInEdge  = halfEdges[pos ^ 1];
+				eOutEdge.setTwin(eInEdge);
 				
 				if (eFirstOutEdge == null) {
-					eFirstOutEdge = eOutMap.get(v).get(e);
+					eFirstOutEdge = eOutEdge;
 				}
-				
-				if (ePrevInEdge != null) {
-					EmbeddingEdge eOutEdge = eOutMap.get(v).get(e);
+				else {
 					ePrevInEdge.setNext(eOutEdge);
 					eOutEdge.setPrevious(ePrevInEdge);
 				}
-			
-				ePrevInEdge = eInMap.get(v).get(e);
+				ePrevInEdge = eInEdge;
 			}
 			
 			if (eFirstOutEdge != null) {
-				
-				//System.out.print("if case: (" + eFirstOutEdge.getSource().getName() + "," + eFirstOutEdge.getTarget().getName() + ")");
-				//System.out.print(" prev in: (" + ePrevInEdge.getSource().getName() + "," + ePrevInEdge.getTarget().getName() + ")");
-				
 				ePrevInEdge.setNext(eFirstOutEdge);
 				eFirstOutEdge.setPrevious(ePrevInEdge);
 			}
-			else {
-				System.err.println("Something went wrong.");
+		}
+		
+		
+		// trace the face of every return edge
+		// a face whose boundary has already been traced for an earlier return edge is kept as spare face
+		Deque<EmbeddingFace> spareFaces = new ArrayDeque<EmbeddingFace>();
+		for (int i=0; i<backEdgeCount; i++) {
+			EmbeddingEdge start = backEdges[i];
+			EmbeddingFace face  = start.getFace();
+			if (face.getIncidentEdge() != start) {
+				spareFaces.add(emb.getFace(i + 2));		// face of the i-th return edge
+				continue;
+			}
+			for (EmbeddingEdge ee = start.getNext(); ee != start; ee = ee.getNext()) {
+				monitor.tick();
+				ee.setFace(face);
+			}
+		}
+		
+		// set outer face
+		for (int i=0; i<backEdgeCount; i++) {
+			EmbeddingEdge eeTwin = backEdges[i].getTwin();
+			if (eeTwin.getFace() == null) {
+				outerFace.setIncidentEdge(eeTwin);
 			}
 		}
 		
-		//System.out.println("back edges: " + backEdges.size());
-		//int counter = 0;
+		if (backEdgeCount == 0) {
+			// get one edge
+			for (int i=vertexCount-1; i>=0 && outerFace.getIncidentEdge() == null; i--) {
+				outerFace.setIncidentEdge(vMap[vertices[i].getIndex()].getOutEdge());
+			}
+		}
 		
-		// propagate faces
-		for (EmbeddingEdge ee : backEdges) {
-			EmbeddingFace face = ee.getFace();
-			int startId = ee.getId();
+		// the remaining boundaries belong to the outer face and to the spare faces
+		if (outerFace.getIncidentEdge() != null) {
+			traceFace(outerFace.getIncidentEdge(), outerFace);
+		}
+		for (int i=0; i<vertexCount && !spareFaces.isEmpty(); i++) {
+			Vertex v = vertices[i];
+			for (Edge e : graph.getAdjacencyList(v)) {
+				EmbeddingEdge ee = halfEdges[position(e, e.getSource() == v)];
+				if (ee.getFace() == null) {
+					EmbeddingFace face = spareFaces.poll();
+					face.setIncidentEdge(ee);
+					traceFace(ee, face);
+				}
+			}
+		}
+		
+		Embedding result = emb;
+		release();
+		monitor.finishPhase();
+		return result;
+	}
+	
+	
+	/**
+	 * Translates the rotation system of the component of <code>root</code> into a {@link CompactEmbedding}.
+	 * Vertices, half-edges and faces are numbered as in {@link #getPlanarEmbedding(Vertex)},
+	 * so <code>getCompactEmbedding(root).toEmbedding()</code> equals <code>getPlanarEmbedding(root)</code>.
+	 * @param root root of a DFS tree of the embedding phase
+	 * @return     compact embedding of the component
+	 * @throws AbortException if the progress monitor aborts the calculation
+	 */
+	public CompactEmbedding getCompactEmbedding(Vertex root) throws AbortException {
+		
+		if (vIndex == null || vIndex.length < graph.getNumberOfVertices() || hIndex.length < 2 * graph.getNumberOfEdges()) {
+			vIndex = new int[graph.getNumberOfVertices()];
+			hIndex = new int[2 * graph.getNumberOfEdges()];
+		}
+		if (vertices == null || vertices.length < graph.getNumberOfVertices()) {
+			vertices = new Vertex[graph.getNumberOfVertices()];
+		}
+		
+		// determine vertices of this component
+		collectVertices(root);
+		
+		long adjacencies = 0;
+		for (int i=0; i<vertexCount; i++) {
+			vIndex[vertices[i].getIndex()] = i;
+			adjacencies += graph.getAdjacencyList(vertices[i]).getDegree();
+		}
+		monitor.startPhase(EnumPhase.EMBEDDER, 2 * adjacencies);
+		
+		int   halfEdgeCount = (int) adjacencies;
+		int[] source        = new int[halfEdgeCount];
+		int[] twin          = new int[halfEdgeCount];
+		int[] next          = new int[halfEdgeCount];
+		int[] face          = new int[halfEdgeCount];
+		int[] outEdge       = new int[vertexCount];
+		int[] backEdge      = new int[halfEdgeCount / 2 + 1];
+		int   faceCount     = 1;	// the outer face has the index 0
+		
+		// number the half-edges, one face for every return edge
+		int h = 0;
+		for (int i=0; i<vertexCount; i++) {
+			Vertex v = vertices[i];
+			outEdge[i] = CompactEmbedding.NONE;
 			
-			/*
-			if (ee.getNext() == null) {
-				System.out.println("\n(" + ee.getSource().getName() + "," + ee.getTarget().getName() + ")");
+			for (Edge e : graph.getAdjacencyList(v)) {
+				monitor.worked();
+				boolean isOutEdge = (e.getSource() == v);
+				
+				hIndex[position(e, isOutEdge)] = h;
+				source[h]  = i;
+				outEdge[i] = h;
+				
+				if (isOutEdge && !e.isTreeEdge()) {
+					backEdge[faceCount++] = h;
+				}
+				h++;
 			}
-			*/
+		}
+		
+		// connect twin edges and order edges
+		for (int i=0; i<vertexCount; i++) {
+			Vertex v = vertices[i];
 			
-			//counter++;
-			//String str = "counter: " + counter + " " + ee.toString() + " - ";
+			int firstOutEdge = CompactEmbedding.NONE;
+			int prevInEdge   = CompactEmbedding.NONE;
 			
-			while (ee.getNext().getId() != startId) {
-				ee = ee.getNext();
-				ee.setFace(face);
+			for (Edge e : graph.getAdjacencyList(v)) {
+				monitor.worked();
+				int pos      = position(e, e.getSource() == v);
+				int eOutEdge = hIndex[pos];
+				int eInEdge  = hIndex[pos ^ 1];
+				twin[eOutEdge] = eInEdge;
 				
-				//str += ee.toString() + "|f:" + face.getId() + " ";
+				if (firstOutEdge == CompactEmbedding.NONE) {
+					firstOutEdge = eOutEdge;
+				}
+				else {
+					next[prevInEdge] = eOutEdge;
+				}
+				prevInEdge = eInEdge;
 			}
 			
-			//System.out.println(str);
+			if (firstOutEdge != CompactEmbedding.NONE) {
+				next[prevInEdge] = firstOutEdge;
+			}
+		}
+		
+		// label the boundaries (in parallel for large components) and number them as in getPlanarEmbedding:
+		// the face of every return edge, unless its boundary belongs to an earlier return edge (spare face)
+		monitor.check();
+		FaceLabeling labeling       = FaceLabeling.of(next);
+		int[]        faceOfLabel    = new int[labeling.getNumberOfFaces()];
+		int[]        spareFaces     = new int[faceCount];
+		int          spareFaceCount = 0;
+		Arrays.fill(faceOfLabel, CompactEmbedding.NONE);
+		for (int f=1; f<faceCount; f++) {
+			int l = labeling.getFace(backEdge[f]);
+			if (faceOfLabel[l] == CompactEmbedding.NONE) {
+				faceOfLabel[l] = f;
+			}
+			else {
+				spareFaces[spareFaceCount++] = f;
+			}
 		}
 		
 		// set outer face
-		for (EmbeddingEdge ee : backEdges) {
-			EmbeddingEdge eeTwin = ee.getTwin();
-			if (eeTwin.getFace().getId() == outerFace.getId()) {
-				outerFace.setIncidentEdge(eeTwin);
+		backEdge[0] = CompactEmbedding.NONE;
+		for (int f=1; f<faceCount; f++) {
+			if (faceOfLabel[labeling.getFace(twin[backEdge[f]])] == CompactEmbedding.NONE) {
+				backEdge[0] = twin[backEdge[f]];
 			}
 		}
+		for (int i=vertexCount-1; i>=0 && faceCount == 1 && backEdge[0] == CompactEmbedding.NONE; i--) {
+			backEdge[0] = outEdge[i];
+		}
+		if (backEdge[0] != CompactEmbedding.NONE) {
+			faceOfLabel[labeling.getFace(backEdge[0])] = 0;
+		}
 		
-		if (backEdges.size() == 0) {
-			
-			// get one edge
-			for (Vertex v : vertices) {
-				EmbeddingVertex ev = vMap.get(v);
-				EmbeddingEdge ee = ev.getOutEdge();
-				if (ee != null) {
-					outerFace.setIncidentEdge(ee);
-				}
+		// the remaining boundaries belong to the spare faces, in the order of their first half-edges
+		for (int l=0, k=0; l<faceOfLabel.length && k<spareFaceCount; l++) {
+			if (faceOfLabel[l] == CompactEmbedding.NONE) {
+				faceOfLabel[l]            = spareFaces[k];
+				backEdge[spareFaces[k++]] = labeling.getIncidentEdge(l);
 			}
 		}
+		for (int ee=0; ee<halfEdgeCount; ee++) {
+			face[ee] = faceOfLabel[labeling.getFace(ee)];
+		}
 		
-		return emb;
+		CompactEmbedding result = new CompactEmbedding(vertexCount, faceCount, source, twin, next, face,
+				outEdge, Arrays.copyOf(backEdge, faceCount));
+		for (int i=0; i<vertexCount; i++) {
+			result.setVertexName(i, vertices[i].getLabel());
+			vertices[i] = null;
+		}
+		vertexCount = 0;
+		monitor.finishPhase();
+		return result;
+	}
+	
+	
+	/**
+	 * Assigns a face to all half-edges on the boundary that starts with <code>start</code>.
+	 * @param start first half-edge of the boundary
+	 * @param face  the face
+	 * @throws AbortException if the progress monitor aborts the calculation
+	 */
+	private void traceFace(EmbeddingEdge start, EmbeddingFace face) throws AbortException {
+		EmbeddingEdge ee = start;
+		do {
+			monitor.tick();
+			ee.setFace(face);
+			ee = ee.getNext();
+		} while (ee != start);
 	}
 	
+	/**
+	 * Returns the position of a half-edge of an edge.
+	 * @param e         an edge
+	 * @param fromSource true for the half-edge leaving the source of e
+	 * @return          position in {@link #halfEdges}
+	 */
+	private static int position(Edge e, boolean fromSource) {
+		return 2 * e.getIndex() + (fromSource ? 0 : 1);
+	}
 	
-	private void dfsVertices(Vertex v) {
-		IncidentEdgeList adjList = graph.getAdjacencyList(v);
-		for (Edge edge : adjList) {
-			if (edge.isTreeEdge() && edge.getSource().equals(v)) {
+	/**
+	 * Collects the vertices of the component of <code>root</code> in DFS order (without recursion).
+	 * @param root root of a DFS tree
+	 */
+	private void collectVertices(Vertex root) {
+		vertexCount = 0;
+		vertices[vertexCount++] = root;
+		
+		Deque<Vertex>         path      = new ArrayDeque<Vertex>();
+		Deque<Iterator<Edge>> iterators = new ArrayDeque<Iterator<Edge>>();
+		path.push(root);
+		iterators.push(graph.getAdjacencyList(root).iterator());
+		
+		while (!iterators.isEmpty()) {
+			Iterator<Edge> it = iterators.peek();
+			Vertex         v  = path.peek();
+			if (!it.hasNext()) {
+				iterators.pop();
+				path.pop();
+				continue;
+			}
+			Edge edge = it.next();
+			if (edge.isTreeEdge() && edge.getSource() == v) {
 				Vertex w = edge.getTarget();
-				vertices.add(w);
-				dfsVertices(w);
+				vertices[vertexCount++] = w;
+				path.push(w);
+				iterators.push(graph.getAdjacencyList(w).iterator());
 			}
 		}
 	}
 	
+	/**
+	 * Removes the references to the finished embedding, so that it is not kept alive by this embedder.
+	 */
+	private void release() {
+		for (int i=0; i<vertexCount; i++) {
+			Vertex v = vertices[i];
+			for (Edge e : graph.getAdjacencyList(v)) {
+				halfEdges[position(e, e.getSource() == v)] = null;
+			}
+			vMap[v.getIndex()] = null;
+			vertices[i]        = null;
+		}
+		for (int i=0; i<backEdgeCount; i++) {
+			backEdges[i] = null;
+		}
+		vertexCount   = 0;
+		backEdgeCount = 0;
+		emb           = null;
+		outerFace     = null;
+	}
+	
 }
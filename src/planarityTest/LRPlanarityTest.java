@@ -1,10 +1,15 @@
 package planarityTest;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Stack;
 
-import drawing.DrawingPositioner;
+import alg.progress.AbortException;
+import alg.progress.EnumAbortReason;
+import alg.progress.EnumPhase;
+import alg.progress.ProgressMonitor;
 import embedding.Embedding;
 import planarityTest.dataStructures.ConflictPair;
 import planarityTest.dataStructures.Edge;
@@ -21,6 +26,19 @@ public class LRPlanarityTest {
 	
 	private List<Vertex> roots = new LinkedList<Vertex>();
 	
+	private ProgressMonitor monitor     = new ProgressMonitor();
+	private EnumAbortReason abortReason = null;
+	
+	private boolean              analyzeConnectivity = false;
+	private ConnectivityAnalysis connectivity        = null;
+	
+	private boolean                  wasEmbeddingPhaseRun = false;
+	private RotationSystem           rotationSystem       = null;
+	private List<ComponentEmbedding> components           = null;
+	
+	private RotationSink rotationSink   = null;		// receives the rotations during DFS3
+	private int[]        rotationBuffer = null;
+	
 	
 	
 	/**
@@ -52,13 +70,63 @@ public class LRPlanarityTest {
 		if (!wasTestRun) {
 			System.err.println("Warning! Run planarity test first. Until then this value is not valid.");
 		}
+		if (abortReason != null) {
+			System.err.println("Warning! The computation was aborted (" + abortReason.getString() + "). This value is not valid.");
+		}
 		return isPlanar;
 	}
 	
+	/**
+	 * Sets the monitor that receives the progress of the test and of the embedding
+	 * and that is used to cancel them or to enforce a deadline.
+	 * @param monitor progress monitor
+	 */
+	public void setProgressMonitor(ProgressMonitor monitor) {
+		this.monitor = monitor;
+	}
+	
+	/**
+	 * Sets if bridges, cut vertices and 2-edge-connected components should be determined
+	 * during the orientation phase. Must be set before the test is run.
+	 * @param analyzeConnectivity true if the analysis should be done
+	 */
+	public void setConnectivityAnalysis(boolean analyzeConnectivity) {
+		this.analyzeConnectivity = analyzeConnectivity;
+	}
+	
+	/**
+	 * Returns the bridges, cut vertices and 2-edge-connected components of the graph.
+	 * They are only determined if {@link #setConnectivityAnalysis(boolean)} was activated before the test.
+	 * @return the analysis or null, if it was not activated or the test was aborted
+	 */
+	public ConnectivityAnalysis getConnectivityAnalysis() {
+		if (!wasTestRun) {
+			System.err.println("Warning! Run planarity test first. Until then there is no analysis.");
+		}
+		return abortReason == null ? connectivity : null;
+	}
+	
+	/**
+	 * Returns if the test or the calculation of the embedding was aborted.
+	 * @return true if and only if a computation was canceled, exceeded its deadline or was left unfinished by a failing sink
+	 */
+	public boolean wasAborted() {
+		return abortReason != null;
+	}
+	
+	/**
+	 * Returns why the test or the calculation of the embedding was aborted.
+	 * @return reason of the abort or null, if nothing was aborted
+	 */
+	public EnumAbortReason getAbortReason() {
+		return abortReason;
+	}
+	
 	
 	
 	/**
 	 * Tests the graph for planarity.
+	 * If the progress monitor cancels the test, it is stopped and {@link #getAbortReason()} tells why.
 	 */
 	public void testPlanar() {
 
@@ -70,27 +138,44 @@ public class LRPlanarityTest {
 			wasTestRun = true;
 		}
 		
+		try {
+			runTest();
+		} catch (AbortException e) {
+			abortReason = e.getReason();
+		}
+	}
+	
+	/**
+	 * Runs the orientation and the testing phase.
+	 * @throws AbortException if the progress monitor aborts the test
+	 */
+	private void runTest() throws AbortException {
+		
+		if (analyzeConnectivity) {
+			connectivity = new ConnectivityAnalysis(graph.getNumberOfVertices(), graph.getNumberOfEdges());
+		}
+		
 		if (graph.getNumberOfVertices() <= 2) {
 			// a graph with at most 2 vertices is planar
 			isPlanar = true;
+			if (analyzeConnectivity) {
+				orient();
+			}
 			return;
 		}
 		
 		if (graph.getNumberOfVertices() > 2 && graph.getNumberOfEdges() > 3*graph.getNumberOfVertices()-6) {
 			// a planar graph can have at most (3 * #vertices - 6) edges
 			isPlanar = false;
+			if (analyzeConnectivity) {
+				orient();
+			}
 			return;
 		}
 		
 		
 		// orientation
-		for (Vertex s : graph.getVertices()) {
-			if (s.getHeight() == Vertex.UNDEFINED_HEIGHT) {
-				s.setHeight(0);
-				roots.add(s);
-				doDFS1(s);
-			}
-		}
+		orient();
 
 
 		/*
@@ -108,6 +193,7 @@ public class LRPlanarityTest {
 		//System.out.println("First sorting done");
 		//print();
 		
+		monitor.startPhase(EnumPhase.TESTING, graph.getNumberOfEdges());
 		for (Vertex s : roots) {
 			boolean result = doDFS2(s);
 			if (!result) {
@@ -115,27 +201,177 @@ public class LRPlanarityTest {
 				return;
 			}
 		}
+		monitor.finishPhase();
 	}
 	
 	
 	
 	
+	/**
+	 * Calculates the rotation system of the graph, that is the cyclic order of the neighbors of every vertex
+	 * in a planar embedding. Neither faces nor positions are calculated.
+	 * This operation is only possible if the the graph is planar.
+	 * If the progress monitor cancels the calculation, null is returned and {@link #getAbortReason()} tells why.
+	 * 
+	 * @return rotation system
+	 */
+	public RotationSystem calculateRotationSystem() {
+		if (!canEmbed()) {
+			return null;
+		}
+		
+		try {
+			return runEmbeddingPhase();
+		} catch (AbortException e) {
+			abortReason = e.getReason();
+			return null;
+		}
+	}
+	
+	/**
+	 * Calculates the rotation system and returns one embedding for every component of the graph.
+	 * The faces and the positions of the vertices of a component are only calculated when they
+	 * are requested from its {@link ComponentEmbedding}.
+	 * This operation is only possible if the the graph is planar.
+	 * If the progress monitor cancels the calculation, null is returned and {@link #getAbortReason()} tells why.
+	 * 
+	 * @return embeddings of all components
+	 */
+	public List<ComponentEmbedding> calculateComponentEmbeddings() {
+		if (!canEmbed()) {
+			return null;
+		}
+		
+		try {
+			return getComponentEmbeddings();
+		} catch (AbortException e) {
+			abortReason = e.getReason();
+			return null;
+		}
+	}
+	
+	/**
+	 * Passes the rotation system of the graph to <code>sink</code> without building it in memory.
+	 * The rotation of every vertex is passed as soon as it is final in the embedding phase; the next vertex
+	 * is only processed when the sink has returned, so a slow sink slows down the embedding phase.
+	 * If the embedding phase has already been run, the rotations are passed in the order of the vertices.
+	 * If the sink fails during the embedding phase, the incidence lists are left partly ordered; the test is then
+	 * marked as aborted with {@link EnumAbortReason#SINK_FAILED}, and no embedding can be calculated afterwards.
+	 * This operation is only possible if the the graph is planar.
+	 * If the progress monitor cancels the calculation, false is returned and {@link #getAbortReason()} tells why.
+	 * 
+	 * @param sink receiver of the rotations
+	 * @return true, if all rotations were passed to the sink
+	 * @throws IOException if the sink fails
+	 */
+	public boolean streamRotationSystem(RotationSink sink) throws IOException {
+		if (!canEmbed()) {
+			return false;
+		}
+		
+		rotationSink   = sink;
+		rotationBuffer = new int[16];
+		try {
+			if (wasEmbeddingPhaseRun) {
+				for (IncidentEdgeList al : graph.getAdjacencyLists()) {
+					emitRotation(al.getSource());
+				}
+			}
+			else {
+				runDFS3();
+			}
+			sink.finish();
+			return true;
+		} catch (AbortException e) {
+			abortReason = e.getReason();
+			return false;
+		} catch (UncheckedIOException e) {
+			if (!wasEmbeddingPhaseRun) {
+				abortReason = EnumAbortReason.SINK_FAILED;
+			}
+			throw e.getCause();
+		} finally {
+			rotationSink   = null;
+			rotationBuffer = null;
+		}
+	}
+	
 	/**
 	 * Calculates an embedding for every component of the graph.
 	 * This operation is only possible if the the graph is planar.
+	 * If the progress monitor cancels the calculation, null is returned and {@link #getAbortReason()} tells why.
 	 * 
 	 * @return array
 	 */
 	public List<Embedding> calculateEmbedding() {
-
+		return calculateEmbedding(true);
+	}
+	
+	/**
+	 * Calculates an embedding for every component of the graph.
+	 * This operation is only possible if the the graph is planar.
+	 * If the progress monitor cancels the calculation, null is returned and {@link #getAbortReason()} tells why.
+	 * 
+	 * @param withDrawing if true, the positions of the vertices are calculated as well
+	 * @return array
+	 */
+	public List<Embedding> calculateEmbedding(boolean withDrawing) {
+		if (!canEmbed()) {
+			return null;
+		}
+		
+		try {
+			return runEmbedding(withDrawing);
+		} catch (AbortException e) {
+			abortReason = e.getReason();
+			return null;
+		}
+	}
+	
+	/**
+	 * Tests if the test was run successfully and the graph is planar.
+	 * @return true if an embedding can be calculated
+	 */
+	private boolean canEmbed() {
 		if (!wasTestRun) {
 			System.err.println("Warning! Run planarity test first. Execution aborted.");
-			return null;
+			return false;
 		}
-
+		
+		if (abortReason != null) {
+			System.err.println("Warning! The planarity test was aborted (" + abortReason.getString() + "). Execution aborted.");
+			return false;
+		}
+		
 		if (!isPlanar) {
 			System.err.println("Warning! I cannot calculate an embedding for a non-planar graph. Execution aborted.");
-			return null;
+			return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Returns the rotation system of the graph. The embedding phase is run if necessary.
+	 * @return rotation system of the graph
+	 * @throws AbortException if the progress monitor aborts the calculation
+	 */
+	private RotationSystem runEmbeddingPhase() throws AbortException {
+		if (rotationSystem == null) {
+			runDFS3();
+			rotationSystem = new RotationSystem(graph, roots);
+		}
+		return rotationSystem;
+	}
+	
+	/**
+	 * Runs the embedding phase (DFS3), which orders the incidence lists of the graph by the rotation system.
+	 * The phase is run only once.
+	 * @throws AbortException if the progress monitor aborts the calculation
+	 */
+	private void runDFS3() throws AbortException {
+		if (wasEmbeddingPhaseRun) {
+			return;
 		}
 		
 		//graph.print();
@@ -143,11 +379,67 @@ public class LRPlanarityTest {
 		graph.updateNestingDepthForEmbedding();
 		graph.sortIncidencyLists();
 		//graph.print();
+		monitor.startPhase(EnumPhase.EMBEDDING, graph.getNumberOfEdges());
 		for (Vertex s : roots) {
 			doDFS3(s);
 		}
+		monitor.finishPhase();
+		// only set when all incidence lists are ordered; an abort leaves them partly ordered
+		wasEmbeddingPhaseRun = true;
 		
 		//graph.print();
+	}
+	
+	/**
+	 * Passes the rotation of a vertex to the rotation sink.
+	 * @param v a vertex whose rotation is final
+	 */
+	private void emitRotation(Vertex v) {
+		IncidentEdgeList adjList = graph.getAdjacencyList(v);
+		if (rotationBuffer.length < adjList.getDegree()) {
+			rotationBuffer = new int[Math.max(adjList.getDegree(), 2 * rotationBuffer.length)];
+		}
+		int degree = 0;
+		for (Edge e : adjList) {
+			rotationBuffer[degree++] = e.getOther(v).getIndex();
+		}
+		try {
+			rotationSink.rotation(v.getIndex(), rotationBuffer, degree);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Creates the embeddings of all components. Faces and positions are not yet calculated.
+	 * @return embeddings of all components
+	 * @throws AbortException if the progress monitor aborts the calculation
+	 */
+	private List<ComponentEmbedding> getComponentEmbeddings() throws AbortException {
+		if (components != null) {
+			return components;
+		}
+		
+		RotationSystem rs = runEmbeddingPhase();
+		
+		LREmbedder embedder = new LREmbedder(graph);
+		embedder.setProgressMonitor(monitor);
+		components = new LinkedList<ComponentEmbedding>();
+		for (Vertex root : roots) {
+			components.add(new ComponentEmbedding(root, rs, embedder, monitor));
+		}
+		return components;
+	}
+	
+	/**
+	 * Runs the embedding phase and calculates the embeddings and, if requested, the drawings.
+	 * @param withDrawing if true, the positions of the vertices are calculated as well
+	 * @return embeddings of all components
+	 * @throws AbortException if the progress monitor aborts the calculation
+	 */
+	private List<Embedding> runEmbedding(boolean withDrawing) throws AbortException {
+		
+		List<ComponentEmbedding> componentEmbeddings = getComponentEmbeddings();
 		
 		if (getNumberOfComponents() == 0) {
 			System.err.println("There is nothing to draw.");
@@ -155,41 +447,39 @@ public class LRPlanarityTest {
 		}
 		
 		List<Embedding> embeddings = new LinkedList<Embedding>();
-		for (int i=0; i<roots.size(); i++) {
-			LREmbedder embedder = new LREmbedder(graph);
-			embeddings.add(embedder.getPlanarEmbedding(roots.get(i)));
+		for (ComponentEmbedding component : componentEmbeddings) {
+			embeddings.add(withDrawing ? component.getDrawing() : component.getEmbedding());
 		}
 		
-		
-		// **************************************************** //
-		/*
-		for (Embedding emb : embeddings) {
-			for (EmbeddingEdge e : emb.getEdges().values()) {
-				if (e.getPrevious() == null) {
-					System.out.println("Previous edge is null: " + e.toString());
-				}
-				if (e.getNext() == null) {
-					System.out.println("Next edge is null: " + e.toString());
+		return embeddings;
+	}
+
+	
+	
+	/**
+	 * Orientation of all components of the graph.
+	 * @throws AbortException if the progress monitor aborts the orientation
+	 */
+	private void orient() throws AbortException {
+		monitor.startPhase(EnumPhase.ORIENTATION, graph.getNumberOfEdges());
+		for (Vertex s : graph.getVertices()) {
+			if (s.getHeight() == Vertex.UNDEFINED_HEIGHT) {
+				s.setHeight(0);
+				roots.add(s);
+				if (connectivity != null) {
+					connectivity.discover(s);
 				}
-			}
-			for (EmbeddingFace f : emb.getFaces().values()) {
-				if (f.getIncidentEdge() == null) {
-					System.out.println("Face has no edge");
+				doDFS1(s);
+				if (connectivity != null) {
+					connectivity.rootFinished(s);
 				}
 			}
 		}
-		*/
-		
-		
-		
-		for (Embedding emb : embeddings) {
-			DrawingPositioner.calcPos(emb);
+		if (connectivity != null) {
+			connectivity.finish();
 		}
-		
-		return embeddings;
+		monitor.finishPhase();
 	}
-
-	
 	
 	/**
 	 * Orientation of the graph.
@@ -202,6 +492,7 @@ public class LRPlanarityTest {
 			if (edge.isOriented()) {
 				continue;
 			}
+			monitor.worked();
 			
 			edge.orient(v);
 			edge.setLowpoint(v.getHeight());
@@ -213,12 +504,21 @@ public class LRPlanarityTest {
 				edge.setIsTreeEdge(true);
 				w.setParentEdge(edge);
 				w.setHeight(v.getHeight() + 1);
+				if (connectivity != null) {
+					connectivity.discover(w);
+				}
 				doDFS1(w);
+				if (connectivity != null) {
+					connectivity.treeEdgeFinished(edge);
+				}
 			}
 			else {
 				// we have a back edge
 				edge.setIsTreeEdge(false);
 				edge.setLowpoint(w.getHeight());
+				if (connectivity != null) {
+					connectivity.backEdge(v, w);
+				}
 			}
 			
 			
@@ -275,6 +575,7 @@ public class LRPlanarityTest {
 				// remember first outgoing edge
 				firstOutgoingEdge = edge;
 			}
+			monitor.worked();
 			
 			
 			edge.setStackBottom(stack.size());
@@ -525,6 +826,7 @@ public class LRPlanarityTest {
 				// we only want to consider outgoing edges
 				continue;
 			}
+			monitor.worked();
 		
 			Vertex w = edge.getTarget();
 			
@@ -551,5 +853,11 @@ public class LRPlanarityTest {
 				}
 			}
 		}
+		
+		if (rotationSink != null) {
+			// all edges at v are placed: the tree edge from the parent is first and
+			// the back edges from the subtree of v have been inserted
+			emitRotation(v);
+		}
 	}
 }
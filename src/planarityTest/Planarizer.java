@@ -0,0 +1,327 @@
+package planarityTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import drawing.DrawingPositioner;
+import embedding.CompactEmbedding;
+import embedding.EdgeRouter;
+import embedding.Embedding;
+import embedding.FaceLabeling;
+import planarityTest.dataStructures.CompactGraph;
+import planarityTest.dataStructures.Graph;
+import planarityTest.dataStructures.OverlayGraph;
+import planarityTest.dataStructures.Vertex;
+
+/**
+ * Planarization of a (non-planar) graph: the crossings of a drawing become crossing vertices of a planar embedding.
+ * <p>
+ * First a maximal planar subgraph is chosen greedily: the edges are added in the order of their indices, and an edge
+ * is removed if the subgraph with it is not planar. The edges are tested in blocks with an {@link ImplicitLRPlanarityTest}
+ * on an {@link OverlayGraph}; a block grows while it is planar and shrinks when it is not, so long runs of planar edges
+ * need only a few tests. Then the subgraph is embedded, and every removed edge is inserted again by an {@link EdgeRouter}
+ * along a shortest path in the dual graph of the current embedding.
+ * <p>
+ * The graph has to be simple. It is not changed; the vertex with index i in a component gets the id i+1 in the
+ * embedding of the component, where the vertices of a component are numbered in the order of their indices in the graph.
+ * @author tommy
+ *
+ */
+public class Planarizer {
+
+	// number of kept edges that are tested as overlay before the base graph of the tests is rebuilt
+	public static final int PENDING_EDGES = 64;
+
+	private final Graph graph;
+
+	private boolean[] removed        = null;	// removed edges, indexed by edge index
+	private int       removedEdges   = 0;
+	private int       crossingNumber = 0;
+
+
+	/**
+	 * Creates a new planarization of a graph.
+	 * @param graph a simple graph
+	 */
+	public Planarizer(Graph graph) {
+		this.graph = graph;
+	}
+
+
+	/**
+	 * Chooses a maximal planar subgraph, if this was not done before.
+	 * @return for every edge index, true if the edge is not in the subgraph
+	 * @throws IllegalArgumentException if the graph has a self-loop
+	 */
+	public boolean[] calculatePlanarSubgraph() throws IllegalArgumentException {
+		if (removed == null) {
+			choosePlanarSubgraph(endpoints(new CompactGraph(graph)));
+		}
+		return removed;
+	}
+
+	/**
+	 * Sets the planar subgraph instead of choosing it, for example a subgraph that is known from a drawing.
+	 * The components are planarized separately, so a removed edge between two components of the subgraph is
+	 * put back into the subgraph; this joins the components and keeps the subgraph planar.
+	 * @param removed for every edge index, true if the edge is not in the subgraph
+	 * @throws IllegalArgumentException if the array does not fit to the graph or if the graph has a self-loop
+	 */
+	public void setPlanarSubgraph(boolean[] removed) throws IllegalArgumentException {
+		if (removed.length != graph.getNumberOfEdges()) {
+			throw new IllegalArgumentException("expected " + graph.getNumberOfEdges() + " edges, but got " + removed.length);
+		}
+		int[] endpoints = endpoints(new CompactGraph(graph));
+		int[] parent    = new int[graph.getNumberOfVertices()];	// union-find of the components of the subgraph
+		for (int v=0; v<parent.length; v++) {
+			parent[v] = v;
+		}
+		for (int e=0; e<removed.length; e++) {
+			if (!removed[e]) {
+				parent[find(parent, endpoints[2*e])] = find(parent, endpoints[2*e+1]);
+			}
+		}
+
+		this.removed      = removed.clone();
+		this.removedEdges = 0;
+		for (int e=0; e<removed.length; e++) {
+			if (!removed[e]) {
+				continue;
+			}
+			int c1 = find(parent, endpoints[2*e]);
+			int c2 = find(parent, endpoints[2*e+1]);
+			if (c1 != c2) {
+				parent[c2]      = c1;
+				this.removed[e] = false;
+			}
+			else {
+				removedEdges++;
+			}
+		}
+	}
+
+	/**
+	 * Calculates a planarization for every component of the graph.
+	 * The embeddings contain all vertices and edges of the graph; the edges that are not in the planar subgraph
+	 * are split into parts at their crossings, see {@link Embedding#getCrossingNumber()}.
+	 * @param withDrawing if true, the positions of the vertices are calculated as well
+	 * @return            embeddings of all components
+	 * @throws IllegalArgumentException if the graph has a self-loop or if the planar subgraph is not planar
+	 */
+	public List<Embedding> planarize(boolean withDrawing) throws IllegalArgumentException {
+		int   n         = graph.getNumberOfVertices();
+		int[] endpoints = endpoints(new CompactGraph(graph));
+		if (removed == null) {
+			choosePlanarSubgraph(endpoints);
+		}
+
+		// the planar subgraph, with the same vertex indices
+		Vertex[] vertices = new Vertex[n];
+		for (Vertex v : graph.getVertices()) {
+			vertices[v.getIndex()] = v;
+		}
+		Graph    subgraph    = new Graph();
+		Vertex[] subvertices = new Vertex[n];
+		for (int v=0; v<n; v++) {
+			subvertices[v] = subgraph.createVertex();
+		}
+		for (int e=0; e<removed.length; e++) {
+			if (!removed[e]) {
+				subgraph.createEdge(subvertices[endpoints[2*e]], subvertices[endpoints[2*e+1]]);
+			}
+		}
+		LRPlanarityTest test = new LRPlanarityTest(subgraph);
+		test.testPlanar();
+		if (!test.isPlanar()) {
+			throw new IllegalArgumentException("the subgraph is not planar");
+		}
+		RotationSystem rotationSystem = test.calculateRotationSystem();
+
+		// vertices by component; local vertex and half-edge indices in the components
+		int   components = rotationSystem.getNumberOfComponents();
+		int[] component  = new int[n];
+		int[] local      = new int[n];
+		int[] first      = new int[n];	// first half-edge of every vertex
+		int[] start      = new int[components + 1];
+		int[] halfEdges  = new int[components];
+		for (int v=0; v<n; v++) {
+			int c = component[v] = rotationSystem.getComponent(v);
+			local[v]      = start[c+1]++;
+			first[v]      = halfEdges[c];
+			halfEdges[c] += rotationSystem.getDegree(v);
+		}
+		for (int c=0; c<components; c++) {
+			start[c+1] += start[c];
+		}
+		int[] order = new int[n];
+		for (int v=0; v<n; v++) {
+			order[start[component[v]] + local[v]] = v;
+		}
+		int[] half = new int[rotationSystem.getNumberOfEdges()];	// first half-edge of every edge
+		Arrays.fill(half, CompactEmbedding.NONE);
+		List<Embedding> embeddings = new ArrayList<Embedding>(components);
+		for (int c=0; c<components; c++) {
+			embeddings.add(embedComponent(rotationSystem, Arrays.copyOfRange(order, start[c], start[c+1]),
+					local, first, half, halfEdges[c], vertices));
+		}
+
+		// insert the removed edges
+		crossingNumber = 0;
+		EdgeRouter[] routers = new EdgeRouter[components];
+		for (int e=0; e<removed.length; e++) {
+			if (!removed[e]) {
+				continue;
+			}
+			int c = component[endpoints[2*e]];
+			if (routers[c] == null) {
+				routers[c] = new EdgeRouter(embeddings.get(c));
+			}
+			crossingNumber += routers[c].insertEdge(local[endpoints[2*e]] + 1, local[endpoints[2*e+1]] + 1);
+		}
+
+		if (withDrawing) {
+			for (Embedding embedding : embeddings) {
+				DrawingPositioner.calcPos(embedding);
+			}
+		}
+		return embeddings;
+	}
+
+	/**
+	 * Returns the number of edges that are not in the planar subgraph.
+	 * @return number of removed edges
+	 */
+	public int getNumberOfRemovedEdges() {
+		return removedEdges;
+	}
+
+	/**
+	 * Returns the number of crossings of the last planarization.
+	 * @return number of crossings
+	 */
+	public int getCrossingNumber() {
+		return crossingNumber;
+	}
+
+
+
+	/**
+	 * Returns the end vertices of all edges: {u0, v0, u1, v1, ...} in the order of the edge indices.
+	 */
+	private static int[] endpoints(CompactGraph graph) {
+		int[] endpoints = new int[2 * graph.getNumberOfEdges()];
+		for (int v=0; v<graph.getNumberOfVertices(); v++) {
+			for (int i=0; i<graph.getDegree(v); i++) {
+				int w = graph.getNeighbor(v, i);
+				if (w == v) {
+					throw new IllegalArgumentException("self-loops are not allowed: " + v);
+				}
+				if (v < w) {
+					int e = graph.getEdgeId(v, i);
+					endpoints[2*e]   = v;
+					endpoints[2*e+1] = w;
+				}
+			}
+		}
+		return endpoints;
+	}
+
+	/**
+	 * Returns the representative of a component in the union-find structure and halves the path to it.
+	 */
+	private static int find(int[] parent, int v) {
+		while (parent[v] != v) {
+			parent[v] = parent[parent[v]];
+			v         = parent[v];
+		}
+		return v;
+	}
+
+	/**
+	 * Chooses the maximal planar subgraph by testing blocks of edges. A planar block doubles the size of the next block;
+	 * a non-planar block is tested again with half of its size, and a single non-planar edge is removed.
+	 * The kept edges form a {@link CompactGraph}, which is only rebuilt when {@link #PENDING_EDGES} kept edges
+	 * are still in the overlay, so a test only has to build the overlay of a few edges.
+	 */
+	private void choosePlanarSubgraph(int[] endpoints) {
+		int                     n    = graph.getNumberOfVertices();
+		int                     m    = endpoints.length / 2;
+		ImplicitLRPlanarityTest test = new ImplicitLRPlanarityTest();
+
+		removed      = new boolean[m];
+		removedEdges = 0;
+		int[]        kept   = new int[endpoints.length];	// end vertices of the edges of the subgraph
+		int          length = 0;
+		int          inBase = 0;	// entries of kept that are in the base graph
+		CompactGraph base   = new CompactGraph(n, kept, 0);
+		int          block  = 1;
+		for (int e=0; e<m; ) {
+			int size = Math.min(block, m - e);
+			System.arraycopy(endpoints, 2*e, kept, length, 2*size);
+			if (test.testPlanar(new OverlayGraph(base, Arrays.copyOfRange(kept, inBase, length + 2*size)))) {
+				length += 2*size;
+				e      += size;
+				block   = 2*size;
+				if (length - inBase >= 2*PENDING_EDGES) {
+					base   = new CompactGraph(n, kept, length);
+					inBase = length;
+				}
+			}
+			else if (size == 1) {
+				removed[e++] = true;
+				removedEdges++;
+			}
+			else {
+				block = size / 2;
+			}
+		}
+	}
+
+	/**
+	 * Translates the rotation system of one component into an embedding; half-edges are numbered in the order of their
+	 * source vertices and of the rotations, faces in the order of their smallest half-edges.
+	 * @param order     vertices of the component
+	 * @param local     local index of every vertex
+	 * @param first     first half-edge of every vertex
+	 * @param half      first half-edge of every edge that has been seen (NONE before)
+	 * @param halfEdges number of half-edges of the component
+	 */
+	private static Embedding embedComponent(RotationSystem rotationSystem, int[] order, int[] local, int[] first,
+			int[] half, int halfEdges, Vertex[] vertices) {
+		int[] source = new int[halfEdges];
+		int[] twin   = new int[halfEdges];
+		int[] next   = new int[halfEdges];
+		for (int v : order) {
+			for (int i=0; i<rotationSystem.getDegree(v); i++) {
+				int h = first[v] + i;
+				int e = rotationSystem.getEdgeId(v, i);
+				source[h] = local[v];
+				if (half[e] == CompactEmbedding.NONE) {
+					half[e] = h;
+				}
+				else {
+					twin[h]       = half[e];
+					twin[half[e]] = h;
+				}
+			}
+		}
+		for (int v : order) {
+			for (int i=0; i<rotationSystem.getDegree(v); i++) {
+				next[twin[first[v] + i]] = first[v] + rotationSystem.getNextPosition(v, i);
+			}
+		}
+
+		FaceLabeling labeling = FaceLabeling.of(next);
+		int[]        face     = new int[halfEdges];
+		for (int h=0; h<halfEdges; h++) {
+			face[h] = labeling.getFace(h);
+		}
+		int              faces  = Math.max(labeling.getNumberOfFaces(), 1);	// an isolated vertex has one face without half-edges
+		CompactEmbedding result = new CompactEmbedding(order.length, faces, source, twin, next, face, null, null);
+		for (int v : order) {
+			result.setVertexName(local[v], vertices[v].getLabel());
+		}
+		return result.toEmbedding();
+	}
+}
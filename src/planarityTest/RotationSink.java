@@ -0,0 +1,28 @@
+package planarityTest;
+
+import java.io.IOException;
+
+/**
+ * Receives the rotation system of a planar graph vertex by vertex, see {@link LRPlanarityTest#streamRotationSystem(RotationSink)}.
+ * Vertices are addressed by their indices in the graph.
+ * @author tommy
+ *
+ */
+public interface RotationSink {
+
+	/**
+	 * Receives the rotation of a vertex, that is its neighbors in the cyclic order of the embedding.
+	 * Every vertex is passed exactly once. The array is reused for the next vertex, so it must not be kept.
+	 * @param vertex	index of the vertex
+	 * @param neighbors	indices of the neighbors in the first <code>degree</code> entries
+	 * @param degree	degree of the vertex
+	 * @throws IOException if the rotation cannot be processed
+	 */
+	public void rotation(int vertex, int[] neighbors, int degree) throws IOException;
+
+	/**
+	 * Is called after the last vertex.
+	 * @throws IOException if the rotations cannot be completed
+	 */
+	public void finish() throws IOException;
+}
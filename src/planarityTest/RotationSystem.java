@@ -0,0 +1,99 @@
+package planarityTest;
+
+import java.util.List;
+
+import planarityTest.dataStructures.CompactGraph;
+import planarityTest.dataStructures.Graph;
+import planarityTest.dataStructures.Vertex;
+
+/**
+ * Rotation system of a planar graph: the neighbors of every vertex in the cyclic order of a planar embedding.
+ * This is the combinatorial embedding without faces and coordinates; an {@link embedding.Embedding} can be
+ * obtained from the {@link ComponentEmbedding} of a component.
+ * <p>
+ * Vertices and edges are addressed by their indices in the graph, see {@link Vertex#getIndex()}.
+ * The i-th neighbor of a vertex (see {@link #getNeighbor(int, int)}) is followed by the (i+1)-th neighbor in the rotation.
+ * @author tommy
+ *
+ */
+public class RotationSystem extends CompactGraph {
+
+	private final int[] component;		// component of each vertex
+	private final int[] roots;			// root of each component (DFS root of the test)
+
+
+	/**
+	 * Creates a snapshot of the rotation system of a graph whose incidence lists are ordered by the embedding phase.
+	 * @param graph graph after the embedding phase
+	 * @param roots DFS roots of the components
+	 */
+	RotationSystem(Graph graph, List<Vertex> roots) {
+		super(graph);
+
+		this.component = new int[getNumberOfVertices()];
+		this.roots     = new int[roots.size()];
+
+		// label components by a search from every root
+		int[] queue = new int[getNumberOfVertices()];
+		int   c     = 0;
+		for (Vertex root : roots) {
+			int r = root.getIndex();
+			this.roots[c] = r;
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = r;
+			component[r]  = c + 1;
+			while (head < tail) {
+				int v = queue[head++];
+				for (int i=0; i<getDegree(v); i++) {
+					int w = getNeighbor(v, i);
+					if (component[w] == 0) {
+						component[w]  = c + 1;
+						queue[tail++] = w;
+					}
+				}
+			}
+			c++;
+		}
+		for (int v=0; v<component.length; v++) {
+			component[v]--;
+		}
+	}
+
+
+	/**
+	 * Returns the number of components.
+	 * @return number of components
+	 */
+	public int getNumberOfComponents() {
+		return roots.length;
+	}
+
+	/**
+	 * Returns the component of a vertex.
+	 * @param v index of a vertex
+	 * @return  component between 0 and {@link #getNumberOfComponents()}-1
+	 */
+	public int getComponent(int v) {
+		return component[v];
+	}
+
+	/**
+	 * Returns the root of a component, that is the first vertex of the component in DFS order.
+	 * @param c component
+	 * @return  index of the root
+	 */
+	public int getRoot(int c) {
+		return roots[c];
+	}
+
+	/**
+	 * Returns the position of the neighbor that follows position <code>i</code> in the rotation of <code>v</code>.
+	 * @param v index of a vertex
+	 * @param i position of a neighbor
+	 * @return  next position
+	 */
+	public int getNextPosition(int v, int i) {
+		return i+1 == getDegree(v) ? 0 : i+1;
+	}
+}
@@ -0,0 +1,150 @@
+package planarityTest;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import alg.progress.AbortException;
+import alg.progress.EnumPhase;
+import alg.progress.ProgressMonitor;
+import planarityTest.dataStructures.CompactGraph;
+import planarityTest.dataStructures.Graph;
+import planarityTest.dataStructures.OverlayGraph;
+import planarityTest.dataStructures.Vertex;
+
+/**
+ * Tests many candidate edge sets against one base graph in parallel ("what if these edges were added?").
+ * The base graph is converted once into a {@link CompactGraph} that is shared read-only by all tests;
+ * every candidate is only an {@link OverlayGraph} of a few edges. Each thread reuses its own
+ * {@link ImplicitLRPlanarityTest}, so the tests allocate almost nothing.
+ * <p>
+ * Vertices of candidates are given by their index in the base graph, see {@link Vertex#getIndex()}.
+ * @author tommy
+ *
+ */
+public class WhatIfPlanarityTester {
+
+	// time in milliseconds between two progress reports of a batch
+	public static final long REPORT_INTERVAL = 100;
+
+	private final CompactGraph base;
+	private final ForkJoinPool pool;
+
+	private final ThreadLocal<ImplicitLRPlanarityTest> tests = ThreadLocal.withInitial(ImplicitLRPlanarityTest::new);
+
+	private ProgressMonitor monitor = new ProgressMonitor();
+
+
+	/**
+	 * Creates a new tester that uses the common fork-join pool.
+	 * @param base the base graph (later changes of it are not reflected)
+	 */
+	public WhatIfPlanarityTester(Graph base) {
+		this(base, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a new tester.
+	 * @param base the base graph (later changes of it are not reflected)
+	 * @param pool the pool that runs the tests
+	 */
+	public WhatIfPlanarityTester(Graph base, ForkJoinPool pool) {
+		this.base = new CompactGraph(base);
+		this.pool = pool;
+	}
+
+
+	/**
+	 * Sets the monitor that is used to cancel a batch or to enforce a deadline and that receives the progress of a batch.
+	 * The workers only ask {@link ProgressMonitor#shouldAbort()} before every single test; the progress is reported
+	 * and the abort is thrown by the thread that called {@link #testAll(List)}.
+	 * @param monitor progress monitor
+	 */
+	public void setProgressMonitor(ProgressMonitor monitor) {
+		this.monitor = monitor;
+	}
+
+	/**
+	 * Converts vertices of the base graph into the endpoint array of a candidate.
+	 * @param endpoints end vertices of the edges: u0, v0, u1, v1, ...
+	 * @return          indices of the vertices
+	 */
+	public static int[] toCandidate(Vertex... endpoints) {
+		int[] candidate = new int[endpoints.length];
+		for (int i=0; i<endpoints.length; i++) {
+			candidate[i] = endpoints[i].getIndex();
+		}
+		return candidate;
+	}
+
+
+	/**
+	 * Tests the base graph together with a single candidate.
+	 * @param candidate end vertices of the additional edges: {u0, v0, u1, v1, ...}
+	 * @return          true if and only if the base graph with these edges is planar
+	 */
+	public boolean test(int[] candidate) {
+		return tests.get().testPlanar(new OverlayGraph(base, candidate));
+	}
+
+	/**
+	 * Tests the base graph together with each candidate. The candidates are tested in parallel.
+	 * @param candidates end vertices of the additional edges of each candidate: {u0, v0, u1, v1, ...}
+	 * @return           the results in the order of the candidates
+	 * @throws AbortException if the progress monitor aborts the batch
+	 */
+	public WhatIfResult testAll(final List<int[]> candidates) throws AbortException {
+		final int       k      = candidates.size();
+		final boolean[] planar = new boolean[k];
+		final long[]    nanos  = new long[k];
+
+		monitor.startPhase(EnumPhase.TESTING, k);
+		final AtomicInteger finished = new AtomicInteger();
+		long                start    = System.nanoTime();
+		try {
+			ForkJoinTask<?> batch = pool.submit(() -> IntStream.range(0, k).parallel().forEach(i -> {
+				if (monitor.shouldAbort()) {
+					// the remaining candidates are skipped; the abort is thrown below
+					return;
+				}
+				long t = System.nanoTime();
+				planar[i] = test(candidates.get(i));
+				nanos[i]  = System.nanoTime() - t;
+				finished.incrementAndGet();
+			}));
+			int reported = 0;
+			while (true) {
+				try {
+					batch.get(REPORT_INTERVAL, TimeUnit.MILLISECONDS);
+					break;
+				} catch (TimeoutException e) {
+					// throws if the batch is aborted; the workers skip their remaining candidates then
+					int now = finished.get();
+					monitor.worked(now - reported);
+					reported = now;
+				}
+			}
+			// throws if candidates were skipped, since the abort conditions stay true
+			monitor.worked(finished.get() - reported);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			monitor.cancel();
+			monitor.check();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+		long elapsed = System.nanoTime() - start;
+		monitor.finishPhase();
+
+		return new WhatIfResult(planar, nanos, elapsed);
+	}
+}
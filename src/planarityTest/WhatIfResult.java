@@ -0,0 +1,83 @@
+package planarityTest;
+
+/**
+ * Results of a batch of what-if tests, see {@link WhatIfPlanarityTester}.
+ * @author tommy
+ *
+ */
+public class WhatIfResult {
+
+	private final boolean[] planar;
+	private final long[]    nanos;
+	private final long      elapsedNanos;
+
+
+	/**
+	 * Creates a new result.
+	 * @param planar		planarity of the base graph together with each candidate
+	 * @param nanos			time of each single test in nano seconds
+	 * @param elapsedNanos	wall-clock time of the whole batch in nano seconds
+	 */
+	public WhatIfResult(boolean[] planar, long[] nanos, long elapsedNanos) {
+		this.planar       = planar;
+		this.nanos        = nanos;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+
+	/**
+	 * Returns the number of tested candidates.
+	 * @return number of candidates
+	 */
+	public int getNumberOfCandidates() {
+		return planar.length;
+	}
+
+	/**
+	 * Returns if the base graph together with candidate <code>i</code> is planar.
+	 * @param i index of the candidate
+	 * @return  true if and only if the graph is planar
+	 */
+	public boolean isPlanar(int i) {
+		return planar[i];
+	}
+
+	/**
+	 * Returns the number of candidates that keep the graph planar.
+	 * @return number of planar candidates
+	 */
+	public int getNumberOfPlanarCandidates() {
+		int count = 0;
+		for (boolean p : planar) {
+			if (p) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the time of the test of candidate <code>i</code>.
+	 * @param i index of the candidate
+	 * @return  time in nano seconds
+	 */
+	public long getTestNanos(int i) {
+		return nanos[i];
+	}
+
+	/**
+	 * Returns the wall-clock time of the whole batch.
+	 * @return time in nano seconds
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * Returns the number of tested candidates per second.
+	 * @return throughput
+	 */
+	public double getThroughput() {
+		return elapsedNanos == 0 ? 0 : planar.length * 1e9 / elapsedNanos;
+	}
+}
@@ -0,0 +1,118 @@
+package planarityTest.dataStructures;
+
+/**
+ * Immutable snapshot of a {@link Graph} in compressed adjacency arrays.
+ * Vertices and edges are addressed by their indices in the graph.
+ * @author tommy
+ *
+ */
+public class CompactGraph implements ImplicitGraph {
+	
+	private final int   n;
+	private final int   m;
+	private final int[] offsets;		// adjacency of v is stored at offsets[v] to offsets[v+1]-1
+	private final int[] neighbors;
+	private final int[] edgeIds;
+	
+	
+	/**
+	 * Creates a snapshot of <code>graph</code>. Later changes of the graph are not reflected.
+	 * @param graph a graph
+	 */
+	public CompactGraph(Graph graph) {
+		this.n = graph.getNumberOfVertices();
+		this.m = graph.getNumberOfEdges();
+		
+		offsets   = new int[n+1];
+		neighbors = new int[2*m];
+		edgeIds   = new int[2*m];
+		
+		for (IncidentEdgeList al : graph.getAdjacencyLists()) {
+			offsets[al.getSource().getIndex() + 1] = al.getDegree();
+		}
+		for (int v=0; v<n; v++) {
+			offsets[v+1] += offsets[v];
+		}
+		for (IncidentEdgeList al : graph.getAdjacencyLists()) {
+			Vertex v   = al.getSource();
+			int    pos = offsets[v.getIndex()];
+			for (Edge e : al) {
+				neighbors[pos] = e.getOther(v).getIndex();
+				edgeIds[pos]   = e.getIndex();
+				pos++;
+			}
+		}
+	}
+
+	/**
+	 * Creates a graph from the end vertices of its edges; edge i gets the id i.
+	 * @param n			number of vertices
+	 * @param endpoints	end vertices of the edges: {u0, v0, u1, v1, ...}
+	 * @param length	number of used entries of <code>endpoints</code> (twice the number of edges)
+	 */
+	public CompactGraph(int n, int[] endpoints, int length) {
+		this.n = n;
+		this.m = length / 2;
+
+		offsets   = new int[n+1];
+		neighbors = new int[2*m];
+		edgeIds   = new int[2*m];
+
+		for (int i=0; i<2*m; i++) {
+			offsets[endpoints[i] + 1]++;
+		}
+		for (int v=0; v<n; v++) {
+			offsets[v+1] += offsets[v];
+		}
+		int[] pos = new int[n];
+		for (int e=0; e<m; e++) {
+			int u = endpoints[2*e];
+			int v = endpoints[2*e+1];
+			neighbors[offsets[u] + pos[u]] = v;
+			edgeIds[offsets[u] + pos[u]++] = e;
+			neighbors[offsets[v] + pos[v]] = u;
+			edgeIds[offsets[v] + pos[v]++] = e;
+		}
+	}
+
+
+	@Override
+	public int getNumberOfVertices() {
+		return n;
+	}
+
+	@Override
+	public int getNumberOfEdges() {
+		return m;
+	}
+
+	@Override
+	public int getDegree(int v) {
+		return offsets[v+1] - offsets[v];
+	}
+
+	@Override
+	public int getNeighbor(int v, int i) {
+		return neighbors[offsets[v] + i];
+	}
+
+	@Override
+	public int getEdgeId(int v, int i) {
+		return edgeIds[offsets[v] + i];
+	}
+	
+	/**
+	 * Tests if the vertices <code>v</code> and <code>w</code> are adjacent. Needs time O(degree(v)).
+	 * @param v a vertex
+	 * @param w a vertex
+	 * @return  true if and only if there is an edge between v and w
+	 */
+	public boolean isAdjacent(int v, int w) {
+		for (int pos=offsets[v]; pos<offsets[v+1]; pos++) {
+			if (neighbors[pos] == w) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -11,6 +11,7 @@ public class Edge extends Sortable {
 	}
 	
 	private final int id;
+	private       int index = -1;
 	
 	private Vertex source;
 	private Vertex target;
@@ -93,6 +94,22 @@ public class Edge extends Sortable {
 		return this.id;
 	}
 	
+	/**
+	 * Returns the index of this edge in its graph. The edges of a graph have the indices 0 to m-1.
+	 * @return index or -1, if this edge does not belong to a graph
+	 */
+	public int getIndex() {
+		return this.index;
+	}
+	
+	/**
+	 * Sets the index of this edge in its graph.
+	 * @param index new index
+	 */
+	void setIndex(int index) {
+		this.index = index;
+	}
+	
 	/**
 	 * Returns the other vertex of this edge.
 	 * @param v a vertex of this edge
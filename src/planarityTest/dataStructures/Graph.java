@@ -26,6 +26,7 @@ public class Graph {
 	 */
 	public Vertex createVertex() {
 		Vertex v = new Vertex();
+		v.setIndex(n);
 		adjacencyList.put(v, new IncidentEdgeList(v));
 		n++;
 		return v;
@@ -53,6 +54,7 @@ public class Graph {
 	 */
 	public Edge createEdge(Vertex source, Vertex target) {
 		Edge e = new Edge(source, target);
+		e.setIndex(m);
 		adjacencyList.get(source).appendBack(e);
 		adjacencyList.get(target).appendBack(e);
 		m++;
@@ -0,0 +1,48 @@
+package planarityTest.dataStructures;
+
+/**
+ * Read-only view of an undirected simple graph with the vertices 0 to n-1 and the edges 0 to m-1.
+ * The edges incident to a vertex <code>v</code> are addressed by their position <code>i</code>
+ * (0 &lt;= i &lt; degree(v)) in the adjacency of <code>v</code>.
+ * Every edge appears in the adjacency of both end vertices with the same id.
+ * @author tommy
+ *
+ */
+public interface ImplicitGraph {
+
+	/**
+	 * Returns the number of vertices.
+	 * @return number of vertices
+	 */
+	public int getNumberOfVertices();
+	
+	/**
+	 * Returns the number of edges.
+	 * @return number of edges
+	 */
+	public int getNumberOfEdges();
+	
+	/**
+	 * Returns the degree of a vertex.
+	 * @param v a vertex
+	 * @return  number of incident edges
+	 */
+	public int getDegree(int v);
+	
+	/**
+	 * Returns the neighbour of <code>v</code> at position <code>i</code> of its adjacency.
+	 * @param v a vertex
+	 * @param i position in the adjacency of v
+	 * @return  neighbour
+	 */
+	public int getNeighbor(int v, int i);
+	
+	/**
+	 * Returns the id of the edge at position <code>i</code> of the adjacency of <code>v</code>.
+	 * @param v a vertex
+	 * @param i position in the adjacency of v
+	 * @return  edge id
+	 */
+	public int getEdgeId(int v, int i);
+	
+}
@@ -1,5 +1,6 @@
 package planarityTest.dataStructures;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -44,7 +45,9 @@ public class IncidentEdgeList implements Iterable<Edge> {
 	
 	/**
 	 * Sort this list non-decreasingly for the nesting depth.
-	 * Sorting is done in linear time by counting sort.
+	 * Sorting is done in linear time by counting sort if the nesting depths lie in a range of size O(degree),
+	 * otherwise by a stable comparison sort, so the time does not depend on the range of the nesting depths.
+	 * Both sorts are stable.
 	 */
 	public void sort() {
 		// sort for nesting depth
@@ -52,13 +55,24 @@ public class IncidentEdgeList implements Iterable<Edge> {
 		
 		Edge[] edges = new Edge[degree];
 		int i = 0;
+		int min = Integer.MAX_VALUE;
+		int max = Integer.MIN_VALUE;
 		for (Edge e : this) {
 			edges[i] = e;
 			i++;
-			if (e == null) {System.err.println("WARNING");}
+			if (e == null) {System.err.println("WARNING"); continue;}
+			min = Math.min(min, e.getKey());
+			max = Math.max(max, e.getKey());
 		}
 		
-		Sortable[] sortedEdges = new CountingSort().sort(edges);
+		Sortable[] sortedEdges;
+		if ((long) max - min < 4L * degree) {
+			sortedEdges = new CountingSort().sort(edges, min, max);
+		}
+		else {
+			Arrays.sort(edges, (e1, e2) -> e1.compare(e2));
+			sortedEdges = edges;
+		}
 		
 		
 		clearEdges();
@@ -69,6 +83,14 @@ public class IncidentEdgeList implements Iterable<Edge> {
 
 	
 	
+	/**
+	 * Returns the number of edges in this list.
+	 * @return degree of the source vertex
+	 */
+	public int getDegree() {
+		return degree;
+	}
+	
 	/**
 	 * Returns if this list is empty.
 	 * @return true if and only if this list is empty
@@ -0,0 +1,161 @@
+package planarityTest.dataStructures;
+
+import java.util.Arrays;
+
+/**
+ * An {@link ImplicitGraph} (usually a {@link CompactGraph}) together with a few additional edges.
+ * The base graph is shared and not copied, so many overlays of one base graph can be tested at the same time.
+ * The additional edges get the ids m to m+k-1 and are appended to the adjacencies of their end vertices.
+ * @author tommy
+ *
+ */
+public class OverlayGraph implements ImplicitGraph {
+
+	private final ImplicitGraph base;
+	private final int           baseEdges;
+	private final int           extraEdges;
+
+	private final int[] touched;		// sorted vertices that have additional edges
+	private final int[] offsets;		// additional adjacency of touched[t] is stored at offsets[t] to offsets[t+1]-1
+	private final int[] neighbors;
+	private final int[] edgeIds;
+
+
+	/**
+	 * Creates a new overlay. Self-loops are not allowed. Edges that are already contained in the base graph
+	 * or that appear more than once are only added once.
+	 * @param base		the base graph
+	 * @param endpoints	end vertices of the additional edges: {u0, v0, u1, v1, ...}
+	 */
+	public OverlayGraph(ImplicitGraph base, int[] endpoints) {
+		if (endpoints.length % 2 != 0) {
+			throw new IllegalArgumentException("every edge needs two end vertices");
+		}
+		this.base      = base;
+		this.baseEdges = base.getNumberOfEdges();
+
+		// normalize and remove duplicates (key: smaller vertex in the upper half)
+		int    n    = base.getNumberOfVertices();
+		long[] keys = new long[endpoints.length / 2];
+		for (int i=0; i<keys.length; i++) {
+			int u = endpoints[2*i];
+			int v = endpoints[2*i+1];
+			if (u < 0 || u >= n || v < 0 || v >= n) {
+				throw new IllegalArgumentException("vertex does not exist: " + (u < 0 || u >= n ? u : v));
+			}
+			if (u == v) {
+				throw new IllegalArgumentException("self-loops are not allowed: " + u);
+			}
+			keys[i] = ((long) Math.min(u, v) << 32) | Math.max(u, v);
+		}
+		Arrays.sort(keys);
+
+		int k = 0;
+		for (int i=0; i<keys.length; i++) {
+			int u = (int) (keys[i] >>> 32);
+			int v = (int) keys[i];
+			if ((i > 0 && keys[i] == keys[i-1]) || isAdjacent(base, u, v)) {
+				continue;
+			}
+			keys[k++] = keys[i];
+		}
+		this.extraEdges = k;
+
+		// touched vertices
+		int[] ends = new int[2*k];
+		for (int i=0; i<k; i++) {
+			ends[2*i]   = (int) (keys[i] >>> 32);
+			ends[2*i+1] = (int) keys[i];
+		}
+		Arrays.sort(ends);
+		int t = 0;
+		for (int i=0; i<ends.length; i++) {
+			if (i == 0 || ends[i] != ends[i-1]) {
+				ends[t++] = ends[i];
+			}
+		}
+		touched = Arrays.copyOf(ends, t);
+
+		// additional adjacencies
+		offsets   = new int[t+1];
+		neighbors = new int[2*k];
+		edgeIds   = new int[2*k];
+		for (int i=0; i<k; i++) {
+			offsets[Arrays.binarySearch(touched, (int) (keys[i] >>> 32)) + 1]++;
+			offsets[Arrays.binarySearch(touched, (int) keys[i]) + 1]++;
+		}
+		for (int i=0; i<t; i++) {
+			offsets[i+1] += offsets[i];
+		}
+		int[] fill = Arrays.copyOf(offsets, t);
+		for (int i=0; i<k; i++) {
+			int u  = (int) (keys[i] >>> 32);
+			int v  = (int) keys[i];
+			int tu = Arrays.binarySearch(touched, u);
+			int tv = Arrays.binarySearch(touched, v);
+			neighbors[fill[tu]] = v;
+			edgeIds[fill[tu]++] = baseEdges + i;
+			neighbors[fill[tv]] = u;
+			edgeIds[fill[tv]++] = baseEdges + i;
+		}
+	}
+
+
+	/**
+	 * Tests if the vertices <code>v</code> and <code>w</code> are adjacent in the base graph.
+	 */
+	private static boolean isAdjacent(ImplicitGraph base, int v, int w) {
+		if (base instanceof CompactGraph) {
+			return ((CompactGraph) base).isAdjacent(v, w);
+		}
+		int degree = base.getDegree(v);
+		for (int i=0; i<degree; i++) {
+			if (base.getNeighbor(v, i) == w) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns the number of additional edges (without duplicates).
+	 * @return number of additional edges
+	 */
+	public int getNumberOfAdditionalEdges() {
+		return extraEdges;
+	}
+
+	@Override
+	public int getNumberOfVertices() {
+		return base.getNumberOfVertices();
+	}
+
+	@Override
+	public int getNumberOfEdges() {
+		return baseEdges + extraEdges;
+	}
+
+	@Override
+	public int getDegree(int v) {
+		int t = Arrays.binarySearch(touched, v);
+		return base.getDegree(v) + (t < 0 ? 0 : offsets[t+1] - offsets[t]);
+	}
+
+	@Override
+	public int getNeighbor(int v, int i) {
+		int baseDegree = base.getDegree(v);
+		if (i < baseDegree) {
+			return base.getNeighbor(v, i);
+		}
+		return neighbors[offsets[Arrays.binarySearch(touched, v)] + i - baseDegree];
+	}
+
+	@Override
+	public int getEdgeId(int v, int i) {
+		int baseDegree = base.getDegree(v);
+		if (i < baseDegree) {
+			return base.getEdgeId(v, i);
+		}
+		return edgeIds[offsets[Arrays.binarySearch(touched, v)] + i - baseDegree];
+	}
+}
@@ -7,6 +7,7 @@ public class Vertex {
 	private static int ID_COUNTER = 0;
 	
 	private int    id;
+	private int    index = -1;
 	private String label;
 	
 	private int height = UNDEFINED_HEIGHT;
@@ -20,7 +21,7 @@ public class Vertex {
 	 * Creates a new vertex.
 	 */
 	public Vertex() {
-		this("" + Vertex.ID_COUNTER);
+		this((String) null);
 	}
 	
 	/**
@@ -42,11 +43,11 @@ public class Vertex {
 	}
 	
 	/**
-	 * Returns the label of this vertex.
+	 * Returns the label of this vertex. Without a label, this is the id of this vertex.
 	 * @return label
 	 */
 	public String getLabel() {
-		return this.label;
+		return this.label != null ? this.label : String.valueOf(this.id);
 	}
 	
 	/**
@@ -57,6 +58,22 @@ public class Vertex {
 		return this.id;
 	}
 	
+	/**
+	 * Returns the index of this vertex in its graph. The vertices of a graph have the indices 0 to n-1.
+	 * @return index or -1, if this vertex does not belong to a graph
+	 */
+	public int getIndex() {
+		return this.index;
+	}
+	
+	/**
+	 * Sets the index of this vertex in its graph.
+	 * @param index new index
+	 */
+	void setIndex(int index) {
+		this.index = index;
+	}
+	
 	/**
 	 * Returns the height in a DFS tree of this vertice.
 	 * @return DFS height
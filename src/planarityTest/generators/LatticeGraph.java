@@ -0,0 +1,138 @@
+package planarityTest.generators;
+
+import planarityTest.dataStructures.ImplicitGraph;
+
+/**
+ * Implicit lattice with <code>width</code> times <code>height</code> vertices (see <code>Test.createLattice</code>),
+ * optionally triangulated by one diagonal in every cell. Vertex (x, y) has the id y * width + x.
+ * Nothing is stored, all adjacencies are computed.
+ * <p>
+ * The edges are numbered by kind: first the horizontal edges, then the vertical ones, then the diagonals;
+ * each kind is numbered row by row by its upper left vertex.
+ * @author tommy
+ *
+ */
+public class LatticeGraph implements ImplicitGraph {
+
+	// directions in the order of the adjacency
+	private static final int[] DX = { 1, 0, 1, -1,  0, -1 };
+	private static final int[] DY = { 0, 1, 1,  0, -1, -1 };
+
+	private final int     width;
+	private final int     height;
+	private final boolean triangulated;
+	private final int     directions;
+
+	private final int horizontalEdges;
+	private final int verticalEdges;
+	private final int diagonalEdges;
+
+
+	/**
+	 * Creates a new lattice.
+	 * @param width  number of vertices in each row
+	 * @param height number of vertices in each column
+	 */
+	public LatticeGraph(int width, int height) {
+		this(width, height, false);
+	}
+
+	/**
+	 * Creates a new lattice.
+	 * @param width        number of vertices in each row
+	 * @param height       number of vertices in each column
+	 * @param triangulated if true, every cell gets a diagonal from its upper left to its lower right vertex
+	 */
+	public LatticeGraph(int width, int height, boolean triangulated) {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("width and height must be positive");
+		}
+		long m = (long) (width-1) * height + (long) width * (height-1) + (triangulated ? (long) (width-1) * (height-1) : 0);
+		if ((long) width * height > Integer.MAX_VALUE || m > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("lattice is too large: " + width + " x " + height);
+		}
+		this.width        = width;
+		this.height       = height;
+		this.triangulated = triangulated;
+		this.directions   = triangulated ? 6 : 4;
+
+		horizontalEdges = (width-1) * height;
+		verticalEdges   = width * (height-1);
+		diagonalEdges   = triangulated ? (width-1) * (height-1) : 0;
+	}
+
+
+	@Override
+	public int getNumberOfVertices() {
+		return width * height;
+	}
+
+	@Override
+	public int getNumberOfEdges() {
+		return horizontalEdges + verticalEdges + diagonalEdges;
+	}
+
+	@Override
+	public int getDegree(int v) {
+		int x = v % width;
+		int y = v / width;
+		int degree = 0;
+		for (int d=0; d<6; d++) {
+			if (exists(x, y, d)) {
+				degree++;
+			}
+		}
+		return degree;
+	}
+
+	@Override
+	public int getNeighbor(int v, int i) {
+		int d = direction(v, i);
+		return v + DY[d] * width + DX[d];
+	}
+
+	@Override
+	public int getEdgeId(int v, int i) {
+		int d = direction(v, i);
+		int x = v % width;
+		int y = v / width;
+		if (d >= 3) {
+			// backward direction: the edge belongs to the neighbour
+			x += DX[d];
+			y += DY[d];
+			d -= 3;
+		}
+		switch (d) {
+		case 0:  return y * (width-1) + x;
+		case 1:  return horizontalEdges + y * width + x;
+		default: return horizontalEdges + verticalEdges + y * (width-1) + x;
+		}
+	}
+
+
+	/**
+	 * Returns the direction of the edge at position <code>i</code> of the adjacency of <code>v</code>.
+	 */
+	private int direction(int v, int i) {
+		int x = v % width;
+		int y = v / width;
+		for (int d=0; d<6; d++) {
+			if (exists(x, y, d) && i-- == 0) {
+				return d;
+			}
+		}
+		throw new IndexOutOfBoundsException("vertex " + v + " has no edge " + i);
+	}
+
+	/**
+	 * Tests if vertex (x, y) has an edge in direction <code>d</code>.
+	 */
+	private boolean exists(int x, int y, int d) {
+		if (!triangulated && (d == 2 || d == 5)) {
+			return false;
+		}
+		int nx = x + DX[d];
+		int ny = y + DY[d];
+		return nx >= 0 && nx < width && ny >= 0 && ny < height;
+	}
+}
@@ -0,0 +1,91 @@
+package planarityTest.generators;
+
+import planarityTest.dataStructures.ImplicitGraph;
+
+/**
+ * Implicit stacked triangulation (planar 3-tree) with <code>n</code> vertices: starting with the triangle 0, 1, 2
+ * every vertex k &gt;= 3 is inserted into the face 0, k-2, k-1. It is maximal planar, so it has 3n-6 edges
+ * and adding any edge makes it non-planar. Nothing is stored, all adjacencies are computed.
+ * <p>
+ * The edge {0, k} has the id k-1, the edge {k-1, k} the id n+k-3 and the edge {k-2, k} the id 2n+k-6.
+ * @author tommy
+ *
+ */
+public class StackedTriangulation implements ImplicitGraph {
+
+	private final int n;
+
+
+	/**
+	 * Creates a new stacked triangulation.
+	 * @param n number of vertices (at least 3)
+	 */
+	public StackedTriangulation(int n) {
+		if (n < 3) {
+			throw new IllegalArgumentException("a stacked triangulation needs at least 3 vertices");
+		}
+		this.n = n;
+	}
+
+
+	@Override
+	public int getNumberOfVertices() {
+		return n;
+	}
+
+	@Override
+	public int getNumberOfEdges() {
+		return 3*n - 6;
+	}
+
+	@Override
+	public int getDegree(int v) {
+		if (v == 0) {
+			return n-1;
+		}
+		int degree = 1;					// vertex 0
+		degree += Math.min(v-1, 2);		// v-1 and v-2 (except 0)
+		degree += Math.min(n-1-v, 2);	// v+1 and v+2
+		return degree;
+	}
+
+	@Override
+	public int getNeighbor(int v, int i) {
+		if (v == 0) {
+			return i+1;
+		}
+		return v + offset(v, i);
+	}
+
+	@Override
+	public int getEdgeId(int v, int i) {
+		if (v == 0) {
+			return i;
+		}
+		int d = offset(v, i);
+		int k = Math.max(v, v+d);
+		switch (v+d == 0 ? 0 : Math.abs(d)) {
+		case 0:  return k-1;
+		case 1:  return n+k-3;
+		default: return 2*n+k-6;
+		}
+	}
+
+
+	/**
+	 * Returns the difference between <code>v</code> &gt; 0 and its neighbour at position <code>i</code>.
+	 * The adjacency is 0, v-2, v-1, v+1, v+2 (as far as these vertices exist and are not 0).
+	 */
+	private int offset(int v, int i) {
+		if (i == 0) {
+			return -v;
+		}
+		i--;
+		for (int d=-2; d<=2; d++) {
+			if (d != 0 && v+d > 0 && v+d < n && i-- == 0) {
+				return d;
+			}
+		}
+		throw new IndexOutOfBoundsException("vertex " + v + " has no edge " + i);
+	}
+}
@@ -0,0 +1,83 @@
+package planarityTest.generators;
+
+import planarityTest.dataStructures.ImplicitGraph;
+
+/**
+ * Implicit wheel with <code>n</code> vertices (see <code>Test.createWheel</code>): the hub 0 is adjacent to
+ * every vertex of the rim 1, ..., n-1. Nothing is stored, all adjacencies are computed.
+ * <p>
+ * The spoke to rim vertex i has the id i-1, the rim edge from i to its successor has the id n-2+i.
+ * @author tommy
+ *
+ */
+public class WheelGraph implements ImplicitGraph {
+
+	private final int n;
+
+
+	/**
+	 * Creates a new wheel.
+	 * @param n number of vertices (at least 4)
+	 */
+	public WheelGraph(int n) {
+		if (n < 4) {
+			throw new IllegalArgumentException("a wheel needs at least 4 vertices");
+		}
+		this.n = n;
+	}
+
+
+	@Override
+	public int getNumberOfVertices() {
+		return n;
+	}
+
+	@Override
+	public int getNumberOfEdges() {
+		return 2 * (n-1);
+	}
+
+	@Override
+	public int getDegree(int v) {
+		return v == 0 ? n-1 : 3;
+	}
+
+	@Override
+	public int getNeighbor(int v, int i) {
+		if (v == 0) {
+			return i+1;
+		}
+		switch (i) {
+		case 0:  return 0;
+		case 1:  return next(v);
+		default: return previous(v);
+		}
+	}
+
+	@Override
+	public int getEdgeId(int v, int i) {
+		if (v == 0) {
+			return i;
+		}
+		switch (i) {
+		case 0:  return v-1;
+		case 1:  return n-2 + v;
+		default: return n-2 + previous(v);
+		}
+	}
+
+
+	/**
+	 * Returns the successor of a rim vertex.
+	 */
+	private int next(int v) {
+		return v == n-1 ? 1 : v+1;
+	}
+
+	/**
+	 * Returns the predecessor of a rim vertex.
+	 */
+	private int previous(int v) {
+		return v == 1 ? n-1 : v-1;
+	}
+}